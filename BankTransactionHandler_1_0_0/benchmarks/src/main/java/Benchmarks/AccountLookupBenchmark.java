@@ -0,0 +1,66 @@
+package Benchmarks;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.LogManager;
+
+import org.openjdk.jmh.annotations.*;
+
+import TransactionsSimulator.AccountRegistry;
+import TransactionsSimulator.BankAccount;
+import TransactionsSimulator.EventLogger;
+import TransactionsSimulator.StripedAccountTable;
+
+/*
+ * Compares resolving an account and depositing to it: HashMap<String, BankAccount> (the old BankSimulator layout) against
+ * AccountRegistry + StripedAccountTable, by ID and by an already interned index.
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class AccountLookupBenchmark {
+
+    @Param({"1000", "1000000"})
+    public int accounts;
+
+    private String[] ids;
+    private Map<String, BankAccount> map;
+    private AccountRegistry registry;
+    private StripedAccountTable balances;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        LogManager.getLogManager().reset();
+        EventLogger.global().setLevel(java.util.logging.Level.OFF);
+        ids = new String[accounts];
+        map = new HashMap<>();
+        registry = new AccountRegistry(accounts, 16);
+        for (int i = 0; i < accounts; i++) {
+            ids[i] = "Account_" + i;
+            map.put(ids[i], new BankAccount(ids[i], "OTP"));
+            registry.register(ids[i], "OTP");
+        }
+        balances = new StripedAccountTable(accounts);
+    }
+
+    @Benchmark
+    public void hashMapById() {
+        map.get(ids[ThreadLocalRandom.current().nextInt(accounts)]).deposit(1);
+    }
+
+    @Benchmark
+    public void registryById() {
+        balances.deposit(registry.indexOf(ids[ThreadLocalRandom.current().nextInt(accounts)]), 1);
+    }
+
+    @Benchmark
+    public void tableByIndex() {
+        balances.deposit(ThreadLocalRandom.current().nextInt(accounts), 1);
+    }
+}
@@ -0,0 +1,61 @@
+package Benchmarks;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import TransactionsSimulator.AccountStore;
+import TransactionsSimulator.OffHeapAccountStore;
+import TransactionsSimulator.StripedAccountTable;
+
+/*
+ * Compares the AccountStore implementations on random accounts: the on-heap StripedAccountTable against the lock-free OffHeapAccountStore.
+ * Run it with several thread counts (e.g. BenchmarkRunner AccountStore 1,4) to see the effect of the stripe locks.
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class AccountStoreBenchmark {
+
+    @Param({"STRIPED", "OFF_HEAP"})
+    public String store;
+
+    @Param({"1000", "10000000"})
+    public int accounts;
+
+    private AccountStore balances;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        balances = store.equals("OFF_HEAP") ? new OffHeapAccountStore(accounts) : new StripedAccountTable(accounts);
+        for (int i = 0; i < accounts; i++) {
+            balances.setBalance(i, 1_000_000);
+        }
+    }
+
+    @Benchmark
+    public void deposit() {
+        balances.deposit(ThreadLocalRandom.current().nextInt(accounts), 1);
+    }
+
+    @Benchmark
+    public boolean withdraw() {
+        return balances.withdraw(ThreadLocalRandom.current().nextInt(accounts), 1);
+    }
+
+    @Benchmark
+    public boolean transfer() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return balances.transfer(random.nextInt(accounts), random.nextInt(accounts), 1);
+    }
+
+    @Benchmark
+    public long getBalance() {
+        return balances.getBalance(ThreadLocalRandom.current().nextInt(accounts));
+    }
+}
@@ -0,0 +1,71 @@
+package Benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.logging.LogManager;
+
+import org.openjdk.jmh.annotations.*;
+
+import TransactionsSimulator.BankAccount;
+import TransactionsSimulator.EventLogger;
+import TransactionsSimulator.Transaction;
+import TransactionsSimulator.TransactionType;
+
+/*
+ * Benchmarks the balance operations of BankAccount on two shared (hot) accounts, so every thread contends for the same locks.
+ * The thread count is set from the command line (-t) or by BenchmarkRunner, which repeats the run for 1..N threads.
+ * Logging handlers are removed, but the log messages are still built, as they are on the real hot path.
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class BankAccountBenchmark {
+
+    private BankAccount source;
+    private BankAccount target;
+
+    // Per-thread transaction used for withdraw/transfer status tracking
+    @State(Scope.Thread)
+    public static class ThreadState {
+        Transaction transaction;
+
+        @Setup
+        public void setup() {
+            transaction = new Transaction("Account_1", 1, TransactionType.WITHDRAWAL);
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setupTrial() {
+        LogManager.getLogManager().reset();
+        EventLogger.global().setLevel(java.util.logging.Level.OFF);
+        source = new BankAccount("Account_1", "OTP");
+        target = new BankAccount("Account_2", "OTP");
+    }
+
+    // Balances are reset every iteration, so they never overflow or run dry
+    @Setup(Level.Iteration)
+    public void setupIteration() {
+        source.restoreBalance(Integer.MAX_VALUE / 2);
+        target.restoreBalance(0);
+    }
+
+    @Benchmark
+    public void deposit() {
+        source.deposit(1);
+    }
+
+    @Benchmark
+    public void withdraw(ThreadState state) {
+        source.withdraw(state.transaction);
+    }
+
+    // One direction only (see TransferContentionBenchmark for opposite transfers)
+    @Benchmark
+    public void transfer(ThreadState state) {
+        source.transfer(1, target, state.transaction);
+    }
+}
@@ -0,0 +1,122 @@
+package Benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.LogManager;
+
+import org.openjdk.jmh.annotations.*;
+
+import TransactionsSimulator.AccountRegistry;
+import TransactionsSimulator.BankScheduler;
+import TransactionsSimulator.BankTransactionProcessor;
+import TransactionsSimulator.EventLogger;
+import TransactionsSimulator.ExecutionMode;
+import TransactionsSimulator.ExportFormat;
+import TransactionsSimulator.StripedAccountTable;
+import TransactionsSimulator.Transaction;
+import TransactionsSimulator.TransactionExporter;
+import TransactionsSimulator.TransactionRingBuffer;
+import TransactionsSimulator.TransactionType;
+import TransactionsSimulator.WaitStrategy;
+
+/*
+ * Compares dedicated threads per bank (PARTITIONED: a dispatcher and four shards per bank) against all banks served by one BankScheduler
+ * with a thread per core (SHARED), for a growing number of banks. The producer publishes deposits, withdrawals and transfers into the
+ * banks round-robin; the score is the publish rate, which the full rings limit to the processing rate.
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+@Threads(1)
+public class BankSchedulerBenchmark {
+
+    private static final int ACCOUNTS_PER_BANK = 64;
+
+    @Param({"PARTITIONED", "SHARED"})
+    public ExecutionMode mode;
+
+    @Param({"2", "32", "128"})
+    public int banks;
+
+    private Path exportDir;
+    private String[][] ids;  // Account IDs per bank
+    private TransactionRingBuffer[] rings;
+    private final List<BankTransactionProcessor> processors = new ArrayList<>();
+    private final List<Thread> processorThreads = new ArrayList<>();
+    private BankScheduler scheduler;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        LogManager.getLogManager().reset();
+        EventLogger.global().setLevel(java.util.logging.Level.OFF);
+        exportDir = Files.createTempDirectory("bench-exports");
+
+        AccountRegistry registry = new AccountRegistry();
+        ids = new String[banks][ACCOUNTS_PER_BANK];
+        for (int bank = 0; bank < banks; bank++) {
+            for (int i = 0; i < ACCOUNTS_PER_BANK; i++) {
+                ids[bank][i] = "Account_" + bank + "_" + i;
+                registry.register(ids[bank][i], "Bank_" + bank);
+            }
+        }
+        StripedAccountTable balances = new StripedAccountTable(registry.size());
+        for (int i = 0; i < registry.size(); i++) {
+            balances.setBalance(i, Long.MAX_VALUE / 4);
+        }
+
+        scheduler = mode == ExecutionMode.SHARED ? new BankScheduler() : null;
+        rings = new TransactionRingBuffer[banks];
+        for (int bank = 0; bank < banks; bank++) {
+            rings[bank] = new TransactionRingBuffer(1024, 64, WaitStrategy.PARK);
+            BankTransactionProcessor processor = new BankTransactionProcessor(rings[bank], registry, balances, "Bank_" + bank,
+                    new TransactionExporter(ExportFormat.JSON_LINES, exportDir));
+            processors.add(processor);
+            if (scheduler != null) {
+                processor.setScheduler(scheduler);
+                processor.run();
+            } else {
+                processor.setExecutionMode(mode);
+                Thread thread = new Thread(processor, "Bank_" + bank + "-Thread");
+                thread.start();
+                processorThreads.add(thread);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException, InterruptedException {
+        for (BankTransactionProcessor processor : processors) {
+            processor.stop();
+        }
+        for (Thread thread : processorThreads) {
+            thread.join();
+        }
+        if (scheduler != null) {
+            scheduler.close();
+        }
+        BenchmarkFiles.deleteRecursively(exportDir);
+    }
+
+    @Benchmark
+    public void publish() throws InterruptedException {
+        int i = next++;
+        String[] bankIds = ids[i % banks];
+        String account = bankIds[(i * 31) & (ACCOUNTS_PER_BANK - 1)];
+        Transaction tx;
+        switch (i % 3) {
+            case 0 -> tx = new Transaction(account, 1, TransactionType.DEPOSIT);
+            case 1 -> tx = new Transaction(account, 1, TransactionType.WITHDRAWAL);
+            default -> tx = new Transaction(account, 1, TransactionType.TRANSFER, bankIds[(i * 17) & (ACCOUNTS_PER_BANK - 1)]);
+        }
+        rings[i % banks].put(tx);
+    }
+}
@@ -0,0 +1,49 @@
+package Benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/*
+ * Entry point of benchmarks.jar. Runs the selected benchmarks once for every thread count, with the GC profiler attached, so the report
+ * contains ops/s (Throughput), latency percentiles (SampleTime) and the allocation rate (gc.alloc.rate, gc.alloc.rate.norm).
+ *
+ * Usage: java -jar benchmarks.jar [include regex] [thread counts, e.g. 1,2,4,8]
+ * Defaults: all benchmarks; 1, 2, 4 ... up to the number of cores.
+ * The plain JMH command line is still available: java -cp benchmarks.jar org.openjdk.jmh.Main -h
+ */
+
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException {
+        String include = args.length > 0 ? args[0] : "Benchmarks\\..*";
+        List<Integer> threadCounts = new ArrayList<>();
+
+        if (args.length > 1) {
+            for (String count : args[1].split(",")) {
+                threadCounts.add(Integer.parseInt(count.trim()));
+            }
+        } else {
+            int cores = Runtime.getRuntime().availableProcessors();
+            for (int threads = 1; threads < cores; threads *= 2) {
+                threadCounts.add(threads);
+            }
+            threadCounts.add(cores);
+        }
+
+        for (int threads : threadCounts) {
+            System.out.println("\n=== " + include + " with " + threads + " thread(s) ===\n");
+            Options options = new OptionsBuilder()
+                    .include(include)
+                    .threads(threads)
+                    .addProfiler(GCProfiler.class)
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
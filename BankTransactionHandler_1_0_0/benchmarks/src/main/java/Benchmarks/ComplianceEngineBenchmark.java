@@ -0,0 +1,75 @@
+package Benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import ThirdParticipante.ComplianceEngine;
+import ThirdParticipante.ComplianceRule;
+import ThirdParticipante.ComplianceRules;
+import TransactionsSimulator.EventLogger;
+import TransactionsSimulator.Transaction;
+import TransactionsSimulator.TransactionType;
+
+/*
+ * Benchmarks the ComplianceEngine with a chain of limit, blacklist and fee rules, one transaction at a time and in batches of 64, with and
+ * without measuring the time of each rule. Scores are per transaction (batches use OperationsPerInvocation).
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class ComplianceEngineBenchmark {
+
+    private static final int BATCH = 64;
+
+    @Param({"1", "24"})
+    public int rules;
+
+    @Param({"true", "false"})
+    public boolean timed;
+
+    private ComplianceEngine engine;
+    private List<Transaction> batch;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        EventLogger.global().setLevel(java.util.logging.Level.OFF);
+        List<ComplianceRule> chain = new ArrayList<>();
+        chain.add(ComplianceRules.positiveAmount());
+        List<String> blacklisted = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            blacklisted.add("Blocked_" + i);
+        }
+        for (int i = 1; i < rules; i++) {
+            switch (i % 3) {
+                case 0 -> chain.add(ComplianceRules.maxAmount(TransactionType.values()[i % 3], 1_000_000 + i));
+                case 1 -> chain.add(ComplianceRules.blacklist(blacklisted));
+                default -> chain.add(ComplianceRules.percentageFee(TransactionType.TRANSFER, 0));
+            }
+        }
+        engine = new ComplianceEngine(chain, timed);
+
+        batch = new ArrayList<>();
+        for (int i = 0; i < BATCH; i++) {
+            batch.add(i % 2 == 0 ? new Transaction("Account_" + i, 100 + i, TransactionType.DEPOSIT)
+                                 : new Transaction("Account_" + i, 100 + i, TransactionType.TRANSFER, "Account_0"));
+        }
+    }
+
+    @Benchmark
+    public boolean single() {
+        return engine.evaluate(batch.get(0));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int batch() {
+        return engine.evaluateBatch(batch);
+    }
+}
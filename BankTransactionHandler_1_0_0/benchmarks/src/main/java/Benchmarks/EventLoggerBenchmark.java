@@ -0,0 +1,82 @@
+package Benchmarks;
+
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Handler;
+import java.util.logging.LogManager;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import org.openjdk.jmh.annotations.*;
+
+import TransactionsSimulator.EventLogger;
+import TransactionsSimulator.LogEvent;
+import TransactionsSimulator.LogOverflowPolicy;
+import TransactionsSimulator.TransactionType;
+
+/*
+ * Compares the caller side cost of logging one transaction event: java.util.logging with a concatenated message (as BankAccount did before)
+ * against the EventLogger ring buffer, with the event enabled and disabled. Both write to a sink that discards the output.
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class EventLoggerBenchmark {
+
+    private Logger julLogger;
+    private EventLogger eventLogger;
+    private String accountId = "Account_1";
+    private int amount = 42;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        LogManager.getLogManager().reset();
+        julLogger = Logger.getLogger("EventLoggerBenchmark");
+        julLogger.setUseParentHandlers(false);
+        julLogger.addHandler(new Handler() {
+            @Override
+            public void publish(LogRecord record) {
+                getFormatter();  // Records are discarded
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+        eventLogger = new EventLogger(1 << 16, java.util.logging.Level.INFO, LogOverflowPolicy.DROP, Writer.nullWriter());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        eventLogger.close();
+        System.out.println("Dropped events: " + eventLogger.getDroppedCount() + ", logged: " + eventLogger.getLoggedCount());
+    }
+
+    @Benchmark
+    public void julConcatenated() {
+        julLogger.info("Insufficient funds: " + accountId + " tried to withdraw " + amount);
+    }
+
+    @Benchmark
+    public void julDisabled() {
+        julLogger.fine("Withdrawal successful: " + amount + " from account " + accountId);
+    }
+
+    @Benchmark
+    public void eventLogger() {
+        eventLogger.log(LogEvent.INSUFFICIENT_FUNDS, accountId, TransactionType.WITHDRAWAL, amount, 0);
+    }
+
+    @Benchmark
+    public void eventLoggerDisabled() {
+        eventLogger.log(LogEvent.WITHDRAWAL_COMPLETED, accountId, null, amount, 0);
+    }
+}
@@ -0,0 +1,93 @@
+package Benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.LogManager;
+
+import org.openjdk.jmh.annotations.*;
+
+import TransactionsSimulator.AccountRegistry;
+import TransactionsSimulator.BankTransactionProcessor;
+import TransactionsSimulator.EventLogger;
+import TransactionsSimulator.ExecutionMode;
+import TransactionsSimulator.ExportFormat;
+import TransactionsSimulator.StripedAccountTable;
+import TransactionsSimulator.Transaction;
+import TransactionsSimulator.TransactionExporter;
+import TransactionsSimulator.TransactionRingBuffer;
+import TransactionsSimulator.TransactionType;
+import TransactionsSimulator.WaitStrategy;
+
+/*
+ * Compares the execution modes of BankTransactionProcessor fed by a ring buffer: POOL (four ring workers, any transaction on any worker)
+ * against PARTITIONED (one dispatcher, four single-writer shards). The producer publishes deposits, withdrawals and transfers between random
+ * accounts; the score is the publish rate, which the full ring limits to the processing rate.
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+@Threads(1)
+public class ExecutionModeBenchmark {
+
+    private static final int ACCOUNTS = 1024;
+
+    @Param({"POOL", "PARTITIONED"})
+    public ExecutionMode mode;
+
+    private Path exportDir;
+    private String[] ids;
+    private TransactionRingBuffer ring;
+    private BankTransactionProcessor processor;
+    private Thread processorThread;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        LogManager.getLogManager().reset();
+        EventLogger.global().setLevel(java.util.logging.Level.OFF);
+        exportDir = Files.createTempDirectory("bench-exports");
+
+        AccountRegistry registry = new AccountRegistry();
+        ids = new String[ACCOUNTS];
+        for (int i = 0; i < ACCOUNTS; i++) {
+            ids[i] = "Account_" + i;
+            registry.register(ids[i], "OTP");
+        }
+        StripedAccountTable balances = new StripedAccountTable(ACCOUNTS);
+        for (int i = 0; i < ACCOUNTS; i++) {
+            balances.setBalance(i, Long.MAX_VALUE / 4);
+        }
+
+        ring = new TransactionRingBuffer(4096, 64, WaitStrategy.PARK);
+        processor = new BankTransactionProcessor(ring, registry, balances, "OTP", new TransactionExporter(ExportFormat.JSON_LINES, exportDir));
+        processor.setExecutionMode(mode);
+        processorThread = new Thread(processor, "OTP-Thread");
+        processorThread.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException, InterruptedException {
+        processor.stop();
+        processorThread.join();
+        BenchmarkFiles.deleteRecursively(exportDir);
+    }
+
+    @Benchmark
+    public void publish() throws InterruptedException {
+        int i = next++;
+        String account = ids[(i * 31) & (ACCOUNTS - 1)];
+        Transaction tx;
+        switch (i % 3) {
+            case 0 -> tx = new Transaction(account, 1, TransactionType.DEPOSIT);
+            case 1 -> tx = new Transaction(account, 1, TransactionType.WITHDRAWAL);
+            default -> tx = new Transaction(account, 1, TransactionType.TRANSFER, ids[(i * 17) & (ACCOUNTS - 1)]);
+        }
+        ring.put(tx);
+    }
+}
@@ -0,0 +1,63 @@
+package Benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.*;
+
+import TransactionsSimulator.AmountDistribution;
+import TransactionsSimulator.ParallelTransactionGenerator;
+import TransactionsSimulator.Transaction;
+import TransactionsSimulator.TransactionProfile;
+
+/*
+ * Benchmarks ParallelTransactionGenerator.next with a stream per benchmark thread (no shared state, so it should scale with the threads),
+ * uniform against Zipf-skewed accounts and uniform against log-normal amounts. Compare with TransactionGeneratorBenchmark.
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class ParallelTransactionGeneratorBenchmark {
+
+    private static final int ACCOUNTS = 100_000;
+
+    @Param({"0", "1.1"})
+    public double skew;
+
+    @Param({"UNIFORM", "LOG_NORMAL"})
+    public AmountDistribution amounts;
+
+    private ParallelTransactionGenerator generator;
+    private final AtomicInteger streams = new AtomicInteger();
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        SplittableRandom random;
+
+        @Setup(Level.Trial)
+        public void setup(ParallelTransactionGeneratorBenchmark benchmark) {
+            random = benchmark.generator.stream(benchmark.streams.getAndIncrement());
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        List<String> ids = new ArrayList<>(ACCOUNTS);
+        for (int i = 0; i < ACCOUNTS; i++) {
+            ids.add("Account_" + i);
+        }
+        generator = new ParallelTransactionGenerator(ids, new TransactionProfile(skew, 1, 1, 1, amounts, 50, 100_000), 42);
+    }
+
+    @Benchmark
+    public Transaction next(ThreadState state) {
+        return generator.next(state.random);
+    }
+}
@@ -0,0 +1,93 @@
+package Benchmarks;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.openjdk.jmh.annotations.*;
+
+import TransactionsSimulator.Transaction;
+import TransactionsSimulator.TransactionRingBuffer;
+import TransactionsSimulator.TransactionType;
+import TransactionsSimulator.WaitStrategy;
+
+/*
+ * Measures the hand-off of transactions from one producer to two consumers: the old bank queue (LinkedBlockingQueue, a dispatcher take()
+ * per element and a submit() per element to a pool) against the TransactionRingBuffer with each wait strategy. The consumers only count.
+ * The producer is a single thread (the ring is single-producer), the score is the producer's publish rate.
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+@Threads(1)
+public class RingBufferBenchmark {
+
+    @Param({"LINKED_BLOCKING_QUEUE", "PARK", "YIELD", "BUSY_SPIN"})
+    public String queue;
+
+    private final Transaction transaction = new Transaction("Account_1", 100, TransactionType.DEPOSIT);
+    private final LongAdder consumed = new LongAdder();
+
+    private TransactionRingBuffer ring;
+    private Thread[] consumers;
+
+    private LinkedBlockingQueue<Transaction> blockingQueue;
+    private ExecutorService pool;
+    private Thread dispatcher;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        if (queue.equals("LINKED_BLOCKING_QUEUE")) {
+            blockingQueue = new LinkedBlockingQueue<>(1024);
+            pool = Executors.newFixedThreadPool(2);
+            dispatcher = new Thread(() -> {
+                try {
+                    while (true) {
+                        Transaction tx = blockingQueue.take();
+                        pool.submit(() -> consumed.add(tx.getAmount() > 0 ? 1 : 0));
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, "Benchmark-Dispatcher");
+            dispatcher.start();
+        } else {
+            ring = new TransactionRingBuffer(1024, 64, WaitStrategy.valueOf(queue));
+            consumers = new Thread[2];
+            for (int i = 0; i < consumers.length; i++) {
+                consumers[i] = new Thread(ring.newConsumer((tx, sequence, endOfBatch) -> consumed.add(tx.getAmount() > 0 ? 1 : 0)),
+                        "Benchmark-Consumer-" + i);
+                consumers[i].start();
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        if (ring != null) {
+            ring.halt();
+            for (Thread consumer : consumers) {
+                consumer.join();
+            }
+        } else {
+            dispatcher.interrupt();
+            dispatcher.join();
+            pool.shutdownNow();
+        }
+    }
+
+    @Benchmark
+    public void publish() throws InterruptedException {
+        if (ring != null) {
+            ring.put(transaction);
+        } else {
+            blockingQueue.put(transaction);
+        }
+    }
+}
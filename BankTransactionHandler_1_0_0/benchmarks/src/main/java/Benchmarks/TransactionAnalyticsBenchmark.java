@@ -0,0 +1,61 @@
+package Benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import TransactionsSimulator.Transaction;
+import TransactionsSimulator.TransactionAnalytics;
+import TransactionsSimulator.TransactionStatus;
+import TransactionsSimulator.TransactionType;
+import TransactionsSimulator.WindowedStats;
+
+/*
+ * Benchmarks the streaming analytics: recording a completed transaction (bank and account windows) and reading a sliding and a tumbling
+ * window of a bank while transactions are recorded. Run with -t to see the recording scale over threads.
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class TransactionAnalyticsBenchmark {
+
+    private static final int ACCOUNTS = 1000;
+
+    private TransactionAnalytics analytics;
+    private Transaction[] transactions;
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        int next;
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        analytics = new TransactionAnalytics();
+        transactions = new Transaction[ACCOUNTS];
+        for (int i = 0; i < ACCOUNTS; i++) {
+            transactions[i] = new Transaction("Account_" + i, 50 + i % 450, TransactionType.DEPOSIT);
+            transactions[i].setStatus(i % 10 == 0 ? TransactionStatus.FAILED : TransactionStatus.COMPLETED);
+            analytics.record(transactions[i], "OTP");
+        }
+    }
+
+    @Benchmark
+    public void record(ThreadState state) {
+        analytics.record(transactions[state.next++ % ACCOUNTS], "OTP");
+    }
+
+    @Benchmark
+    public WindowedStats.Window sliding10Seconds() {
+        return analytics.getBank("OTP").sliding(TimeUnit.SECONDS.toNanos(10));
+    }
+
+    @Benchmark
+    public WindowedStats.Window tumblingMinute() {
+        return analytics.getBank("OTP").tumbling(TimeUnit.MINUTES.toNanos(1));
+    }
+}
@@ -0,0 +1,75 @@
+package Benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import TransactionsSimulator.ExportFormat;
+import TransactionsSimulator.JsonLinesConverter;
+import TransactionsSimulator.Transaction;
+import TransactionsSimulator.TransactionExporter;
+import TransactionsSimulator.TransactionStatus;
+import TransactionsSimulator.TransactionType;
+
+/*
+ * Benchmarks TransactionExporter.exportTransaction against export files that already hold existingRecords transactions.
+ * The files are rebuilt before every iteration and keep growing during it, which shows the O(file size) cost of the legacy JSON_ARRAY mode.
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class TransactionExporterBenchmark {
+
+    @Param({"JSON_ARRAY", "JSON_LINES"})
+    public ExportFormat format;
+
+    @Param({"0", "1000", "10000"})
+    public int existingRecords;
+
+    private Path exportDir;
+    private TransactionExporter exporter;
+    private Transaction transaction;
+
+    @Setup(Level.Iteration)
+    public void setup() throws IOException {
+        exportDir = Files.createTempDirectory("bench-exports");
+
+        // Pre-fill the export file (written as JSON Lines, converted for the legacy format)
+        TransactionExporter filler = new TransactionExporter(ExportFormat.JSON_LINES, exportDir);
+        Transaction tx = completed();
+        for (int i = 0; i < existingRecords; i++) {
+            filler.exportTransaction(tx, "OTP");
+        }
+        filler.close();
+        if (format == ExportFormat.JSON_ARRAY && existingRecords > 0) {
+            JsonLinesConverter.convert(exportDir.resolve("OTP_transactions.jsonl"), exportDir.resolve("OTP_transactions.json"));
+        }
+
+        exporter = new TransactionExporter(format, exportDir);
+        transaction = completed();
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws IOException {
+        exporter.close();
+        BenchmarkFiles.deleteRecursively(exportDir);
+    }
+
+    @Benchmark
+    public void exportTransaction() {
+        exporter.exportTransaction(transaction, "OTP");
+    }
+
+    private static Transaction completed() {
+        Transaction tx = new Transaction("Account_1", 250, TransactionType.TRANSFER, "Account_2");
+        tx.setStatus(TransactionStatus.COMPLETED);
+        return tx;
+    }
+}
@@ -0,0 +1,52 @@
+package Benchmarks;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import TransactionsSimulator.TransactionGenerator;
+
+/*
+ * Benchmarks TransactionGenerator.generateRandomTransaction. The generator prints every transaction, so System.out is redirected to a
+ * discarding stream (the formatting cost stays in the measurement). The buffer is drained every 1024 transactions to keep memory flat.
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class TransactionGeneratorBenchmark {
+
+    private TransactionGenerator generator;
+    private PrintStream originalOut;
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        int generated;
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        generator = new TransactionGenerator(Arrays.asList("Account_1", "Account_2", "Account_3"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.setOut(originalOut);
+    }
+
+    @Benchmark
+    public void generateRandomTransaction(ThreadState state) {
+        generator.generateRandomTransaction();
+        if (++state.generated % 1024 == 0) {
+            generator.retrieveAndClearBuffer();
+        }
+    }
+}
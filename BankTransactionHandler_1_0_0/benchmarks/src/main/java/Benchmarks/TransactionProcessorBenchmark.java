@@ -0,0 +1,77 @@
+package Benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.LogManager;
+
+import org.openjdk.jmh.annotations.*;
+
+import TransactionsSimulator.AccountRegistry;
+import TransactionsSimulator.BankTransactionProcessor;
+import TransactionsSimulator.EventLogger;
+import TransactionsSimulator.ExportFormat;
+import TransactionsSimulator.StripedAccountTable;
+import TransactionsSimulator.Transaction;
+import TransactionsSimulator.TransactionExporter;
+import TransactionsSimulator.TransactionType;
+
+/*
+ * Benchmarks BankTransactionProcessor.processTransaction end-to-end: hand-off to the worker pool, third-party monitoring,
+ * applying the balance change and handing the transaction to the export stage. Each operation waits until its transaction is applied.
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class TransactionProcessorBenchmark {
+
+    @Param({"DEPOSIT", "WITHDRAWAL", "TRANSFER"})
+    public TransactionType type;
+
+    private Path exportDir;
+    private AccountRegistry registry;
+    private StripedAccountTable balances;
+    private BankTransactionProcessor processor;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        LogManager.getLogManager().reset();
+        EventLogger.global().setLevel(java.util.logging.Level.OFF);
+        exportDir = Files.createTempDirectory("bench-exports");
+
+        registry = new AccountRegistry();
+        registry.register("Account_1", "OTP");
+        registry.register("Account_2", "OTP");
+        balances = new StripedAccountTable(registry.size());
+        processor = new BankTransactionProcessor(new LinkedBlockingQueue<>(), registry, balances, "OTP",
+                new TransactionExporter(ExportFormat.JSON_LINES, exportDir));
+    }
+
+    @Setup(Level.Iteration)
+    public void setupIteration() {
+        balances.setBalance(0, Long.MAX_VALUE / 2);
+        balances.setBalance(1, 0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        processor.stop();
+        BenchmarkFiles.deleteRecursively(exportDir);
+    }
+
+    @Benchmark
+    public Transaction processTransaction() throws InterruptedException, ExecutionException {
+        Transaction tx = type == TransactionType.TRANSFER
+                ? new Transaction("Account_1", 1, type, "Account_2")
+                : new Transaction("Account_1", 1, type);
+        processor.processTransaction(tx).get();
+        return tx;
+    }
+}
@@ -0,0 +1,82 @@
+package Benchmarks;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import TransactionsSimulator.TransactionRecord;
+import TransactionsSimulator.TransactionStatus;
+import TransactionsSimulator.TransactionStore;
+import TransactionsSimulator.TransactionType;
+
+/*
+ * Benchmarks the queries of TransactionStore on 2M rows (10 000 accounts, 1000 transactions per second over about 33 minutes, 10% failed):
+ * the history of one account over the last 5 minutes, a 5 second time range, the same range filtered by status, and the append itself.
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class TransactionStoreBenchmark {
+
+    private static final int ROWS = 2_000_000;
+    private static final int ACCOUNTS = 10_000;
+    private static final long ROW_INTERVAL_NANOS = 1_000_000;  // 1000 rows per second
+    private static final long START = 1_700_000_000_000_000_000L;
+    private static final long END = START + ROWS * ROW_INTERVAL_NANOS;
+
+    private TransactionStore store;
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        final SplittableRandom random = new SplittableRandom(7);
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        store = new TransactionStore((long) ROWS * TransactionStore.ROW_BYTES * 2);
+        SplittableRandom random = new SplittableRandom(42);
+        for (int row = 0; row < ROWS; row++) {
+            store.append(record(random, START + row * ROW_INTERVAL_NANOS));
+        }
+    }
+
+    private static TransactionRecord record(SplittableRandom random, long epochNanos) {
+        boolean transfer = random.nextInt(3) == 0;
+        TransactionStatus status = random.nextInt(10) == 0 ? TransactionStatus.FAILED : TransactionStatus.COMPLETED;
+        TransactionType type = transfer ? TransactionType.TRANSFER : (random.nextBoolean() ? TransactionType.DEPOSIT : TransactionType.WITHDRAWAL);
+        return new TransactionRecord(0, epochNanos, random.nextInt(ACCOUNTS), transfer ? random.nextInt(ACCOUNTS) : TransactionRecord.NO_ACCOUNT,
+                50 + random.nextInt(450), TransactionRecord.pack(type, status));
+    }
+
+    @Benchmark
+    public int accountHistoryLast5Minutes(ThreadState state, Blackhole blackhole) {
+        return store.visitAccountHistory(state.random.nextInt(ACCOUNTS), END - TimeUnit.MINUTES.toNanos(5), END, null, 1000,
+                (row, account, target, amount, type, status, epochNanos) -> blackhole.consume(amount));
+    }
+
+    @Benchmark
+    public int timeRange5Seconds(ThreadState state, Blackhole blackhole) {
+        long from = START + state.random.nextLong(END - START - TimeUnit.SECONDS.toNanos(5));
+        return store.visitTimeRange(from, from + TimeUnit.SECONDS.toNanos(5), null, Integer.MAX_VALUE,
+                (row, account, target, amount, type, status, epochNanos) -> blackhole.consume(amount));
+    }
+
+    @Benchmark
+    public int failedInTimeRange5Seconds(ThreadState state, Blackhole blackhole) {
+        long from = START + state.random.nextLong(END - START - TimeUnit.SECONDS.toNanos(5));
+        return store.visitTimeRange(from, from + TimeUnit.SECONDS.toNanos(5), TransactionStatus.FAILED, Integer.MAX_VALUE,
+                (row, account, target, amount, type, status, epochNanos) -> blackhole.consume(amount));
+    }
+
+    @Benchmark
+    public long append(ThreadState state) {
+        store.append(record(state.random, END));
+        return store.getAppendedCount();
+    }
+}
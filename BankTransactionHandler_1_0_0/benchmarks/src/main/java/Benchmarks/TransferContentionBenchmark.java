@@ -0,0 +1,95 @@
+package Benchmarks;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.LogManager;
+
+import org.openjdk.jmh.annotations.*;
+
+import TransactionsSimulator.BankAccount;
+import TransactionsSimulator.EventLogger;
+import TransactionsSimulator.Transaction;
+import TransactionsSimulator.TransactionType;
+
+/*
+ * Benchmarks BankAccount.transfer under cross-transfer contention: in the 'cross' group half of the threads transfer from the lower
+ * account of a random pair to the higher one and the other half the opposite way. With the old source-then-target locking this scenario
+ * deadlocks; the 'oneWay' group runs the same load in a single direction, the only scenario the old implementation survived, as a baseline.
+ * The accounts parameter controls the contention: 2 accounts means every transfer collides.
+ */
+
+@State(Scope.Group)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class TransferContentionBenchmark {
+
+    @Param({"2", "16", "256"})
+    public int accounts;
+
+    private BankAccount[] pool;
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        Transaction transaction;
+
+        @Setup
+        public void setup() {
+            transaction = new Transaction("Account_1", 1, TransactionType.TRANSFER, "Account_2");
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setupTrial() {
+        LogManager.getLogManager().reset();
+        EventLogger.global().setLevel(java.util.logging.Level.OFF);
+        pool = new BankAccount[accounts];
+        for (int i = 0; i < accounts; i++) {
+            pool[i] = new BankAccount("Account_" + i, "OTP");
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void setupIteration() {
+        for (BankAccount account : pool) {
+            account.restoreBalance(Integer.MAX_VALUE / 4);
+        }
+    }
+
+    @Benchmark
+    @Group("cross")
+    @GroupThreads(2)
+    public void forward(ThreadState state) {
+        transfer(state, false);
+    }
+
+    @Benchmark
+    @Group("cross")
+    @GroupThreads(2)
+    public void backward(ThreadState state) {
+        transfer(state, true);
+    }
+
+    @Benchmark
+    @Group("oneWay")
+    @GroupThreads(4)
+    public void oneWay(ThreadState state) {
+        transfer(state, false);
+    }
+
+    // Transfers 1 between a random pair, from the lower to the higher account (or reversed)
+    private void transfer(ThreadState state, boolean reversed) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int a = random.nextInt(accounts);
+        int b = (a + 1 + random.nextInt(accounts - 1)) % accounts;
+        BankAccount low = pool[Math.min(a, b)];
+        BankAccount high = pool[Math.max(a, b)];
+        if (reversed) {
+            high.transfer(1, low, state.transaction);
+        } else {
+            low.transfer(1, high, state.transaction);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package Benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.LogManager;
+
+import org.openjdk.jmh.annotations.*;
+
+import TransactionsSimulator.AccountRegistry;
+import TransactionsSimulator.BankTransactionProcessor;
+import TransactionsSimulator.EventLogger;
+import TransactionsSimulator.ExecutionMode;
+import TransactionsSimulator.ExportFormat;
+import TransactionsSimulator.StripedAccountTable;
+import TransactionsSimulator.Transaction;
+import TransactionsSimulator.TransactionExporter;
+import TransactionsSimulator.TransactionType;
+
+/*
+ * Compares the fixed pool of BankTransactionProcessor (POOL) against a virtual thread per transaction (VIRTUAL_THREADS) with
+ * 10k, 100k and 1M transactions in flight: every transaction is submitted before any of them is awaited. The score is the time
+ * until all of them are applied, including the file export done by the export stage.
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+@Threads(1)
+public class VirtualThreadBenchmark {
+
+    private static final int ACCOUNTS = 1024;
+
+    @Param({"POOL", "VIRTUAL_THREADS"})
+    public ExecutionMode mode;
+
+    @Param({"10000", "100000", "1000000"})
+    public int inFlight;
+
+    private Path exportDir;
+    private AccountRegistry registry;
+    private StripedAccountTable balances;
+    private Transaction[] transactions;
+    private Future<?>[] futures;
+    private BankTransactionProcessor processor;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        LogManager.getLogManager().reset();
+        EventLogger.global().setLevel(java.util.logging.Level.OFF);
+        exportDir = Files.createTempDirectory("bench-exports");
+
+        registry = new AccountRegistry();
+        String[] ids = new String[ACCOUNTS];
+        for (int i = 0; i < ACCOUNTS; i++) {
+            ids[i] = "Account_" + i;
+            registry.register(ids[i], "OTP");
+        }
+        balances = new StripedAccountTable(ACCOUNTS);
+        for (int i = 0; i < ACCOUNTS; i++) {
+            balances.setBalance(i, Long.MAX_VALUE / 4);
+        }
+
+        transactions = new Transaction[inFlight];
+        futures = new Future<?>[inFlight];
+        for (int i = 0; i < inFlight; i++) {
+            String account = ids[(i * 31) & (ACCOUNTS - 1)];
+            switch (i % 3) {
+                case 0 -> transactions[i] = new Transaction(account, 1, TransactionType.DEPOSIT);
+                case 1 -> transactions[i] = new Transaction(account, 1, TransactionType.WITHDRAWAL);
+                default -> transactions[i] = new Transaction(account, 1, TransactionType.TRANSFER, ids[(i * 17) & (ACCOUNTS - 1)]);
+            }
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void startProcessor() {
+        processor = new BankTransactionProcessor(new LinkedBlockingQueue<>(), registry, balances, "OTP",
+                new TransactionExporter(ExportFormat.JSON_LINES, exportDir));
+        processor.setExecutionMode(mode);
+    }
+
+    @TearDown(Level.Iteration)
+    public void stopProcessor() {
+        processor.stop();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkFiles.deleteRecursively(exportDir);
+    }
+
+    @Benchmark
+    public void processAll() throws InterruptedException, ExecutionException {
+        for (int i = 0; i < inFlight; i++) {
+            futures[i] = processor.processTransaction(transactions[i]);
+        }
+        for (int i = 0; i < inFlight; i++) {
+            futures[i].get();
+        }
+    }
+}
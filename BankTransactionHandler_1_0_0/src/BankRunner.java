@@ -1,39 +1,55 @@
-import java.util.concurrent.BlockingQueue;
-import TransactionsSimulator.BankSimulator;
-
-/**
- * This class is responsible for starting and managing the bank simulation.
- * It provides access to the shared queue used by the simulation.
- */
-public class BankRunner {
-    // Instance of the BankSimulator, which simulates transactions
-    private final BankSimulator simulator;
-
-    // Constructor: initializes the simulator
-    public BankRunner() {
-        this.simulator = new BankSimulator();
-    }
-
-    /**
-     * Returns the shared queue that contains account balances or transaction values.
-     * This queue is used by other threads (e.g., GUI or processing threads) to read the data.
-     */
-    public BlockingQueue<Integer> getSharedQueue() {
-        return simulator.getBalanceQueue();
-    }
-
-    /**
-     * Starts the simulation in a separate thread.
-     * This method creates a new thread to run the bank simulation so that it doesn't block the main GUI thread.
-     */
-    public void start() {
-        new Thread(() -> {
-            try {
-                // Start simulating bank transactions (adds values to the queue)
-                simulator.runSimulation();
-            } catch (InterruptedException e) {
-                e.printStackTrace(); // Print error if the thread is interrupted
-            }
-        }, "BankSimulatorThread").start(); // Give the thread a descriptive name
-    }
-}
+import java.io.IOException;
+import java.nio.file.Paths;
+import TransactionsSimulator.BalanceSnapshotChannel;
+import TransactionsSimulator.BankConfig;
+import TransactionsSimulator.BankSimulator;
+
+/**
+ * This class is responsible for starting and managing the bank simulation.
+ * It provides access to the balance channel used by the simulation.
+ */
+public class BankRunner {
+    // Instance of the BankSimulator, which simulates transactions
+    private final BankSimulator simulator;
+
+    // Constructor: initializes the simulator with the banks and accounts of src/banks.properties (the built-in three accounts without it)
+    // and restores the balances saved before the last shutdown or crash
+    public BankRunner() {
+        BankConfig config;
+        try {
+            config = BankConfig.load(Paths.get("src/banks.properties"));
+        } catch (IOException e) {
+            e.printStackTrace(); // Unreadable file: fall back to the built-in accounts
+            config = BankConfig.defaults();
+        }
+        this.simulator = new BankSimulator(config);
+        try {
+            simulator.enableDurability(Paths.get("src/wal/"));
+        } catch (IOException e) {
+            e.printStackTrace(); // The simulation still runs, just without crash recovery
+        }
+    }
+
+    /**
+     * Returns the channel that publishes the account balances at the end of every cycle.
+     * It is used by other threads (e.g., GUI or processing threads) to read the data.
+     */
+    public BalanceSnapshotChannel getBalanceChannel() {
+        return simulator.getBalanceChannel();
+    }
+
+    /**
+     * Starts the simulation in a separate thread.
+     * This method creates a new thread to run the bank simulation so that it doesn't block the main GUI thread.
+     */
+    public void start() {
+        new Thread(() -> {
+            try {
+                // Start simulating bank transactions (publishes the balances on the channel)
+                simulator.runSimulation();
+            } catch (InterruptedException e) {
+                e.printStackTrace(); // Print error if the thread is interrupted
+            }
+        }, "BankSimulatorThread").start(); // Give the thread a descriptive name
+    }
+}
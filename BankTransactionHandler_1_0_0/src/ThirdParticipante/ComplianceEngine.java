@@ -0,0 +1,201 @@
+package ThirdParticipante;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+import TransactionsSimulator.EventLogger;
+import TransactionsSimulator.LogEvent;
+import TransactionsSimulator.Transaction;
+import TransactionsSimulator.TransactionStatus;
+
+/*
+ * The ComplianceEngine class runs a fixed chain of ComplianceRules over transactions, replacing the per-transaction, synchronized
+ * ThirdPartyMonitor. The rule chain is copied into an array once and never changes, and the rules themselves are immutable, so one engine
+ * can be shared by all worker threads without any lock. A transaction is COMPLETED if no rule rejects it, FAILED at the first rejection.
+ *
+ * For every rule the engine counts the evaluations, the hits (the rule rejected or adjusted a transaction) and the time spent in it. The
+ * counters are LongAdders, so the statistics don't become a contention point either. evaluateBatch() runs the rules rule by rule over the
+ * whole batch and reads the clock once per rule and batch instead of twice per rule and transaction.
+ */
+
+public class ComplianceEngine {
+
+    private static final EventLogger events = EventLogger.global();
+
+    private final ComplianceRule[] rules;
+    private final boolean timed;
+
+    // Statistics per rule, indexed like rules
+    private final LongAdder[] evaluations;
+    private final LongAdder[] hits;
+    private final LongAdder[] nanos;
+
+    /**
+     * Creates an engine that measures the evaluation time of its rules.
+     */
+    public ComplianceEngine(List<ComplianceRule> rules) {
+        this(rules, true);
+    }
+
+    /**
+     * @param rules The rules in evaluation order (cheap and selective rules should come first)
+     * @param timed Whether the evaluation time of the rules is measured
+     */
+    public ComplianceEngine(List<ComplianceRule> rules, boolean timed) {
+        this.rules = rules.toArray(new ComplianceRule[0]);
+        this.timed = timed;
+        this.evaluations = newAdders(this.rules.length);
+        this.hits = newAdders(this.rules.length);
+        this.nanos = newAdders(this.rules.length);
+    }
+
+    // The checks of the original ThirdPartyMonitor
+    public static ComplianceEngine defaultEngine() {
+        return new ComplianceEngine(List.of(ComplianceRules.positiveAmount()));
+    }
+
+    /**
+     * Evaluates a single transaction and sets its status to COMPLETED or FAILED.
+     * @return true if the transaction passed every rule
+     */
+    public boolean evaluate(Transaction transaction) {
+        for (int i = 0; i < rules.length; i++) {
+            long start = timed ? System.nanoTime() : 0;
+            RuleOutcome outcome = rules[i].evaluate(transaction);
+            if (timed) {
+                nanos[i].add(System.nanoTime() - start);
+            }
+            evaluations[i].increment();
+            if (outcome != RuleOutcome.PASS) {
+                hits[i].increment();
+                if (outcome == RuleOutcome.REJECTED) {
+                    reject(transaction, rules[i]);
+                    return false;
+                }
+            }
+        }
+        accept(transaction);
+        return true;
+    }
+
+    /**
+     * Evaluates a batch of transactions and sets the status of each one to COMPLETED or FAILED.
+     * @return Number of transactions that passed every rule
+     */
+    public int evaluateBatch(List<Transaction> batch) {
+        int size = batch.size();
+        boolean[] rejected = new boolean[size];
+        for (int i = 0; i < rules.length; i++) {
+            ComplianceRule rule = rules[i];
+            long start = timed ? System.nanoTime() : 0;
+            int evaluated = 0;
+            int hitCount = 0;
+            for (int t = 0; t < size; t++) {
+                if (rejected[t]) {
+                    continue;
+                }
+                Transaction transaction = batch.get(t);
+                RuleOutcome outcome = rule.evaluate(transaction);
+                evaluated++;
+                if (outcome != RuleOutcome.PASS) {
+                    hitCount++;
+                    if (outcome == RuleOutcome.REJECTED) {
+                        rejected[t] = true;
+                        reject(transaction, rule);
+                    }
+                }
+            }
+            if (timed) {
+                nanos[i].add(System.nanoTime() - start);
+            }
+            evaluations[i].add(evaluated);
+            hits[i].add(hitCount);
+        }
+
+        int accepted = 0;
+        for (int t = 0; t < size; t++) {
+            if (!rejected[t]) {
+                accept(batch.get(t));
+                accepted++;
+            }
+        }
+        return accepted;
+    }
+
+    public int getRuleCount() {
+        return rules.length;
+    }
+
+    /**
+     * Returns a snapshot of the statistics of every rule, in evaluation order.
+     */
+    public List<RuleStats> getStats() {
+        List<RuleStats> stats = new ArrayList<>(rules.length);
+        for (int i = 0; i < rules.length; i++) {
+            stats.add(new RuleStats(rules[i].name(), evaluations[i].sum(), hits[i].sum(), nanos[i].sum()));
+        }
+        return stats;
+    }
+
+    private static void accept(Transaction transaction) {
+        transaction.setStatus(TransactionStatus.COMPLETED);
+        events.log(LogEvent.TRANSACTION_MONITORED, transaction.getAccountId(), TransactionStatus.COMPLETED, transaction.getAmount(), 0);
+    }
+
+    private static void reject(Transaction transaction, ComplianceRule rule) {
+        transaction.setStatus(TransactionStatus.FAILED);
+        events.log(LogEvent.RULE_REJECTED, transaction.getAccountId(), rule.name(), transaction.getAmount(), 0);
+    }
+
+    private static LongAdder[] newAdders(int count) {
+        LongAdder[] adders = new LongAdder[count];
+        for (int i = 0; i < count; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    /**
+     * Statistics of one rule. Hits are the rejections and adjustments of the rule.
+     */
+    public static final class RuleStats {
+
+        private final String name;
+        private final long evaluations;
+        private final long hits;
+        private final long totalNanos;
+
+        RuleStats(String name, long evaluations, long hits, long totalNanos) {
+            this.name = name;
+            this.evaluations = evaluations;
+            this.hits = hits;
+            this.totalNanos = totalNanos;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getEvaluations() {
+            return evaluations;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+
+        public double getAverageNanos() {
+            return evaluations == 0 ? 0 : (double) totalNanos / evaluations;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d evaluations, %d hits, %.1f ns/evaluation", name, evaluations, hits, getAverageNanos());
+        }
+    }
+}
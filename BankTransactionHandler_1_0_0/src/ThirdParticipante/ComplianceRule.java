@@ -0,0 +1,20 @@
+package ThirdParticipante;
+
+import TransactionsSimulator.Transaction;
+
+/*
+ * The ComplianceRule interface is one check of the ComplianceEngine. A rule is configured (compiled) once when it is created and must be
+ * immutable afterwards, so the engine can evaluate it from any number of threads without locks.
+ */
+
+public interface ComplianceRule {
+
+    // Name of the rule in the statistics and in the rejection events
+    String name();
+
+    /**
+     * Checks a transaction. A rule may set the fee of the transaction, but must not change anything else (so evaluating it again gives the same result).
+     * @return PASS, ADJUSTED (passed, with a fee set) or REJECTED
+     */
+    RuleOutcome evaluate(Transaction transaction);
+}
@@ -0,0 +1,113 @@
+package ThirdParticipante;
+
+import java.util.Collection;
+import java.util.Set;
+
+import TransactionsSimulator.Transaction;
+import TransactionsSimulator.TransactionType;
+
+/*
+ * The ComplianceRules class creates the built-in rules of the ComplianceEngine: amount checks, limits per transaction type, account
+ * blacklists and percentage fees. Their parameters are copied into immutable fields when the rule is created.
+ */
+
+public final class ComplianceRules {
+
+    private ComplianceRules() {
+    }
+
+    // The original ThirdPartyMonitor check: the amount must be positive
+    public static ComplianceRule positiveAmount() {
+        return new ComplianceRule() {
+            @Override
+            public String name() {
+                return "positiveAmount";
+            }
+
+            @Override
+            public RuleOutcome evaluate(Transaction transaction) {
+                return transaction.getAmount() > 0 ? RuleOutcome.PASS : RuleOutcome.REJECTED;
+            }
+        };
+    }
+
+    /**
+     * Rejects transactions of a type above a limit.
+     * @param type Type of the limited transactions, or null for all types
+     * @param limit Largest amount allowed
+     */
+    public static ComplianceRule maxAmount(TransactionType type, int limit) {
+        String name = "maxAmount(" + (type == null ? "ANY" : type) + "," + limit + ")";
+        return new ComplianceRule() {
+            @Override
+            public String name() {
+                return name;
+            }
+
+            @Override
+            public RuleOutcome evaluate(Transaction transaction) {
+                if ((type == null || transaction.getType() == type) && transaction.getAmount() > limit) {
+                    return RuleOutcome.REJECTED;
+                }
+                return RuleOutcome.PASS;
+            }
+        };
+    }
+
+    /**
+     * Rejects every transaction from or to a blacklisted account.
+     */
+    public static ComplianceRule blacklist(Collection<String> accountIds) {
+        Set<String> blocked = Set.copyOf(accountIds);
+        String name = "blacklist(" + blocked.size() + " accounts)";
+        return new ComplianceRule() {
+            @Override
+            public String name() {
+                return name;
+            }
+
+            @Override
+            public RuleOutcome evaluate(Transaction transaction) {
+                if (blocked.contains(transaction.getAccountId())
+                        || (transaction.getTargetAccountId() != null && blocked.contains(transaction.getTargetAccountId()))) {
+                    return RuleOutcome.REJECTED;
+                }
+                return RuleOutcome.PASS;
+            }
+        };
+    }
+
+    /**
+     * Charges a percentage fee on the transactions of a type: the processor credits a deposit amount - fee and debits a withdrawal or
+     * transfer amount + fee. The amount itself is left as requested. The rule sets the fee instead of adding to it, so evaluating a
+     * transaction again charges it once (with several fee rules the last matching one wins).
+     * The fee is rounded down, so amounts below 10000 / basisPoints pass without a fee.
+     * @param type Type of the charged transactions, or null for all types
+     * @param basisPoints Fee in hundredths of a percent (150 = 1.5%)
+     */
+    public static ComplianceRule percentageFee(TransactionType type, int basisPoints) {
+        if (basisPoints < 0 || basisPoints > 10_000) {
+            throw new IllegalArgumentException("Fee must be between 0 and 10000 basis points.");
+        }
+        String name = "percentageFee(" + (type == null ? "ANY" : type) + "," + basisPoints + "bp)";
+        return new ComplianceRule() {
+            @Override
+            public String name() {
+                return name;
+            }
+
+            @Override
+            public RuleOutcome evaluate(Transaction transaction) {
+                if (type != null && transaction.getType() != type) {
+                    return RuleOutcome.PASS;
+                }
+                int fee = (int) ((long) transaction.getAmount() * basisPoints / 10_000);
+                if (fee <= 0) {
+                    return RuleOutcome.PASS;
+                }
+                transaction.setFee(fee);
+                return RuleOutcome.ADJUSTED;
+            }
+        };
+    }
+}
@@ -0,0 +1,4 @@
+package ThirdParticipante;
+public enum RuleOutcome {
+    PASS, ADJUSTED, REJECTED
+}
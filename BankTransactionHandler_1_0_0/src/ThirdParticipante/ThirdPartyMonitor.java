@@ -1,34 +1,41 @@
-package ThirdParticipante;
-import java.util.logging.Logger;
-
-import TransactionsSimulator.Transaction;
-import TransactionsSimulator.TransactionStatus;
-
-public class ThirdPartyMonitor {
-    private static final Logger logger = Logger.getLogger(ThirdPartyMonitor.class.getName());
-
-    // Monitor and audit a transaction if it's accepted or failed
-    public synchronized void monitorTransaction(Transaction transaction) {
-        logger.info("Harmadik fél figyeli a tranzakciót: " + transaction);
-        
-        // For example how can we regulate transactions 
-        if (transaction.getAmount() <= 0) {
-            logger.warning("Hiba: Érvénytelen tranzakció - " + transaction);
-            transaction.setStatus(TransactionStatus.FAILED);
-        } else {
-            logger.info("Tranzakció elfogadva: " + transaction);
-            transaction.setStatus(TransactionStatus.COMPLETED);
-        }
-        
-        /*
-        Another example:
-        	-	Calculate a percentage and only subtract it.
-       */
-
-    }
-    
-    public void update(Transaction tx) {
-        // This method handles the processing update of a transaction.
-        System.out.println("Transaction processed: " + tx);
-    }
-}
+package ThirdParticipante;
+
+import TransactionsSimulator.EventLogger;
+import TransactionsSimulator.LogEvent;
+import TransactionsSimulator.Transaction;
+
+/*
+ * The ThirdPartyMonitor class is the third party that audits the transactions. The checks themselves are done by a ComplianceEngine, which
+ * is stateless and lock-free, so a single monitor can be shared by every worker thread.
+ */
+
+public class ThirdPartyMonitor {
+
+    private static final EventLogger events = EventLogger.global();
+
+    private final ComplianceEngine engine;
+
+    // Monitor with the default checks (the amount must be positive)
+    public ThirdPartyMonitor() {
+        this(ComplianceEngine.defaultEngine());
+    }
+
+    public ThirdPartyMonitor(ComplianceEngine engine) {
+        this.engine = engine;
+    }
+
+    public ComplianceEngine getEngine() {
+        return engine;
+    }
+
+    // Monitor and audit a transaction if it's accepted or failed
+    public void monitorTransaction(Transaction transaction) {
+        // Limits, blacklists or percentage fees can be added as rules (see ComplianceRules)
+        engine.evaluate(transaction);
+    }
+
+    public void update(Transaction tx) {
+        // This method handles the processing update of a transaction.
+        events.log(LogEvent.TRANSACTION_PROCESSED, tx.getAccountId(), tx.getStatus(), tx.getAmount(), 0);
+    }
+}
@@ -0,0 +1,11 @@
+package ThreadHandler;
+
+/**
+ * How a ProducerTask takes the balances from the shared subscription.
+ */
+public enum ConsumerMode {
+    // One balance at a time, with a 500 ms pause after each (the original pacing, easy to follow in the GUI)
+    SINGLE,
+    // Everything buffered, up to a batch size, in one drainTo; waits only while the subscription is empty
+    BATCH
+}
@@ -0,0 +1,109 @@
+package ThreadHandler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.swing.JLabel;
+import javax.swing.Timer;
+
+/**
+ * GuiUpdateBatcher collects GUI updates from any thread and applies them on the Event Dispatch Thread once per frame,
+ * instead of posting one invokeLater per event:
+ * - log lines are buffered and appended to a RingListModel in one batch (at most maxPendingLines wait between two frames,
+ *   further lines are only counted as dropped, so a flood of events can't build up on the heap)
+ * - label texts are coalesced: only the last text set for a label in a frame is applied
+ */
+public class GuiUpdateBatcher {
+
+    private final RingListModel logModel;
+    private final int maxPendingLines;
+    private final ConcurrentLinkedQueue<String> pendingLines = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingLineCount = new AtomicInteger();
+    private final AtomicLong droppedLines = new AtomicLong();
+    private final Map<JLabel, String> pendingLabels = new ConcurrentHashMap<>();
+    private final List<Runnable> afterFlush = new ArrayList<>();
+    private final Timer timer;
+
+    /**
+     * @param logCapacity lines kept in the log model
+     * @param maxPendingLines lines buffered between two frames
+     * @param frameMillis time between two frames (e.g. 33 for about 30 frames per second)
+     */
+    public GuiUpdateBatcher(int logCapacity, int maxPendingLines, int frameMillis) {
+        this.logModel = new RingListModel(logCapacity);
+        this.maxPendingLines = maxPendingLines;
+        this.timer = new Timer(frameMillis, _ -> flush());  // Swing timers fire on the Event Dispatch Thread
+        this.timer.setCoalesce(true);
+    }
+
+    public void start() {
+        timer.start();
+    }
+
+    public void stop() {
+        timer.stop();
+    }
+
+    /**
+     * Queues a log line, from any thread.
+     */
+    public void appendLine(String line) {
+        if (pendingLineCount.incrementAndGet() > maxPendingLines) {
+            pendingLineCount.decrementAndGet();
+            droppedLines.incrementAndGet();
+            return;
+        }
+        pendingLines.add(line);
+    }
+
+    /**
+     * Sets the text of a label at the next frame, from any thread. A later text for the same label replaces this one.
+     */
+    public void setText(JLabel label, String text) {
+        pendingLabels.put(label, text);
+    }
+
+    /**
+     * Runs the given action on the Event Dispatch Thread after every frame that appended lines (e.g. scrolling to the end).
+     * Call it on the Event Dispatch Thread.
+     */
+    public void addAfterFlush(Runnable action) {
+        afterFlush.add(action);
+    }
+
+    public RingListModel getLogModel() {
+        return logModel;
+    }
+
+    public long getDroppedLines() {
+        return droppedLines.get();
+    }
+
+    // One frame, on the Event Dispatch Thread
+    private void flush() {
+        for (Map.Entry<JLabel, String> entry : pendingLabels.entrySet()) {
+            // Only removes the text if no newer one replaced it meanwhile
+            if (pendingLabels.remove(entry.getKey(), entry.getValue())) {
+                entry.getKey().setText(entry.getValue());
+            }
+        }
+
+        if (pendingLineCount.get() == 0) {
+            return;
+        }
+        List<String> lines = new ArrayList<>();
+        String line;
+        while ((line = pendingLines.poll()) != null) {
+            lines.add(line);
+        }
+        pendingLineCount.addAndGet(-lines.size());
+        logModel.addAll(lines);
+        for (Runnable action : afterFlush) {
+            action.run();
+        }
+    }
+}
@@ -1,154 +1,221 @@
-package ThreadHandler;
-
-import java.awt.*;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.concurrent.BlockingQueue;
-import javax.swing.*;
-
-public class MainFrame extends JFrame {
-	// If wanted to send this GUI through network. It's help to convert the data to byte.
-	private static final long serialVersionUID = 1L;
-	
-	
-    private final JTextArea outputArea = new JTextArea();
-
-    private final static Map<String, JLabel> queueLabels = new HashMap<>();
-    private final Map<String, JLabel> accQueueLabels = new HashMap<>();
-
-    private final JLabel accQueueStatusLabel = new JLabel("Shared acc_queue size: 0");
-    private final JLabel accQueueContentLabel = new JLabel("Contents: ");
-
-    private final BlockingQueue<Integer> acc_queue;
-
-    public MainFrame(BlockingQueue<Integer> queue, SharedCounter sharedCounter) {
-        this.acc_queue = queue;
-
-        setTitle("Threads handler GUI - With shared AtomicInteger");
-        setSize(700, 500);
-        setDefaultCloseOperation(JFrame.HIDE_ON_CLOSE); 
-        setLocationRelativeTo(null);
-        
-        setLayout(new BorderLayout());
-
-        // Output log area
-        outputArea.setEditable(false);
-        JScrollPane scrollPane = new JScrollPane(outputArea);
-        scrollPane.setBorder(BorderFactory.createTitledBorder("Events"));
-        add(scrollPane, BorderLayout.CENTER);
-
-        // Display shared acc_queue size and contents
-        JPanel topPanel = new JPanel(new GridLayout(2, 1));
-        topPanel.add(accQueueStatusLabel);
-        topPanel.add(accQueueContentLabel);
-        add(topPanel, BorderLayout.NORTH);
-
-        // Panel for thread controls
-        JPanel bottomPanel = new JPanel(new GridLayout(3, 1));
-        add(bottomPanel, BorderLayout.SOUTH);
-
-        for (int i = 1; i <= 3; i++) {
-            String threadName = "Thread-" + i;
-
-            JPanel rowPanel = new JPanel(new BorderLayout());
-
-            JLabel queueLabel = new JLabel(threadName + " queue: ");
-            queueLabels.put(threadName, queueLabel);
-
-            JButton startBtn = new JButton("Start");
-            JButton stopBtn = new JButton("Stop");
-
-            stopBtn.setBackground(Color.RED);
-            stopBtn.setForeground(Color.WHITE);
-            stopBtn.setFocusable(false);
-
-            startBtn.setBackground(null);
-            startBtn.setForeground(Color.BLACK);
-            startBtn.setFocusable(false);
-
-            ProducerTask task = new ProducerTask(queue, threadName, sharedCounter, this);
-            Thread thread = new Thread(task);
-            thread.start();
-
-            startBtn.addActionListener(_ -> {
-                task.start();
-                queueLabel.setText(threadName + " queue: ");
-                startBtn.setBackground(Color.GREEN);
-                startBtn.setForeground(Color.WHITE);
-                stopBtn.setBackground(null);
-                stopBtn.setForeground(Color.BLACK);
-            });
-
-            stopBtn.addActionListener(_ -> {
-                task.stop();
-                stopBtn.setBackground(Color.RED);
-                stopBtn.setForeground(Color.WHITE);
-                startBtn.setBackground(null);
-                startBtn.setForeground(Color.BLACK);
-            });
-
-            JPanel buttonPanel = new JPanel();
-            buttonPanel.add(startBtn);
-            buttonPanel.add(stopBtn);
-
-            rowPanel.add(queueLabel, BorderLayout.CENTER);
-            rowPanel.add(buttonPanel, BorderLayout.EAST);
-
-            bottomPanel.add(rowPanel);
-        }
-
-        // Timer to update acc_queue size and contents every 500ms
-        Timer timer = new Timer(500, _ -> updateAccQueueSize());
-        timer.start();
-
-        setVisible(true);
-    }
-
-    public void appendOutput(String text) {
-        SwingUtilities.invokeLater(() -> {
-            outputArea.append(text + "\n");
-            outputArea.setCaretPosition(outputArea.getDocument().getLength());
-        });
-    }
-
-    // Updates the label for shared acc_queue size and its contents
-    private void updateAccQueueSize() {
-        SwingUtilities.invokeLater(() -> {
-            accQueueStatusLabel.setText("Shared acc_queue size: " + acc_queue.size());
-            accQueueContentLabel.setText("Contents: " + acc_queue.toString());
-        });
-    }
-
-    /**
-     * Updates the GUI label showing the current state of the account queue for a specific thread.
-     * 
-     * @param threadName the name of the thread (used as a key to find the correct label)
-     * @param text the text to be displayed on the label
-     */
-    public void setAccQueueDisplay(String threadName, String text) {
-        // Ensures that GUI updates are done on the Event Dispatch Thread (EDT), which is required by Swing
-        SwingUtilities.invokeLater(() -> {
-            JLabel label = accQueueLabels.get(threadName); // Get the label associated with the thread name
-            if (label != null) {
-                label.setText(text); // Set the label text
-            }
-        });
-    }
-
-    /**
-     * Static method to update the GUI label showing the last value taken from the queue for a specific thread.
-     * 
-     * @param threadName the name of the thread (used as a key to find the correct label)
-     * @param text the text to be displayed on the label
-     */
-    public static void setThreadQueueDisplay(String threadName, String text) {
-        // Updates must be performed on the Swing Event Dispatch Thread to avoid concurrency issues
-        SwingUtilities.invokeLater(() -> {
-            JLabel label = queueLabels.get(threadName); // Get the label for the thread
-            if (label != null) {
-                label.setText(threadName + " queue: " + text); // Display formatted text with thread name
-            }
-        });
-    }
-
-}
+package ThreadHandler;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.swing.*;
+
+import TransactionsSimulator.BalanceSnapshot;
+import TransactionsSimulator.BalanceSnapshotChannel;
+import TransactionsSimulator.BalanceSubscription;
+import TransactionsSimulator.SubscriptionOverflow;
+
+public class MainFrame extends JFrame {
+	// If wanted to send this GUI through network. It's help to convert the data to byte.
+	private static final long serialVersionUID = 1L;
+	
+	
+    // Accounts listed in the latest balances label, the rest is only counted
+    private static final int SHOWN_ACCOUNTS = 5;
+
+    // Consumer threads when not configured
+    public static final int DEFAULT_CONSUMERS = 3;
+
+    // All updates from other threads go through the batcher: one EDT update per frame, the log keeps the last 1000 lines
+    private final GuiUpdateBatcher batcher = new GuiUpdateBatcher(1000, 1000, 33);
+    private final JList<String> outputList = new JList<>(batcher.getLogModel());
+
+    private final Map<String, JLabel> queueLabels = new HashMap<>();
+    private final Map<String, JLabel> accQueueLabels = new HashMap<>();
+
+    private final JLabel accQueueStatusLabel = new JLabel("Shared acc_queue size: 0");
+    private final JLabel accQueueContentLabel = new JLabel("Contents: ");
+    private final JLabel bankStatsLabel = new JLabel("Banks: ");
+
+    private final BalanceSnapshotChannel channel;  // Latest balances (coalesced) for the labels
+    private final BalanceSubscription acc_queue;   // The recent balances (bounded, drops the oldest), shared by the producer tasks
+    private final List<ProducerTask> tasks = new ArrayList<>();
+    private final List<Thread> threads = new ArrayList<>();
+    private final SharedCounter sharedCounter;
+
+    public MainFrame(BalanceSnapshotChannel channel, SharedCounter sharedCounter) {
+        this(channel, sharedCounter, DEFAULT_CONSUMERS, ConsumerMode.SINGLE);
+    }
+
+    /**
+     * @param channel balances published by the simulation
+     * @param sharedCounter aggregate shared by the consumer threads
+     * @param consumers number of consumer threads (each with its own start/stop row)
+     * @param mode how the consumers take the balances
+     */
+    public MainFrame(BalanceSnapshotChannel channel, SharedCounter sharedCounter, int consumers, ConsumerMode mode) {
+        if (consumers <= 0) {
+            throw new IllegalArgumentException("Number of consumers must be positive.");
+        }
+        this.channel = channel;
+        this.sharedCounter = sharedCounter;
+        // Paused while no task runs, so the balances published meanwhile don't pile up. Drops the oldest ones when full: the consumers
+        // (one balance per 500 ms in SINGLE mode) must never hold up the simulation
+        this.acc_queue = channel.subscribe(64, true, SubscriptionOverflow.DROP_OLDEST);
+
+        setTitle("Threads handler GUI - With shared LongAdder (" + consumers + " consumers, " + mode + ")");
+        setSize(700, 500);
+        setDefaultCloseOperation(JFrame.HIDE_ON_CLOSE); 
+        setLocationRelativeTo(null);
+        
+        setLayout(new BorderLayout());
+
+        // Output log (a JList renders only the visible lines, the model drops the oldest ones)
+        outputList.setPrototypeCellValue("Thread-1 added: Account_1=1000 -> new total: 1000000");  // Fixed row height, no per-row measuring
+        batcher.addAfterFlush(() -> outputList.ensureIndexIsVisible(batcher.getLogModel().getSize() - 1));
+        JScrollPane scrollPane = new JScrollPane(outputList);
+        scrollPane.setBorder(BorderFactory.createTitledBorder("Events"));
+        add(scrollPane, BorderLayout.CENTER);
+
+        // Display shared acc_queue size and contents
+        JPanel topPanel = new JPanel(new GridLayout(3, 1));
+        topPanel.add(accQueueStatusLabel);
+        topPanel.add(accQueueContentLabel);
+        topPanel.add(bankStatsLabel);
+        add(topPanel, BorderLayout.NORTH);
+
+        // Panel for thread controls (scrolls when there are many consumers)
+        JPanel bottomPanel = new JPanel(new GridLayout(consumers, 1));
+        if (consumers <= DEFAULT_CONSUMERS) {
+            add(bottomPanel, BorderLayout.SOUTH);
+        } else {
+            JScrollPane controlsPane = new JScrollPane(bottomPanel);
+            controlsPane.setPreferredSize(new Dimension(0, 120));
+            add(controlsPane, BorderLayout.SOUTH);
+        }
+
+        for (int i = 1; i <= consumers; i++) {
+            String threadName = "Thread-" + i;
+
+            JPanel rowPanel = new JPanel(new BorderLayout());
+
+            JLabel queueLabel = new JLabel(threadName + " queue: ");
+            queueLabels.put(threadName, queueLabel);
+
+            JButton startBtn = new JButton("Start");
+            JButton stopBtn = new JButton("Stop");
+
+            stopBtn.setBackground(Color.RED);
+            stopBtn.setForeground(Color.WHITE);
+            stopBtn.setFocusable(false);
+
+            startBtn.setBackground(null);
+            startBtn.setForeground(Color.BLACK);
+            startBtn.setFocusable(false);
+
+            ProducerTask task = new ProducerTask(acc_queue, threadName, sharedCounter, this, mode, ProducerTask.DEFAULT_BATCH_SIZE);
+            tasks.add(task);
+            Thread thread = new Thread(task, threadName);
+            thread.setDaemon(true);
+            threads.add(thread);
+            thread.start();
+
+            startBtn.addActionListener(_ -> {
+                task.start();
+                acc_queue.resume();
+                queueLabel.setText(threadName + " queue: ");
+                startBtn.setBackground(Color.GREEN);
+                startBtn.setForeground(Color.WHITE);
+                stopBtn.setBackground(null);
+                stopBtn.setForeground(Color.BLACK);
+            });
+
+            stopBtn.addActionListener(_ -> {
+                task.stop();
+                if (tasks.stream().noneMatch(ProducerTask::isRunning)) {
+                    acc_queue.pause();
+                }
+                stopBtn.setBackground(Color.RED);
+                stopBtn.setForeground(Color.WHITE);
+                startBtn.setBackground(null);
+                startBtn.setForeground(Color.BLACK);
+            });
+
+            JPanel buttonPanel = new JPanel();
+            buttonPanel.add(startBtn);
+            buttonPanel.add(stopBtn);
+
+            rowPanel.add(queueLabel, BorderLayout.CENTER);
+            rowPanel.add(buttonPanel, BorderLayout.EAST);
+
+            bottomPanel.add(rowPanel);
+        }
+
+        // Timer to update the acc_queue summary every 500ms (Swing timers run on the EDT)
+        Timer timer = new Timer(500, _ -> updateAccQueueSize());
+        timer.start();
+        batcher.start();
+
+        setVisible(true);
+    }
+
+    // Appends a line to the event log at the next frame (callable from any thread)
+    public void appendOutput(String text) {
+        batcher.appendLine(text);
+    }
+
+    // Updates the label for the shared acc_queue summary and the latest balances of the first accounts
+    private void updateAccQueueSize() {
+        accQueueStatusLabel.setText("Shared acc_queue: " + acc_queue.summary());
+
+        StringBuilder sb = new StringBuilder("Latest balances: ");
+        int shown = Math.min(SHOWN_ACCOUNTS, channel.getAccountCount());
+        for (int account = 0; account < shown; account++) {
+            BalanceSnapshot snapshot = channel.latest(account);
+            if (snapshot != null) {
+                sb.append(snapshot).append(' ');
+            }
+        }
+        if (channel.getAccountCount() > shown) {
+            sb.append("(+").append(channel.getAccountCount() - shown).append(" more)");
+        }
+        accQueueContentLabel.setText(sb.toString());
+
+        StringBuilder banks = new StringBuilder("Banks: total " + sharedCounter.get());
+        sharedCounter.getBankStats().forEach((bank, stats) -> banks.append(" | ").append(bank).append(": ").append(stats));
+        bankStatsLabel.setText(banks.toString());
+    }
+
+    // Detaches from the balance channel, so the simulation never waits for a closed window, and ends the consumer threads
+    @Override
+    public void dispose() {
+        acc_queue.close();
+        threads.forEach(Thread::interrupt);
+        batcher.stop();
+        super.dispose();
+    }
+
+    /**
+     * Updates the GUI label showing the current state of the account queue for a specific thread.
+     * 
+     * @param threadName the name of the thread (used as a key to find the correct label)
+     * @param text the text to be displayed on the label
+     */
+    public void setAccQueueDisplay(String threadName, String text) {
+        JLabel label = accQueueLabels.get(threadName); // Get the label associated with the thread name
+        if (label != null) {
+            batcher.setText(label, text); // Set on the EDT at the next frame, a newer text replaces it
+        }
+    }
+
+    /**
+     * Updates the GUI label showing the last value taken from the queue for a specific thread.
+     * 
+     * @param threadName the name of the thread (used as a key to find the correct label)
+     * @param text the text to be displayed on the label
+     */
+    public void setThreadQueueDisplay(String threadName, String text) {
+        JLabel label = queueLabels.get(threadName); // Get the label for the thread
+        if (label != null) {
+            batcher.setText(label, threadName + " queue: " + text); // Applied on the EDT at the next frame
+        }
+    }
+
+}
@@ -1,113 +1,184 @@
-package ThreadHandler;
-
-import java.util.concurrent.BlockingQueue;
-
-/**
- * ProducerTask is a Runnable that continuously retrieves integers (representing accounts)
- * from a shared queue, optionally processes them if running, and updates the UI and a shared counter.
- */
-public class ProducerTask implements Runnable {
-
-    // Shared input queue from BankSimulator containing account balances
-    private final BlockingQueue<Integer> acc_queue;
-
-    // The name of the thread (e.g., "Thread-1")
-    private final String name;
-
-    // Flag to control whether this producer should process values
-    private volatile boolean running = false;
-
-    // Shared counter among threads, used to aggregate values
-    private final SharedCounter sharedCounter;
-
-    // Reference to the GUI, used to update labels and event output
-    private final MainFrame ui;
-
-    /**
-     * Constructor for the producer task.
-     *
-     * @param acc_queue      shared blocking queue of account values
-     * @param name           name of this producer thread
-     * @param counter        shared counter to be updated
-     * @param ui             reference to the GUI for updates
-     */
-    public ProducerTask(BlockingQueue<Integer> acc_queue, String name, SharedCounter counter, MainFrame ui) {
-        this.acc_queue = acc_queue;
-        this.name = name;
-        this.sharedCounter = counter;
-        this.ui = ui;
-    }
-
-    /**
-     * Start the producer task — enables processing of queued values.
-     */
-    public void start() {
-        running = true;
-    }
-
-    /**
-     * Stop the producer task — disables processing of queued values.
-     */
-    public void stop() {
-        running = false;
-    }
-
-    /**
-     * Check if the producer is currently running.
-     *
-     * @return true if running, false otherwise
-     */
-    public boolean isRunning() {
-        return running;
-    }
-
-    /**
-     * Get the name of this producer thread.
-     *
-     * @return the name of the thread
-     */
-    public String getName() {
-        return name;
-    }
-
-   
- // Updates the GUI with the current contents of this thread's queue
-    private void updateAccQueueDisplay() {
-        StringBuilder sb = new StringBuilder(name + " acc_queue: ");
-        for (Integer val : acc_queue) {
-            sb.append(val).append(" ");
-        }
-        // Update the display in the GUI
-        ui.setAccQueueDisplay(name, sb.toString());
-    }
-
-    @Override
-    public void run() {
-        while (true) {
-            try {
-                // Continuously update the queue display
-                updateAccQueueDisplay();
-
-                if (running) {
-                    // Take an element from the shared queue (blocks if empty)
-                    Integer account = acc_queue.take();
-                    if (account != null) {
-                        // Show the taken value in the GUI under this thread's label
-                        MainFrame.setThreadQueueDisplay(name, String.valueOf(account));
-                        
-                        // Add the value to the shared counter
-                        sharedCounter.add(account);
-                        
-                        // Append the event to the log area
-                        ui.appendOutput(name + " added: " + account + " -> new total: " + sharedCounter.get());
-                    } 
-                }
-                // Sleep to reduce CPU usage
-                Thread.sleep(500);
-            } catch (InterruptedException e) {
-                // Restore interrupted status and exit loop if necessary
-                Thread.currentThread().interrupt();
-            }
-        }
-    }
-}
\ No newline at end of file
+package ThreadHandler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import TransactionsSimulator.BalanceSnapshot;
+import TransactionsSimulator.BalanceSubscription;
+
+/**
+ * ProducerTask is a Runnable that continuously retrieves account balance snapshots
+ * from a shared subscription, optionally processes them if running, and updates the UI and a shared counter.
+ * In BATCH mode it drains everything buffered at once and only waits while the subscription is empty;
+ * while stopped it parks until start() instead of polling.
+ */
+public class ProducerTask implements Runnable {
+
+    // Default number of balances taken in one drain (BATCH mode)
+    public static final int DEFAULT_BATCH_SIZE = 256;
+
+    // Shared subscription to the balances published by BankSimulator (drops the oldest when full)
+    private final BalanceSubscription acc_queue;
+
+    // The name of the thread (e.g., "Thread-1")
+    private final String name;
+
+    // Flag to control whether this producer should process values
+    private volatile boolean running = false;
+
+    // Shared counter among threads, used to aggregate values
+    private final SharedCounter sharedCounter;
+
+    // Reference to the GUI, used to update labels and event output
+    private final MainFrame ui;
+
+    private final ConsumerMode mode;
+    private final int batchSize;
+
+    // Stopped tasks wait on this until start()
+    private final Object startSignal = new Object();
+
+    /**
+     * Constructor for the producer task.
+     *
+     * @param acc_queue      shared subscription of account balances
+     * @param name           name of this producer thread
+     * @param counter        shared counter to be updated
+     * @param ui             reference to the GUI for updates
+     */
+    public ProducerTask(BalanceSubscription acc_queue, String name, SharedCounter counter, MainFrame ui) {
+        this(acc_queue, name, counter, ui, ConsumerMode.SINGLE, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Constructor for the producer task with a consumer mode.
+     *
+     * @param acc_queue      shared subscription of account balances
+     * @param name           name of this producer thread
+     * @param counter        shared counter to be updated
+     * @param ui             reference to the GUI for updates
+     * @param mode           one balance at a time or batches
+     * @param batchSize      maximum balances taken in one drain (BATCH mode)
+     */
+    public ProducerTask(BalanceSubscription acc_queue, String name, SharedCounter counter, MainFrame ui, ConsumerMode mode, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive.");
+        }
+        this.acc_queue = acc_queue;
+        this.name = name;
+        this.sharedCounter = counter;
+        this.ui = ui;
+        this.mode = mode;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Start the producer task — enables processing of queued values.
+     */
+    public void start() {
+        synchronized (startSignal) {
+            running = true;
+            startSignal.notifyAll(); // Wake the task if it is parked
+        }
+    }
+
+    /**
+     * Stop the producer task — disables processing of queued values.
+     */
+    public void stop() {
+        running = false;
+    }
+
+    /**
+     * Check if the producer is currently running.
+     *
+     * @return true if running, false otherwise
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Get the name of this producer thread.
+     *
+     * @return the name of the thread
+     */
+    public String getName() {
+        return name;
+    }
+
+   
+ // Updates the GUI with a summary of the shared queue (size, head and tail, not the whole contents)
+    private void updateAccQueueDisplay() {
+        ui.setAccQueueDisplay(name, name + " acc_queue: " + acc_queue.summary());
+    }
+
+    @Override
+    public void run() {
+        List<BalanceSnapshot> batch = new ArrayList<>(mode == ConsumerMode.BATCH ? batchSize : 1);
+        try {
+            while (true) {
+                awaitStart();
+                if (mode == ConsumerMode.BATCH) {
+                    consumeBatch(batch);
+                } else {
+                    consumeOne();
+                }
+            }
+        } catch (InterruptedException e) {
+            // Restore interrupted status and exit the loop
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Parks while the task is stopped
+    private void awaitStart() throws InterruptedException {
+        synchronized (startSignal) {
+            while (!running) {
+                startSignal.wait();
+            }
+        }
+    }
+
+    // Takes one snapshot, then sleeps to reduce CPU usage (SINGLE mode)
+    private void consumeOne() throws InterruptedException {
+        updateAccQueueDisplay();
+
+        // Take a snapshot from the shared subscription (blocks if empty)
+        BalanceSnapshot snapshot = acc_queue.take();
+
+        // Show the taken value in the GUI under this thread's label
+        ui.setThreadQueueDisplay(name, snapshot.toString());
+
+        // Add the balance to the shared counter
+        sharedCounter.add(snapshot);
+
+        // Append the event to the log area
+        ui.appendOutput(name + " added: " + snapshot + " -> new total: " + sharedCounter.get());
+
+        Thread.sleep(500);
+    }
+
+    // Drains up to batchSize snapshots, waiting only while the subscription is empty (BATCH mode)
+    private void consumeBatch(List<BalanceSnapshot> batch) throws InterruptedException {
+        // The timeout only bounds how long a stop() goes unnoticed on an empty subscription
+        if (acc_queue.drainTo(batch, batchSize, 100, TimeUnit.MILLISECONDS) == 0) {
+            return;
+        }
+
+        long sum = 0;
+        for (BalanceSnapshot snapshot : batch) {
+            sharedCounter.add(snapshot);
+            sum += snapshot.balance();
+        }
+        BalanceSnapshot last = batch.get(batch.size() - 1);
+
+        // One GUI update per batch instead of one per balance
+        updateAccQueueDisplay();
+        ui.setThreadQueueDisplay(name, last.toString());
+        ui.appendOutput(name + " added " + batch.size() + " balances (sum " + sum + ", last " + last + ") -> new total: " + sharedCounter.get());
+
+        batch.clear();
+    }
+}
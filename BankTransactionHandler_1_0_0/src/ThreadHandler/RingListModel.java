@@ -0,0 +1,73 @@
+package ThreadHandler;
+
+import java.util.List;
+import javax.swing.AbstractListModel;
+
+/**
+ * RingListModel is a list model with a fixed capacity: appending to a full model drops the oldest elements,
+ * so a log shown in a JList never grows beyond the capacity. The JList only renders the visible rows.
+ * It must only be used on the Event Dispatch Thread, like every Swing model.
+ */
+public class RingListModel extends AbstractListModel<String> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String[] ring;
+    private int start;  // Index of the oldest element in the ring
+    private int size;
+
+    /**
+     * @param capacity the largest number of elements kept
+     */
+    public RingListModel(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive.");
+        }
+        this.ring = new String[capacity];
+    }
+
+    /**
+     * Appends the elements in order, dropping the oldest ones beyond the capacity.
+     * Fires at most one removal and one addition event, however many elements are appended.
+     */
+    public void addAll(List<String> elements) {
+        int from = Math.max(0, elements.size() - ring.length);  // Older ones would be dropped right away
+        int added = elements.size() - from;
+        if (added == 0) {
+            return;
+        }
+
+        int removed = Math.max(0, size + added - ring.length);
+        if (removed > 0) {
+            for (int i = 0; i < removed; i++) {
+                ring[(start + i) % ring.length] = null;
+            }
+            start = (start + removed) % ring.length;
+            size -= removed;
+            fireIntervalRemoved(this, 0, removed - 1);
+        }
+
+        for (int i = from; i < elements.size(); i++) {
+            ring[(start + size) % ring.length] = elements.get(i);
+            size++;
+        }
+        fireIntervalAdded(this, size - added, size - 1);
+    }
+
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    @Override
+    public String getElementAt(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return ring[(start + index) % ring.length];
+    }
+
+    public int getCapacity() {
+        return ring.length;
+    }
+}
@@ -0,0 +1,68 @@
+package ThreadHandler;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * RunningStats keeps the count, sum, min and max of the values added to it.
+ * Every figure is a striped cell (LongAdder / LongAccumulator), so concurrent consumers update separate cells
+ * instead of contending on one atomic value; the cells are only combined when read.
+ * The figures are read one by one, so a read during updates may mix values from before and after an add
+ * (but min and max are never the empty sentinels while the count is positive).
+ */
+public class RunningStats {
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator min = new LongAccumulator(Math::min, Long.MAX_VALUE);
+    private final LongAccumulator max = new LongAccumulator(Math::max, Long.MIN_VALUE);
+
+    /**
+     * Adds a value to the statistics.
+     *
+     * @param value the value to add
+     */
+    public void add(long value) {
+        // Count last: once getCount() sees the value, min and max already hold it
+        min.accumulate(value);
+        max.accumulate(value);
+        sum.add(value);
+        count.increment();
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getSum() {
+        return sum.sum();
+    }
+
+    // Smallest value added, 0 if nothing was added yet
+    public long getMin() {
+        return getCount() == 0 ? 0 : min.get();
+    }
+
+    // Largest value added, 0 if nothing was added yet
+    public long getMax() {
+        return getCount() == 0 ? 0 : max.get();
+    }
+
+    public double getMean() {
+        long n = getCount();
+        return n == 0 ? 0 : (double) getSum() / n;
+    }
+
+    // Starts counting again (not atomic with concurrent adds)
+    public void reset() {
+        count.reset();  // First, so readers see no values rather than the reset min and max
+        sum.reset();
+        min.reset();
+        max.reset();
+    }
+
+    @Override
+    public String toString() {
+        return "count " + getCount() + ", sum " + getSum() + ", min " + getMin() + ", max " + getMax();
+    }
+}
@@ -1,31 +1,71 @@
-package ThreadHandler;
-
-import java.util.concurrent.atomic.AtomicInteger;
-
-/**
- * SharedCounter is a thread-safe counter using AtomicInteger.
- * It allows multiple threads to safely add values and retrieve the current total.
- */
-public class SharedCounter {
-
-    // AtomicInteger ensures atomic operations on the counter (safe for concurrent access)
-    private final AtomicInteger counter = new AtomicInteger(0);
-
-    /**
-     * Adds the specified value to the counter in a thread-safe manner.
-     *
-     * @param value the value to add
-     */
-    public void add(int value) {
-        counter.addAndGet(value); // atomically adds the value
-    }
-
-    /**
-     * Returns the current value of the counter.
-     *
-     * @return the current total as an int
-     */
-    public int get() {
-        return counter.get(); // atomically retrieves the value
-    }
-}
+package ThreadHandler;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import TransactionsSimulator.BalanceSnapshot;
+
+/**
+ * SharedCounter aggregates the balances taken by the consumer threads.
+ * The total is a LongAdder (striped cells, no single contended value and no int overflow on large totals),
+ * and every balance is also added to the RunningStats of its account and of its bank.
+ */
+public class SharedCounter {
+
+    // Striped total: each thread mostly adds to its own cell, get() sums the cells
+    private final LongAdder total = new LongAdder();
+
+    private final Map<String, RunningStats> accountStats = new ConcurrentHashMap<>();
+    private final Map<String, RunningStats> bankStats = new ConcurrentHashMap<>();
+
+    /**
+     * Adds the specified value to the total in a thread-safe manner.
+     *
+     * @param value the value to add
+     */
+    public void add(long value) {
+        total.add(value);
+    }
+
+    /**
+     * Adds a balance to the total and to the statistics of its account and bank.
+     *
+     * @param snapshot the balance taken from the subscription
+     */
+    public void add(BalanceSnapshot snapshot) {
+        total.add(snapshot.balance());
+        accountStats.computeIfAbsent(snapshot.accountId(), _ -> new RunningStats()).add(snapshot.balance());
+        bankStats.computeIfAbsent(snapshot.bankName(), _ -> new RunningStats()).add(snapshot.balance());
+    }
+
+    /**
+     * Returns the current value of the total.
+     *
+     * @return the current total
+     */
+    public long get() {
+        return total.sum();
+    }
+
+    // Statistics of an account, null if none of its balances was added yet
+    public RunningStats getAccountStats(String accountId) {
+        return accountStats.get(accountId);
+    }
+
+    // Statistics of a bank, null if none of its balances was added yet
+    public RunningStats getBankStats(String bankName) {
+        return bankStats.get(bankName);
+    }
+
+    // Statistics of every account seen so far, by account id (live, read-only view)
+    public Map<String, RunningStats> getAccountStats() {
+        return Collections.unmodifiableMap(accountStats);
+    }
+
+    // Statistics of every bank seen so far, by bank name (live, read-only view)
+    public Map<String, RunningStats> getBankStats() {
+        return Collections.unmodifiableMap(bankStats);
+    }
+}
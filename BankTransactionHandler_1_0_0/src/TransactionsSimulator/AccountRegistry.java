@@ -0,0 +1,219 @@
+package TransactionsSimulator;
+
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+ * The AccountRegistry class interns account IDs to dense int indices (0, 1, 2, ...) once, when the accounts are loaded, so the rest of the
+ * simulator can address accounts and banks by array index instead of hashing strings. Banks are interned the same way.
+ *
+ * To scale to tens of millions of accounts the registry keeps no String or boxed Integer per account: the IDs are stored back to back as
+ * UTF-8 bytes in one growing byte array, and an open-addressing hash table of ints points into it. Per account this costs the ID bytes
+ * plus about 20 bytes (offset, cached hash, bank index, two hash table slots).
+ *
+ * Accounts are registered while the simulator is set up; registration is synchronized, lookups are not. Lookups are safe from any thread
+ * that was started after the registration finished.
+ */
+
+public class AccountRegistry {
+
+    public static final int NOT_FOUND = -1;
+
+    private static final float MAX_LOAD = 0.5f;
+
+    // ID bytes of account i are idBytes[idOffsets[i] .. idOffsets[i + 1])
+    private byte[] idBytes = new byte[1024];
+    private int[] idOffsets = new int[65];
+    private int[] idHashes = new int[64];
+    private int[] bankOf = new int[64];
+    private int size;
+
+    // Open-addressing table: slot holds account index + 1, 0 = empty
+    private int[] table = new int[128];
+
+    private final List<String> bankNames = new ArrayList<>();
+
+    public AccountRegistry() {
+    }
+
+    /**
+     * Creates a registry sized for the given number of accounts, so loading them doesn't need to grow the arrays.
+     */
+    public AccountRegistry(int expectedAccounts, int expectedIdLength) {
+        int capacity = Math.max(16, expectedAccounts);
+        idBytes = new byte[Math.max(1024, capacity * Math.max(1, expectedIdLength))];
+        idOffsets = new int[capacity + 1];
+        idHashes = new int[capacity];
+        bankOf = new int[capacity];
+        table = new int[tableSizeFor(capacity)];
+    }
+
+    /**
+     * Registers an account of a bank, or returns the index it already has.
+     * @return The dense index of the account
+     */
+    public synchronized int register(String accountId, String bankName) {
+        int existing = indexOf(accountId);
+        if (existing != NOT_FOUND) {
+            return existing;
+        }
+
+        int bank = bankNames.indexOf(bankName);
+        if (bank < 0) {
+            bank = bankNames.size();
+            bankNames.add(bankName);
+        }
+
+        if (size == idHashes.length) {
+            growAccounts();
+        }
+        if ((size + 1) > table.length * MAX_LOAD) {
+            rehash(table.length * 2);
+        }
+
+        byte[] bytes = accountId.getBytes(StandardCharsets.UTF_8);
+        int offset = idOffsets[size];
+        if (offset + bytes.length > idBytes.length) {
+            idBytes = Arrays.copyOf(idBytes, Math.max(idBytes.length * 2, offset + bytes.length));
+        }
+        System.arraycopy(bytes, 0, idBytes, offset, bytes.length);
+
+        int index = size;
+        idOffsets[index + 1] = offset + bytes.length;
+        idHashes[index] = accountId.hashCode();
+        bankOf[index] = bank;
+        insert(index);
+        size = index + 1;
+        return index;
+    }
+
+    /**
+     * Returns the dense index of an account, or NOT_FOUND.
+     */
+    public int indexOf(String accountId) {
+        if (accountId == null) {
+            return NOT_FOUND;
+        }
+        int hash = accountId.hashCode();
+        int[] slots = table;
+        int mask = slots.length - 1;
+        for (int slot = mix(hash) & mask; ; slot = (slot + 1) & mask) {
+            int entry = slots[slot];
+            if (entry == 0) {
+                return NOT_FOUND;
+            }
+            int index = entry - 1;
+            if (idHashes[index] == hash && idEquals(index, accountId)) {
+                return index;
+            }
+        }
+    }
+
+    public String accountId(int index) {
+        checkIndex(index);
+        return new String(idBytes, idOffsets[index], idOffsets[index + 1] - idOffsets[index], StandardCharsets.UTF_8);
+    }
+
+    // Index of the bank the account belongs to
+    public int bankOf(int index) {
+        checkIndex(index);
+        return bankOf[index];
+    }
+
+    public String bankName(int bankIndex) {
+        return bankNames.get(bankIndex);
+    }
+
+    // Index of a bank, or NOT_FOUND
+    public int bankIndexOf(String bankName) {
+        return bankNames.indexOf(bankName);
+    }
+
+    public int bankCount() {
+        return bankNames.size();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the account IDs in index order, as a read-only view (IDs are decoded on access).
+     */
+    public List<String> accountIds() {
+        return new AbstractList<String>() {
+            @Override
+            public String get(int index) {
+                return accountId(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    // Compares the stored UTF-8 bytes of an account with an ID, without decoding them
+    private boolean idEquals(int index, String accountId) {
+        int offset = idOffsets[index];
+        int length = idOffsets[index + 1] - offset;
+        if (length != accountId.length()) {
+            // Only non-ASCII IDs can differ in byte and char length
+            return length > accountId.length() && accountId(index).equals(accountId);
+        }
+        for (int i = 0; i < length; i++) {
+            char c = accountId.charAt(i);
+            if (c >= 0x80) {
+                return accountId(index).equals(accountId);
+            }
+            if (idBytes[offset + i] != (byte) c) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void insert(int index) {
+        int mask = table.length - 1;
+        int slot = mix(idHashes[index]) & mask;
+        while (table[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = index + 1;
+    }
+
+    private void rehash(int newLength) {
+        table = new int[newLength];
+        for (int i = 0; i < size; i++) {
+            insert(i);
+        }
+    }
+
+    private void growAccounts() {
+        int capacity = idHashes.length * 2;
+        idOffsets = Arrays.copyOf(idOffsets, capacity + 1);
+        idHashes = Arrays.copyOf(idHashes, capacity);
+        bankOf = Arrays.copyOf(bankOf, capacity);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Unknown account index: " + index);
+        }
+    }
+
+    // Spreads the String hash so sequential IDs don't cluster in the table
+    private static int mix(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static int tableSizeFor(int accounts) {
+        int needed = (int) Math.ceil(accounts / MAX_LOAD) + 1;
+        return Integer.highestOneBit(needed - 1) << 1;
+    }
+}
@@ -0,0 +1,59 @@
+package TransactionsSimulator;
+
+/*
+ * The AccountStore interface is the common view of the account balances used by BankTransactionProcessor. Accounts are addressed by their
+ * dense index from the AccountRegistry. Implementations: StripedAccountTable (on-heap long[] with lock stripes) and OffHeapAccountStore
+ * (off-heap, lock-free, optionally backed by a file).
+ */
+
+public interface AccountStore {
+
+    // Number of accounts the store holds
+    int size();
+
+    long getBalance(int account);
+
+    void deposit(int account, long amount);
+
+    /**
+     * Withdraws the amount if the balance covers it.
+     * @return false if there were insufficient funds (nothing changed)
+     */
+    boolean withdraw(int account, long amount);
+
+    /**
+     * Moves the amount between two accounts if the source balance covers it.
+     * @return false if there were insufficient funds (nothing changed)
+     */
+    default boolean transfer(int from, int to, long amount) {
+        return transfer(from, to, amount, 0);
+    }
+
+    /**
+     * Moves the amount between two accounts and charges the source a fee on top (debited amount + fee, credited amount),
+     * if the source balance covers both.
+     * @return false if there were insufficient funds (nothing changed)
+     */
+    boolean transfer(int from, int to, long amount, long fee);
+
+    /**
+     * First half of a transfer whose credit is applied later, by the thread that owns the target (ExecutionMode.PARTITIONED): debits
+     * amount + fee from the source if its balance covers it. Until completeTransfer() the amount is in neither account.
+     * @return The ticket to pass to completeTransfer(), or -1 if there were insufficient funds (nothing changed)
+     */
+    default long beginTransfer(int from, int to, long amount, long fee) {
+        return withdraw(from, amount + fee) ? 0 : -1;
+    }
+
+    /**
+     * Second half of a transfer started by beginTransfer(): credits the amount to the target. Call it once per ticket.
+     */
+    default void completeTransfer(int to, long amount, long ticket) {
+        deposit(to, amount);
+    }
+
+    void setBalance(int account, long balance);
+
+    // Resets the balance to 0. Used typically to reset the simulation.
+    void resetBalance(int account);
+}
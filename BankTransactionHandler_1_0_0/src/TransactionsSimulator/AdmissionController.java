@@ -0,0 +1,218 @@
+package TransactionsSimulator;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ * The AdmissionController class guards the queue (TransactionRingBuffer) of one bank, so a slow bank can't stall the producer that also
+ * feeds the other banks. A transaction is admitted while the queue holds fewer than the admission limit; otherwise the AdmissionPolicy
+ * decides: block with a timeout, reject, or spill to an overflow buffer.
+ *
+ * The admission limit adapts to the measured consumer throughput (Little's law): every 100 ms, while the queue has a backlog, the rate at
+ * which the bank's workers drain it is measured and smoothed, and the limit becomes the number of transactions they drain within the
+ * target queue delay, between MIN_LIMIT and the ring's capacity. So a slowing bank gets a shorter queue (and rejects or spills sooner)
+ * instead of a growing queue wait.
+ *
+ * The controller is the single producer of its ring: admit() and drainSpill() must be called from one thread.
+ * Admission waits, rejections, the limit and the spill depth are exported through TransactionMetrics (setMetrics()).
+ */
+
+public class AdmissionController {
+
+    private static final EventLogger events = EventLogger.global();
+
+    private static final int MIN_LIMIT = 4;
+    private static final long ADAPT_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final double SMOOTHING = 0.3;  // Weight of the newest throughput sample
+
+    private final TransactionRingBuffer ring;
+    private final String bankName;
+    private final AdmissionPolicy policy;
+    private final long blockTimeoutNanos;
+    private final long targetQueueDelayNanos;
+
+    // Overflow buffer (SPILL), a circular array with the time every transaction arrived
+    private final Transaction[] spill;
+    private final long[] spilledAt;
+    private int spillHead;
+    private int spillCount;
+
+    // Throughput measurement, only touched by the producer thread
+    private long admitted;
+    private long lastAdaptNanos = System.nanoTime();
+    private long lastConsumed;
+    private double smoothedTps;
+
+    // Read by other threads (JMX)
+    private volatile int limit;
+    private volatile int spillDepth;
+    private volatile long rejectedCount;  // Single writer
+    private TransactionMetrics metrics;
+
+    /**
+     * Creates a controller with a 100 ms block timeout, a spill buffer of 1024 and a 50 ms target queue delay.
+     */
+    public AdmissionController(TransactionRingBuffer ring, String bankName, AdmissionPolicy policy) {
+        this(ring, bankName, policy, 100, 1024, 50);
+    }
+
+    /**
+     * @param ring The bank queue, this controller must be its only producer
+     * @param policy What to do when the queue is at the admission limit
+     * @param blockTimeoutMillis BLOCK: longest wait for room before rejecting
+     * @param spillCapacity SPILL: size of the overflow buffer
+     * @param targetQueueDelayMillis The queue wait the adaptive limit aims for
+     */
+    public AdmissionController(TransactionRingBuffer ring, String bankName, AdmissionPolicy policy, long blockTimeoutMillis,
+                               int spillCapacity, long targetQueueDelayMillis) {
+        if (blockTimeoutMillis < 0 || spillCapacity <= 0 || targetQueueDelayMillis <= 0) {
+            throw new IllegalArgumentException("Timeout must not be negative, spill capacity and queue delay must be positive.");
+        }
+        this.ring = ring;
+        this.bankName = bankName;
+        this.policy = policy;
+        this.blockTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(blockTimeoutMillis);
+        this.targetQueueDelayNanos = TimeUnit.MILLISECONDS.toNanos(targetQueueDelayMillis);
+        this.spill = new Transaction[spillCapacity];
+        this.spilledAt = new long[spillCapacity];
+        this.limit = ring.getCapacity();  // No measurement yet
+    }
+
+    /**
+     * Records admission waits and rejections into the given metrics and publishes the limit and the spill depth through them.
+     */
+    public void setMetrics(TransactionMetrics metrics) {
+        this.metrics = metrics;
+        metrics.setAdmissionSuppliers(this::getLimit, this::getSpillDepth);
+    }
+
+    /**
+     * Publishes the transaction to the bank queue, or applies the policy if the queue is at the admission limit.
+     * The enqueue time of the transaction is stamped when it is published.
+     * @return false if the transaction was rejected (its status is then FAILED), true if it was published or spilled
+     * @throws InterruptedException if the producer is interrupted while blocking
+     */
+    public boolean admit(Transaction transaction) throws InterruptedException {
+        long start = System.nanoTime();
+        adapt(start);
+        drainSpill();
+
+        // Spilled transactions go first, so the arrival order is kept
+        if (spillCount == 0 && tryPublish(transaction, start)) {
+            return true;
+        }
+        switch (policy) {
+            case BLOCK:
+                long deadline = start + blockTimeoutNanos;
+                int spins = 0;
+                while (System.nanoTime() - deadline < 0) {
+                    if (Thread.interrupted()) {
+                        throw new InterruptedException();
+                    }
+                    spins = ring.getWaitStrategy().idle(spins);
+                    adapt(System.nanoTime());
+                    if (tryPublish(transaction, start)) {
+                        return true;
+                    }
+                }
+                break;
+            case SPILL:
+                if (spillCount < spill.length) {
+                    int tail = (spillHead + spillCount) % spill.length;
+                    spill[tail] = transaction;
+                    spilledAt[tail] = start;
+                    spillDepth = ++spillCount;
+                    return true;
+                }
+                break;
+            case REJECT:
+                break;
+        }
+        reject(transaction);
+        return false;
+    }
+
+    /**
+     * Publishes spilled transactions while the queue has room. admit() does it too; call it when the producer is idle,
+     * so that spilled transactions don't wait for the next admit().
+     * @return The number of transactions still spilled
+     */
+    public int drainSpill() {
+        while (spillCount > 0 && tryPublish(spill[spillHead], spilledAt[spillHead])) {
+            spill[spillHead] = null;
+            spillHead = (spillHead + 1) % spill.length;
+            spillDepth = --spillCount;
+        }
+        return spillCount;
+    }
+
+    // Publishes if the queue is below the limit, records the admission wait since arrivedNanos
+    private boolean tryPublish(Transaction transaction, long arrivedNanos) {
+        if (ring.size() >= limit) {
+            return false;
+        }
+        long now = System.nanoTime();
+        transaction.setEnqueuedNanos(now);  // Before the offer: a consumer may take it right away
+        if (!ring.offer(transaction)) {
+            return false;
+        }
+        admitted++;
+        if (metrics != null) {
+            metrics.record(TransactionStage.ADMISSION, now - arrivedNanos);
+        }
+        return true;
+    }
+
+    private void reject(Transaction transaction) {
+        transaction.setStatus(TransactionStatus.FAILED);
+        rejectedCount++;
+        if (metrics != null) {
+            metrics.onRejected();
+        }
+        events.log(LogEvent.ADMISSION_REJECTED, transaction.getAccountId(), policy, transaction.getAmount(), limit);
+    }
+
+    // Re-measures the drain rate every ADAPT_INTERVAL_NANOS and derives the admission limit from it
+    private void adapt(long now) {
+        long elapsed = now - lastAdaptNanos;
+        if (elapsed < ADAPT_INTERVAL_NANOS) {
+            return;
+        }
+        int backlog = ring.size();
+        long consumed = admitted - backlog;
+        // An empty queue only shows the offered rate, not what the workers could do, so only a backlog is a measurement
+        if (backlog > 0) {
+            double tps = (consumed - lastConsumed) * 1e9 / elapsed;
+            smoothedTps = smoothedTps == 0 ? tps : SMOOTHING * tps + (1 - SMOOTHING) * smoothedTps;
+            long target = (long) Math.ceil(smoothedTps * targetQueueDelayNanos / 1e9);
+            limit = (int) Math.max(MIN_LIMIT, Math.min(ring.getCapacity(), target));
+        }
+        lastAdaptNanos = now;
+        lastConsumed = consumed;
+    }
+
+    public String getBankName() {
+        return bankName;
+    }
+
+    public AdmissionPolicy getPolicy() {
+        return policy;
+    }
+
+    // Current admission limit (queue length)
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getSpillDepth() {
+        return spillDepth;
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount;
+    }
+
+    // Smoothed drain rate of the bank's workers (transactions per second, 0 before the first measurement)
+    public double getMeasuredThroughput() {
+        return smoothedTps;
+    }
+}
@@ -0,0 +1,12 @@
+package TransactionsSimulator;
+
+/*
+ * The AdmissionPolicy enum decides what an AdmissionController does with a transaction when its bank queue is at the admission limit:
+ *  - BLOCK: waits until there is room, at most the block timeout, then rejects it
+ *  - REJECT: rejects it right away (status FAILED)
+ *  - SPILL: parks it in a bounded overflow buffer, published in order as soon as there is room; rejects it if the buffer is full
+ */
+
+public enum AdmissionPolicy {
+    BLOCK, REJECT, SPILL
+}
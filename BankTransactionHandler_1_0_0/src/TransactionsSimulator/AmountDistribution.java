@@ -0,0 +1,37 @@
+package TransactionsSimulator;
+
+import java.util.SplittableRandom;
+
+/*
+ * The AmountDistribution enum decides how transaction amounts between a minimum and a maximum are drawn:
+ *  - UNIFORM: every amount is equally likely (like TransactionGenerator)
+ *  - LOG_NORMAL: most amounts are small, a few are large, like real payments. The median is the geometric mean of the bounds and
+ *    the bounds are three standard deviations away from it (in log space); the rare samples outside are clamped to the bounds.
+ */
+
+public enum AmountDistribution {
+
+    UNIFORM {
+        @Override
+        int sample(SplittableRandom random, int minAmount, int maxAmount) {
+            return random.nextInt(minAmount, maxAmount + 1);
+        }
+    },
+
+    LOG_NORMAL {
+        @Override
+        int sample(SplittableRandom random, int minAmount, int maxAmount) {
+            double logMin = Math.log(minAmount);
+            double logMax = Math.log(maxAmount);
+            double mu = (logMin + logMax) / 2;
+            double sigma = (logMax - logMin) / 6;
+            long amount = Math.round(Math.exp(mu + sigma * random.nextGaussian()));
+            return (int) Math.max(minAmount, Math.min(maxAmount, amount));
+        }
+    };
+
+    /**
+     * @return An amount between minAmount and maxAmount (both included)
+     */
+    abstract int sample(SplittableRandom random, int minAmount, int maxAmount);
+}
@@ -0,0 +1,295 @@
+package TransactionsSimulator;
+
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Logger;
+
+/*
+ * The AsyncTransactionExporter class is a background export stage in front of a TransactionExporter. Worker threads only hand off completed
+ * transactions to a bounded buffer, and a dedicated writer thread exports them in batches (group commit). A batch is written when it reaches
+ * the maximum batch size or when the maximum delay since its first transaction has passed, whichever comes first.
+ *
+ * Durability after each batch is configurable:
+ *  - FSYNC_PER_BATCH: the batch is flushed and forced to disk before the next one is taken
+ *  - PERIODIC: the batch is flushed to the OS, and the files are forced to disk at a fixed interval
+ *  - NONE: the batch is flushed to the OS only
+ *
+ * A batch whose export or flush throws (e.g. a full or missing disk) is retried (it may then be written twice); after the last attempt it
+ * is dropped and counted.
+ * submit() and close() share a lock, so a transaction is either rejected or in the buffer before the writer drains it for the last time.
+ */
+
+public class AsyncTransactionExporter {
+
+    private static final Logger logger = Logger.getLogger(AsyncTransactionExporter.class.getName());
+
+    // Attempts of a failing batch before it is dropped, and the pause between them
+    private static final int MAX_EXPORT_ATTEMPTS = 3;
+    private static final long RETRY_DELAY_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final TransactionExporter exporter;
+    private final String bankName;
+    private final BlockingQueue<Transaction> buffer;
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final DurabilityMode durability;
+    private final long fsyncIntervalNanos;
+    private final Thread writerThread;
+
+    private volatile boolean running = true;
+    // Submitters hold the read lock while they check running and put; close() takes the write lock to stop accepting
+    private final ReadWriteLock stateLock = new ReentrantReadWriteLock();
+    private volatile TransactionMetrics metrics;  // Optional, records the EXPORT stage
+
+    // Metrics
+    private final AtomicLong exportedCount = new AtomicLong();
+    private final AtomicLong batchCount = new AtomicLong();
+    private final AtomicLong fsyncCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private volatile int lastBatchSize;
+    private volatile int maxObservedBatchSize;
+
+    /**
+     * Creates the export stage with default settings:
+     * buffer of 1024, batches of at most 128 transactions or 50 ms, periodic fsync every second.
+     */
+    public AsyncTransactionExporter(TransactionExporter exporter, String bankName) {
+        this(exporter, bankName, 1024, 128, 50, DurabilityMode.PERIODIC, 1000);
+    }
+
+    /**
+     * @param exporter          The exporter that performs the actual writing
+     * @param bankName          Bank whose transactions go through this stage
+     * @param capacity          Capacity of the hand-off buffer (submit blocks when it is full)
+     * @param maxBatchSize      Size threshold of a batch
+     * @param maxDelayMillis    Time threshold of a batch, measured from its first transaction
+     * @param durability        What happens after a batch is written
+     * @param fsyncIntervalMillis Interval of the fsync in PERIODIC mode
+     */
+    public AsyncTransactionExporter(TransactionExporter exporter, String bankName, int capacity, int maxBatchSize,
+                                    long maxDelayMillis, DurabilityMode durability, long fsyncIntervalMillis) {
+        this(exporter, bankName, capacity, maxBatchSize, maxDelayMillis, durability, fsyncIntervalMillis, Thread.ofPlatform().daemon());
+    }
+
+    /**
+     * Creates the export stage with default settings, writing on a thread of the given builder
+     * (e.g. Thread.ofVirtual(), so the blocking file I/O doesn't hold a platform thread).
+     */
+    public AsyncTransactionExporter(TransactionExporter exporter, String bankName, Thread.Builder writerThreadBuilder) {
+        this(exporter, bankName, 1024, 128, 50, DurabilityMode.PERIODIC, 1000, writerThreadBuilder);
+    }
+
+    /**
+     * @param writerThreadBuilder Builds the writer thread (platform or virtual)
+     */
+    public AsyncTransactionExporter(TransactionExporter exporter, String bankName, int capacity, int maxBatchSize,
+                                    long maxDelayMillis, DurabilityMode durability, long fsyncIntervalMillis,
+                                    Thread.Builder writerThreadBuilder) {
+        if (capacity <= 0 || maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Capacity and batch size must be positive.");
+        }
+        this.exporter = exporter;
+        this.bankName = bankName;
+        this.buffer = new ArrayBlockingQueue<>(capacity);
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+        this.durability = durability;
+        this.fsyncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(fsyncIntervalMillis);
+
+        this.writerThread = writerThreadBuilder.name(bankName + "-Export-Thread").start(this::writeLoop);
+    }
+
+    /**
+     * Hands off a completed transaction to the writer thread.
+     * Blocks while the buffer is full, so a slow disk slows the workers down instead of growing memory.
+     * @throws IllegalStateException if the stage is closed (the transaction is not exported)
+     */
+    public void submit(Transaction tx) throws InterruptedException {
+        stateLock.readLock().lock();
+        try {
+            if (!running) {
+                throw new IllegalStateException("Export stage of " + bankName + " is closed.");
+            }
+            buffer.put(tx);  // The writer keeps draining until close() got the write lock, so this can't block forever
+        } finally {
+            stateLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Records the EXPORT latency (completion to written and flushed) of every transaction into the given metrics.
+     */
+    public void setMetrics(TransactionMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Stops accepting transactions, writes everything that is still buffered, forces it to disk and closes the exporter.
+     */
+    public void close() {
+        // Waits for the submitters in progress: everything accepted is in the buffer before the writer sees running = false
+        stateLock.writeLock().lock();
+        try {
+            running = false;
+        } finally {
+            stateLock.writeLock().unlock();
+        }
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            exporter.flush(true);
+        } catch (UncheckedIOException e) {
+            logger.severe("Final export flush failed at bank " + bankName + ": " + e.getCause());
+        }
+        exporter.close();
+    }
+
+    // Writer thread: collects batches and exports them until closed and drained
+    private void writeLoop() {
+        List<Transaction> batch = new ArrayList<>(maxBatchSize);
+        long lastFsync = System.nanoTime();
+
+        while (running || !buffer.isEmpty()) {
+            try {
+                Transaction first = buffer.poll(maxDelayNanos, TimeUnit.NANOSECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    long deadline = System.nanoTime() + maxDelayNanos;
+
+                    // Fill the batch until the size or the time threshold is hit
+                    while (batch.size() < maxBatchSize) {
+                        buffer.drainTo(batch, maxBatchSize - batch.size());
+                        long remaining = deadline - System.nanoTime();
+                        if (batch.size() >= maxBatchSize || remaining <= 0 || !running) {
+                            break;
+                        }
+                        Transaction next = buffer.poll(remaining, TimeUnit.NANOSECONDS);
+                        if (next == null) {
+                            break;
+                        }
+                        batch.add(next);
+                    }
+
+                    exportWithRetry(batch);
+                    batch.clear();
+                } else {
+                    exporter.rollExpiredSegments();  // Idle: a quiet file still gets a new segment when its time window is over
+                }
+
+                if (durability == DurabilityMode.PERIODIC && System.nanoTime() - lastFsync >= fsyncIntervalNanos) {
+                    exporter.flush(true);
+                    fsyncCount.incrementAndGet();
+                    lastFsync = System.nanoTime();
+                }
+            } catch (InterruptedException e) {
+                // Only close() ends the loop, so that nothing buffered is lost
+                logger.warning("Export writer of " + bankName + " was interrupted, continuing until closed.");
+            } catch (RuntimeException e) {
+                // Flush or segment roll failures; a batch still held here was not exported
+                if (!batch.isEmpty()) {
+                    droppedCount.addAndGet(batch.size());
+                }
+                logger.severe("Export failed at bank " + bankName + " (" + batch.size() + " transactions dropped): " + e);
+                batch.clear();
+            }
+        }
+    }
+
+    // Writes a batch, retrying a failed attempt; after the last one the batch is dropped and counted
+    private void exportWithRetry(List<Transaction> batch) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                writeBatch(batch);
+                return;
+            } catch (RuntimeException e) {
+                if (attempt >= MAX_EXPORT_ATTEMPTS) {
+                    droppedCount.addAndGet(batch.size());
+                    logger.severe("Export of a batch of " + batch.size() + " failed " + attempt + " times at bank " + bankName
+                            + ", dropped: " + e);
+                    return;
+                }
+                logger.warning("Export of a batch failed at bank " + bankName + " (attempt " + attempt + "), retrying: " + e);
+                LockSupport.parkNanos(RETRY_DELAY_NANOS);
+            }
+        }
+    }
+
+    private void writeBatch(List<Transaction> batch) {
+        exporter.exportBatch(batch, bankName);
+        if (durability == DurabilityMode.FSYNC_PER_BATCH) {
+            exporter.flush(true);
+            fsyncCount.incrementAndGet();
+        } else {
+            exporter.flush(false);
+        }
+
+        TransactionMetrics stageMetrics = metrics;
+        if (stageMetrics != null) {
+            long written = System.nanoTime();
+            for (Transaction tx : batch) {
+                if (tx.getCompletedNanos() != 0) {
+                    stageMetrics.record(TransactionStage.EXPORT, written - tx.getCompletedNanos());
+                }
+            }
+        }
+
+        int size = batch.size();
+        exportedCount.addAndGet(size);
+        batchCount.incrementAndGet();
+        lastBatchSize = size;
+        if (size > maxObservedBatchSize) {
+            maxObservedBatchSize = size;
+        }
+    }
+
+    // Metrics getters
+
+    public int getQueueDepth() {
+        return buffer.size();
+    }
+
+    public long getExportedCount() {
+        return exportedCount.get();
+    }
+
+    public long getBatchCount() {
+        return batchCount.get();
+    }
+
+    public long getFsyncCount() {
+        return fsyncCount.get();
+    }
+
+    // Transactions whose export failed on every attempt
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    public int getLastBatchSize() {
+        return lastBatchSize;
+    }
+
+    public int getMaxBatchSize() {
+        return maxObservedBatchSize;
+    }
+
+    public double getAverageBatchSize() {
+        long batches = batchCount.get();
+        return batches == 0 ? 0.0 : (double) exportedCount.get() / batches;
+    }
+
+    public DurabilityMode getDurability() {
+        return durability;
+    }
+}
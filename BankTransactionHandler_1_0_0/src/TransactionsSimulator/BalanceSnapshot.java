@@ -0,0 +1,14 @@
+package TransactionsSimulator;
+
+/*
+ * The BalanceSnapshot record is the balance of one account at the end of a simulation cycle, as published through the BalanceSnapshotChannel.
+ * The balance stays a primitive long (no boxing) and the snapshot keeps which account (and bank) it belongs to.
+ */
+
+public record BalanceSnapshot(int account, String accountId, String bankName, long balance, long cycle) {
+
+    @Override
+    public String toString() {
+        return accountId + "=" + balance;
+    }
+}
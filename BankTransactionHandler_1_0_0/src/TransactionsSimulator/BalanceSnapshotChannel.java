@@ -0,0 +1,101 @@
+package TransactionsSimulator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/*
+ * The BalanceSnapshotChannel class publishes the account balances of the simulation as typed BalanceSnapshot records, with two semantics:
+ *  - Coalescing (UI): one slot per account holds the latest snapshot, a newer one replaces it. Readers get the current balances at any
+ *    time, memory doesn't depend on how often or whether they read. getVersion() tells whether anything changed since the last look.
+ *  - Buffered: every BalanceSubscription receives each snapshot published while it is active, through a bounded buffer that is drained
+ *    in batches. A full subscription drops snapshots (counted) unless it opted in to BLOCK, then the publisher waits for it (lossless,
+ *    for accounting consumers).
+ *
+ * publish() must be called from a single thread (the simulator); the reading side is thread-safe.
+ */
+
+public class BalanceSnapshotChannel {
+
+    private final AtomicReferenceArray<BalanceSnapshot> latest;
+    private final List<BalanceSubscription> subscriptions = new CopyOnWriteArrayList<>();
+    private volatile long version;  // Only written by the publisher
+
+    /**
+     * @param accounts Number of accounts (dense indices of the AccountRegistry)
+     */
+    public BalanceSnapshotChannel(int accounts) {
+        this.latest = new AtomicReferenceArray<>(accounts);
+    }
+
+    /**
+     * Publishes the balance of an account: replaces its latest snapshot, then hands it to every active subscription
+     * (waiting while a BLOCK one is full).
+     */
+    public void publish(int account, String accountId, String bankName, long balance, long cycle) throws InterruptedException {
+        BalanceSnapshot snapshot = new BalanceSnapshot(account, accountId, bankName, balance, cycle);
+        latest.set(account, snapshot);
+        version++;
+        for (BalanceSubscription subscription : subscriptions) {
+            subscription.offer(snapshot);
+        }
+    }
+
+    /**
+     * Opens a subscription that drops its oldest snapshots when full, so it never holds up the publisher.
+     * @param capacity Size of its buffer
+     * @param paused Whether it starts paused (keeping nothing until resumed)
+     */
+    public BalanceSubscription subscribe(int capacity, boolean paused) {
+        return subscribe(capacity, paused, SubscriptionOverflow.DROP_OLDEST);
+    }
+
+    /**
+     * Opens a subscription.
+     * @param capacity Size of its buffer
+     * @param paused Whether it starts paused (keeping nothing until resumed)
+     * @param overflow What a full buffer does with a new snapshot (BLOCK makes the publisher wait)
+     */
+    public BalanceSubscription subscribe(int capacity, boolean paused, SubscriptionOverflow overflow) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive.");
+        }
+        if (overflow == null) {
+            throw new IllegalArgumentException("Overflow policy must not be null.");
+        }
+        BalanceSubscription subscription = new BalanceSubscription(this, capacity, paused, overflow);
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    void unsubscribe(BalanceSubscription subscription) {
+        subscriptions.remove(subscription);
+    }
+
+    // The latest snapshot of the account, null before its first publication
+    public BalanceSnapshot latest(int account) {
+        return latest.get(account);
+    }
+
+    // The latest snapshot of every account published so far, in account order
+    public List<BalanceSnapshot> latestAll() {
+        List<BalanceSnapshot> snapshots = new ArrayList<>(latest.length());
+        for (int account = 0; account < latest.length(); account++) {
+            BalanceSnapshot snapshot = latest.get(account);
+            if (snapshot != null) {
+                snapshots.add(snapshot);
+            }
+        }
+        return snapshots;
+    }
+
+    // Number of publications so far, UI readers can skip a refresh while it is unchanged
+    public long getVersion() {
+        return version;
+    }
+
+    public int getAccountCount() {
+        return latest.length();
+    }
+}
@@ -0,0 +1,236 @@
+package TransactionsSimulator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/*
+ * The BalanceSnapshotter class periodically writes a compact snapshot of all account balances and recovers the balances after a crash.
+ *
+ * A snapshot is taken without stopping the accounts: it remembers the next LSN of the write-ahead log, then copies every account's balance
+ * together with the LSN of its last change. On recovery the latest valid snapshot is loaded and only the log records from that LSN on are
+ * replayed; a record is applied to an account only if it is newer than what the snapshot holds for it. Once a snapshot is on disk the log
+ * segments before it are deleted, so recovery time depends on the snapshot interval, not on the length of the history.
+ *
+ * A split transfer (AccountStore.beginTransfer()) is in neither account while its credit is in flight. A snapshot therefore starts at the
+ * oldest such transfer if that is earlier, and recovery credits the target of every TRANSFER_OUT record without its TRANSFER_IN.
+ *
+ * Snapshot file 'snapshot-<lsn>.snap': int magic, int account count, long start LSN, then (long balance, long last LSN) per account,
+ * then an int CRC32 of everything before it.
+ */
+
+public class BalanceSnapshotter implements AutoCloseable {
+
+    private static final Logger logger = Logger.getLogger(BalanceSnapshotter.class.getName());
+
+    private static final int MAGIC = 0x42534E31;  // "BSN1"
+    private static final int HEADER_SIZE = 16;
+    private static final int SNAPSHOTS_KEPT = 2;
+
+    private final Path directory;
+    private final BalanceWriteAheadLog wal;
+    private final StripedAccountTable accounts;
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * @param directory Directory of the snapshot files (can be the same as the log's)
+     * @param wal The write-ahead log attached to the accounts
+     * @param accounts Balances of the accounts, indexed like in the log
+     */
+    public BalanceSnapshotter(Path directory, BalanceWriteAheadLog wal, StripedAccountTable accounts) throws IOException {
+        this.directory = directory;
+        this.wal = wal;
+        this.accounts = accounts;
+        Files.createDirectories(directory);
+    }
+
+    /**
+     * Takes a snapshot every intervalMillis on a background thread.
+     */
+    public synchronized void start(long intervalMillis) {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "Snapshot-Thread");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                snapshot();
+            } catch (IOException | IllegalStateException e) {
+                logger.severe("Snapshot failed: " + e.getMessage());  // A failed log fails every snapshot, the task keeps reporting it
+            }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Writes a snapshot of all accounts, then drops the log segments and snapshots it makes obsolete.
+     * @return The start LSN of the snapshot
+     */
+    public synchronized long snapshot() throws IOException {
+        // Read the next LSN first: a transfer started after it is in the log tail anyway, one started before is still pending or credited
+        long startLsn = Math.min(wal.nextLsn(), accounts.oldestPendingTransfer());
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + accounts.size() * 16 + 4);
+        buffer.putInt(MAGIC).putInt(accounts.size()).putLong(startLsn);
+        long[] state = new long[2];
+        for (int i = 0; i < accounts.size(); i++) {
+            accounts.copyState(i, state);
+            buffer.putLong(state[0]).putLong(state[1]);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putInt((int) crc.getValue());
+        buffer.flip();
+
+        // The records the snapshot depends on must be on disk before the snapshot replaces them
+        wal.sync();
+
+        // Write to a temporary file first, so a crash never leaves a half written snapshot behind
+        Path temp = directory.resolve("snapshot.tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, directory.resolve(String.format("snapshot-%020d.snap", startLsn)),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        List<Path> snapshots = listSnapshots(directory);
+        for (int i = 0; i < snapshots.size() - SNAPSHOTS_KEPT; i++) {
+            Files.deleteIfExists(snapshots.get(i));
+        }
+        // Keep the log from the oldest retained snapshot on, so it is still usable if the newest one is damaged
+        String oldest = snapshots.get(Math.max(0, snapshots.size() - SNAPSHOTS_KEPT)).getFileName().toString();
+        wal.truncate(Long.parseLong(oldest.substring("snapshot-".length(), oldest.length() - ".snap".length())));
+        return startLsn;
+    }
+
+    /**
+     * Restores the accounts from the latest valid snapshot and the log tail after it.
+     * Must be called before the log is attached to the accounts.
+     * @param snapshotDir Directory of the snapshot files
+     * @param walDir Directory of the write-ahead log
+     * @param accounts Balances of the accounts, indexed like in the log
+     * @return Number of log records applied
+     */
+    public static long recover(Path snapshotDir, Path walDir, StripedAccountTable accounts) throws IOException {
+        int count = accounts.size();
+        long[] balances = new long[count];
+        long[] lastLsns = new long[count];
+        long startLsn = 0;
+
+        List<Path> snapshots = listSnapshots(snapshotDir);
+        Collections.reverse(snapshots);
+        for (Path path : snapshots) {
+            long loaded = loadSnapshot(path, balances, lastLsns);
+            if (loaded >= 0) {
+                startLsn = loaded;
+                logger.info("Loaded snapshot " + path.getFileName());
+                break;
+            }
+            logger.warning("Ignoring damaged snapshot " + path.getFileName());
+        }
+
+        long[] applied = {0};
+        Map<Long, long[]> inFlight = new HashMap<>();  // TRANSFER_OUT records without a TRANSFER_IN: LSN -> {target, amount}
+        BalanceWriteAheadLog.replay(walDir, startLsn, (lsn, op, account, counterpart, amount, after, counterpartAfter) -> {
+            if (op == BalanceWriteAheadLog.OP_TRANSFER_OUT) {
+                inFlight.put(lsn, new long[] {counterpart, amount});
+            } else if (op == BalanceWriteAheadLog.OP_TRANSFER_IN) {
+                inFlight.remove(counterpartAfter);
+            }
+            if (account >= 0 && account < count && lsn > lastLsns[account]) {
+                balances[account] = after;
+                lastLsns[account] = lsn;
+            }
+            if (op == BalanceWriteAheadLog.OP_TRANSFER && counterpart >= 0 && counterpart < count && lsn > lastLsns[counterpart]) {
+                balances[counterpart] = counterpartAfter;
+                lastLsns[counterpart] = lsn;
+            }
+            applied[0]++;
+        });
+
+        for (int i = 0; i < count; i++) {
+            accounts.recoverState(i, balances[i], lastLsns[i]);
+        }
+        // The credit of these was never logged, so neither the snapshot nor the replayed after images hold it
+        inFlight.forEach((transferLsn, credit) -> {
+            if (credit[0] >= 0 && credit[0] < count) {
+                accounts.recoverCredit((int) credit[0], credit[1], transferLsn);
+            }
+        });
+        logger.info("Recovered " + count + " accounts, replayed " + applied[0] + " log records after LSN " + startLsn + ", completed "
+                + inFlight.size() + " transfers in flight");
+        return applied[0];
+    }
+
+    // Loads a snapshot into the arrays, returns its start LSN or -1 if it is damaged
+    private static long loadSnapshot(Path path, long[] balances, long[] lastLsns) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+        if (buffer.remaining() < HEADER_SIZE + 4 || buffer.getInt(0) != MAGIC) {
+            return -1;
+        }
+        int count = buffer.getInt(4);
+        if (count < 0 || buffer.remaining() != HEADER_SIZE + count * 16 + 4) {
+            return -1;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.remaining() - 4);
+        if ((int) crc.getValue() != buffer.getInt(buffer.remaining() - 4)) {
+            return -1;
+        }
+
+        long startLsn = buffer.getLong(8);
+        buffer.position(HEADER_SIZE);
+        for (int i = 0; i < count; i++) {
+            long balance = buffer.getLong();
+            long lsn = buffer.getLong();
+            if (i < balances.length) {  // Accounts beyond the current configuration are ignored
+                balances[i] = balance;
+                lastLsns[i] = lsn;
+            }
+        }
+        return startLsn;
+    }
+
+    private static List<Path> listSnapshots(Path directory) throws IOException {
+        List<Path> snapshots = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return snapshots;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(p -> p.getFileName().toString().matches("snapshot-\\d{20}\\.snap"))
+                 .sorted()
+                 .forEach(snapshots::add);
+        }
+        return snapshots;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package TransactionsSimulator;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * The BalanceSubscription class is the buffered view of a BalanceSnapshotChannel: the snapshots published while the subscription is active
+ * are kept, in order, in a bounded buffer. What happens when the buffer is full is its SubscriptionOverflow: only a BLOCK subscription is
+ * lossless (the publisher waits, backpressure instead of growing memory), the others drop a snapshot and count it, so a slow consumer never
+ * holds up the simulation. Consumers take snapshots one by one or drain them in batches; several consumer threads may share one subscription.
+ *
+ * A paused subscription keeps nothing (the snapshots published meanwhile are only counted as skipped), so consumers that are switched off
+ * neither hold up the publisher nor pile up snapshots. The latest balances are still available from the channel's coalescing view.
+ */
+
+public class BalanceSubscription {
+
+    private final BalanceSnapshotChannel channel;
+    private final BlockingQueue<BalanceSnapshot> buffer;
+    private final SubscriptionOverflow overflow;
+    private volatile boolean paused;
+    private volatile boolean closed;
+    private volatile long skippedCount;  // Only written by the publisher
+    private volatile long droppedCount;  // Only written by the publisher
+    private volatile BalanceSnapshot lastKept;  // Newest snapshot put into the buffer (the tail, while it is buffered)
+
+    BalanceSubscription(BalanceSnapshotChannel channel, int capacity, boolean paused, SubscriptionOverflow overflow) {
+        this.channel = channel;
+        this.buffer = new ArrayBlockingQueue<>(capacity);
+        this.paused = paused;
+        this.overflow = overflow;
+    }
+
+    // Publisher side: keeps the snapshot unless paused, the overflow policy decides what happens while the buffer is full
+    void offer(BalanceSnapshot snapshot) throws InterruptedException {
+        if (paused || closed) {
+            skippedCount++;
+            return;
+        }
+        switch (overflow) {
+            case BLOCK -> {
+                while (!buffer.offer(snapshot, 100, TimeUnit.MILLISECONDS)) {
+                    if (paused || closed) {
+                        skippedCount++;
+                        return;
+                    }
+                }
+            }
+            case DROP_OLDEST -> {
+                while (!buffer.offer(snapshot)) {
+                    if (buffer.poll() != null) {  // The consumers may have made room meanwhile
+                        droppedCount++;
+                    }
+                }
+            }
+            case DROP_NEWEST -> {
+                if (!buffer.offer(snapshot)) {
+                    droppedCount++;
+                    return;
+                }
+            }
+        }
+        lastKept = snapshot;
+    }
+
+    // Waits for the next snapshot
+    public BalanceSnapshot take() throws InterruptedException {
+        return buffer.take();
+    }
+
+    /**
+     * Moves up to maxSnapshots buffered snapshots into the sink without waiting.
+     * @return The number of snapshots moved
+     */
+    public int drainTo(Collection<? super BalanceSnapshot> sink, int maxSnapshots) {
+        return buffer.drainTo(sink, maxSnapshots);
+    }
+
+    /**
+     * Waits at most the timeout for a first snapshot, then moves it and up to maxSnapshots - 1 more already buffered into the sink.
+     * @return The number of snapshots moved (0 if the timeout passed)
+     */
+    public int drainTo(Collection<? super BalanceSnapshot> sink, int maxSnapshots, long timeout, TimeUnit unit) throws InterruptedException {
+        BalanceSnapshot first = buffer.poll(timeout, unit);
+        if (first == null) {
+            return 0;
+        }
+        sink.add(first);
+        return 1 + buffer.drainTo(sink, maxSnapshots - 1);
+    }
+
+    // Stops keeping snapshots (the buffered ones stay available)
+    public void pause() {
+        paused = true;
+    }
+
+    public void resume() {
+        paused = false;
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    // Detaches from the channel, the publisher never waits for it again
+    public void close() {
+        closed = true;
+        channel.unsubscribe(this);
+    }
+
+    public int size() {
+        return buffer.size();
+    }
+
+    public int getCapacity() {
+        return buffer.size() + buffer.remainingCapacity();
+    }
+
+    public SubscriptionOverflow getOverflow() {
+        return overflow;
+    }
+
+    // Snapshots published while paused or closed
+    public long getSkippedCount() {
+        return skippedCount;
+    }
+
+    // Snapshots lost to a full buffer (always 0 with BLOCK)
+    public long getDroppedCount() {
+        return droppedCount;
+    }
+
+    /**
+     * Returns a constant-size description for display: the size, the capacity, the oldest and the newest buffered snapshot.
+     * Unlike pending() it doesn't walk the buffer.
+     */
+    public String summary() {
+        BalanceSnapshot head = buffer.peek();
+        int size = buffer.size();
+        if (head == null) {
+            return "size 0/" + getCapacity();
+        }
+        BalanceSnapshot tail = lastKept;
+        return "size " + size + "/" + getCapacity() + ", head " + head + (size > 1 && tail != null ? ", tail " + tail : "");
+    }
+
+    // The buffered snapshots (a copy, for display only)
+    public List<BalanceSnapshot> pending() {
+        return new ArrayList<>(buffer);
+    }
+}
@@ -0,0 +1,455 @@
+package TransactionsSimulator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/*
+ * The BalanceWriteAheadLog class records every balance change of the accounts before it can be lost. Each record carries the balance of the
+ * account after the change (after image), so replaying a record twice gives the same result and the log can be combined with fuzzy snapshots
+ * (see BalanceSnapshotter). A transfer is a single record with both after images, so it is never half applied on recovery.
+ * A transfer whose credit is applied later by another thread (the shards of ExecutionMode.PARTITIONED) is a TRANSFER_OUT record with the
+ * source's after image when it is debited and a TRANSFER_IN record naming that LSN when it is credited. Recovery credits the target of a
+ * TRANSFER_OUT without its TRANSFER_IN, so the amount in flight at a crash is neither lost nor credited twice.
+ *
+ * Appends only copy the record into an in-memory buffer and return its log sequence number (LSN). A flusher thread writes the buffered
+ * records to the current segment file every few milliseconds with one write and one fsync (group commit), so the log is not the bottleneck.
+ * A crash loses at most the records of the last flush interval. A write that fails is cut off the segment and retried; if it keeps failing
+ * the log is marked failed and every later append() and sync() throws IllegalStateException, so no change is ever acknowledged without its
+ * record (the buffered records are kept, never dropped).
+ *
+ * Record layout (48 bytes):
+ *  0  long lsn, 8 long amount, 16 long balance after, 24 long counterpart balance after,
+ *  32 int account, 36 int counterpart account (-1 if none), 40 byte operation, 41..43 reserved, 44 int CRC32 of bytes 0..43
+ * A TRANSFER_OUT has the target as counterpart (no after image), a TRANSFER_IN holds the LSN of its TRANSFER_OUT at offset 24.
+ *
+ * Segment files are named 'wal-<first lsn>.log'. Segments that only hold records older than the latest snapshot are deleted by truncate().
+ * A crash during a write can leave a torn record at the end of the last segment; opening the log cuts it off, so the records written after
+ * the restart are never hidden behind it (replay() stops a segment at its first invalid record).
+ */
+
+public class BalanceWriteAheadLog implements AutoCloseable {
+
+    private static final Logger logger = Logger.getLogger(BalanceWriteAheadLog.class.getName());
+
+    public static final byte OP_DEPOSIT = 0;
+    public static final byte OP_WITHDRAW = 1;
+    public static final byte OP_TRANSFER = 2;
+    public static final byte OP_RESET = 3;
+    public static final byte OP_SET = 4;
+    public static final byte OP_TRANSFER_OUT = 5;
+    public static final byte OP_TRANSFER_IN = 6;
+
+    public static final int RECORD_SIZE = 48;
+    private static final int CRC_OFFSET = 44;
+
+    private static final int MAX_WRITE_ATTEMPTS = 3;
+    private static final long RETRY_DELAY_MILLIS = 100;
+
+    /**
+     * Receives the fields of one log record during a replay.
+     */
+    @FunctionalInterface
+    public interface RecordVisitor {
+        void onRecord(long lsn, byte op, int account, int counterpart, long amount, long after, long counterpartAfter);
+    }
+
+    private final Path directory;
+    private final long maxSegmentBytes;
+    private final boolean fsync;
+    private final Thread flusherThread;
+    private final long flushIntervalNanos;
+
+    // Append side, guarded by this (the buffers are only exchanged while also holding writeLock)
+    private ByteBuffer active;
+    private ByteBuffer spare;
+    private final CRC32 appendCrc = new CRC32();
+    private long nextLsn;
+
+    // Write side, guarded by writeLock (a ReentrantLock, so an appender that ends up writing from a virtual thread doesn't pin it)
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private FileChannel segment;
+    private long segmentBytes;
+
+    private volatile boolean running = true;
+    private volatile IOException failure;  // Set once a write failed for good, the log accepts nothing after it
+
+    /**
+     * Opens the log with a 1 MB append buffer, 5 ms flush interval, fsync on every flush and 64 MB segments.
+     */
+    public BalanceWriteAheadLog(Path directory) throws IOException {
+        this(directory, 1 << 20, 5, true, 64L << 20);
+    }
+
+    /**
+     * Opens (or creates) the log. New records continue after the highest LSN already on disk.
+     * @param directory Directory of the segment files
+     * @param bufferBytes Size of the in-memory append buffer
+     * @param flushIntervalMillis How often the flusher writes the buffer
+     * @param fsync Whether every flush is forced to the storage device
+     * @param maxSegmentBytes Size after which a new segment is started
+     */
+    public BalanceWriteAheadLog(Path directory, int bufferBytes, long flushIntervalMillis, boolean fsync, long maxSegmentBytes) throws IOException {
+        if (bufferBytes < RECORD_SIZE) {
+            throw new IllegalArgumentException("Buffer must hold at least one record.");
+        }
+        this.directory = directory;
+        this.maxSegmentBytes = maxSegmentBytes;
+        this.fsync = fsync;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        this.active = ByteBuffer.allocate(bufferBytes - bufferBytes % RECORD_SIZE);
+        this.spare = ByteBuffer.allocate(active.capacity());
+
+        Files.createDirectories(directory);
+        long firstOfLastSegment = repairLastSegment(directory);
+        long[] last = {0};
+        replay(directory, 0, (lsn, op, account, counterpart, amount, after, counterpartAfter) -> last[0] = Math.max(last[0], lsn));
+        // A last segment whose records were all torn still holds its first LSN in its name: new records continue there, never below it
+        this.nextLsn = Math.max(last[0] + 1, firstOfLastSegment);
+
+        this.flusherThread = new Thread(this::flushLoop, "WAL-Flusher-Thread");
+        this.flusherThread.setDaemon(true);
+        this.flusherThread.start();
+    }
+
+    /**
+     * Appends a single account change. Must be called while the account's lock is held,
+     * so that the LSN order matches the order of the changes.
+     * @return LSN of the record
+     */
+    public long append(byte op, int account, long amount, long after) {
+        return append(op, account, -1, amount, after, 0);
+    }
+
+    /**
+     * Appends a transfer with the after images of both accounts. Must be called while both locks are held.
+     * @return LSN of the record
+     */
+    public long appendTransfer(int from, long fromAfter, int to, long toAfter, long amount) {
+        return append(OP_TRANSFER, from, to, amount, fromAfter, toAfter);
+    }
+
+    /**
+     * Appends the debit of a transfer whose credit follows in a separate appendTransferIn(). Must be called while the source's lock is held.
+     * @return LSN of the record, the ticket of the transfer
+     */
+    public long appendTransferOut(int from, long fromAfter, int to, long amount) {
+        return append(OP_TRANSFER_OUT, from, to, amount, fromAfter, 0);
+    }
+
+    /**
+     * Appends the credit of a transfer logged by appendTransferOut(). Must be called while the target's lock is held.
+     * @param transferLsn LSN of the TRANSFER_OUT record
+     * @return LSN of the record
+     */
+    public long appendTransferIn(int to, long toAfter, long transferLsn, long amount) {
+        return append(OP_TRANSFER_IN, to, -1, amount, toAfter, transferLsn);
+    }
+
+    private long append(byte op, int account, int counterpart, long amount, long after, long counterpartAfter) {
+        while (true) {
+            synchronized (this) {
+                if (!running) {
+                    throw new IllegalStateException("Write-ahead log is closed.");
+                }
+                checkFailure();
+                if (active.remaining() >= RECORD_SIZE) {
+                    long lsn = nextLsn++;
+                    int start = active.position();
+                    active.putLong(lsn).putLong(amount).putLong(after).putLong(counterpartAfter)
+                          .putInt(account).putInt(counterpart).put(op).put((byte) 0).putShort((short) 0);
+                    appendCrc.reset();
+                    appendCrc.update(active.array(), start, CRC_OFFSET);
+                    active.putInt((int) appendCrc.getValue());
+                    return lsn;
+                }
+            }
+            // Buffer full before the flusher came around: write it from here (back-pressure)
+            sync();
+        }
+    }
+
+    /**
+     * Returns the LSN the next record will get. Every record appended before this call has a smaller LSN.
+     */
+    public synchronized long nextLsn() {
+        return nextLsn;
+    }
+
+    /**
+     * Writes everything appended so far to disk (and fsyncs it if enabled) before returning.
+     * @throws IllegalStateException if the log failed (the records could not be written)
+     */
+    public void sync() {
+        writeLock.lock();
+        try {
+            checkFailure();
+            ByteBuffer full;
+            synchronized (this) {
+                // The spare buffer is always empty here, because writes are done under writeLock
+                full = active;
+                active = spare;
+                spare = full;
+            }
+            writeBuffer(full);
+            checkFailure();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Whether a write failed for good (see sync())
+    public boolean isFailed() {
+        return failure != null;
+    }
+
+    private void checkFailure() {
+        IOException e = failure;
+        if (e != null) {
+            throw new IllegalStateException("Write-ahead log failed, no further changes can be logged.", e);
+        }
+    }
+
+    /**
+     * Deletes the segments that only contain records with an LSN below the given one.
+     * Called after a snapshot covering those records has been written.
+     */
+    public void truncate(long beforeLsn) throws IOException {
+        writeLock.lock();
+        try {
+            List<Path> segments = listSegments(directory);
+            for (int i = 0; i + 1 < segments.size(); i++) {
+                if (firstLsn(segments.get(i + 1)) <= beforeLsn) {
+                    Files.deleteIfExists(segments.get(i));
+                }
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        flusherThread.interrupt();
+        try {
+            flusherThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure == null) {
+            sync();
+        }
+        writeLock.lock();
+        try {
+            try {
+                if (segment != null) {
+                    segment.close();
+                    segment = null;
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Flusher thread: periodically swaps the append buffer and writes it out
+    private void flushLoop() {
+        while (running) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(flushIntervalNanos);
+            } catch (InterruptedException e) {
+                break;
+            }
+            if (failure != null) {
+                break;  // Nothing can be written any more, append() and sync() report it
+            }
+            sync();
+        }
+    }
+
+    // Writes a buffer to the current segment and clears it. A failed attempt is cut off the segment (so no torn record stays in front of
+    // the retry); after the last one the log is marked failed and the buffer is kept. Caller holds writeLock.
+    private void writeBuffer(ByteBuffer buffer) {
+        if (buffer.position() == 0) {
+            return;
+        }
+        buffer.flip();
+        for (int attempt = 1; ; attempt++) {
+            long start = segmentBytes;
+            try {
+                if (segment == null || segmentBytes >= maxSegmentBytes) {
+                    openSegment(buffer.getLong(0));
+                    start = segmentBytes;
+                }
+                while (buffer.hasRemaining()) {
+                    segmentBytes += segment.write(buffer);
+                }
+                if (fsync) {
+                    segment.force(false);
+                }
+                buffer.clear();
+                return;
+            } catch (IOException e) {
+                buffer.position(0);
+                discardPartialWrite(start);
+                if (attempt >= MAX_WRITE_ATTEMPTS) {
+                    failure = e;
+                    logger.severe("Write-ahead log write failed " + attempt + " times, no further changes are accepted: " + e);
+                    return;
+                }
+                logger.warning("Write-ahead log write failed (attempt " + attempt + "), retrying: " + e);
+                try {
+                    TimeUnit.MILLISECONDS.sleep(RETRY_DELAY_MILLIS);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    // Truncates the current segment back to the given size after a failed write (the segment is reopened next time if that fails too)
+    private void discardPartialWrite(long size) {
+        if (segment == null) {
+            return;
+        }
+        try {
+            segment.truncate(size);
+            segmentBytes = size;
+        } catch (IOException e) {
+            try {
+                segment.close();
+            } catch (IOException ignored) {
+                // Already failed, the write error is the one reported
+            }
+            segment = null;
+        }
+    }
+
+    private void openSegment(long firstLsn) throws IOException {
+        if (segment != null) {
+            segment.force(false);
+            segment.close();
+        }
+        segment = FileChannel.open(directory.resolve(String.format("wal-%020d.log", firstLsn)),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        segmentBytes = segment.size();
+    }
+
+    /**
+     * Replays every valid record with an LSN of at least fromLsn, in LSN order.
+     * Reading a segment stops at the first torn or corrupted record.
+     * @return Number of records replayed
+     */
+    public static long replay(Path directory, long fromLsn, RecordVisitor visitor) throws IOException {
+        List<Path> segments = listSegments(directory);
+        CRC32 crc = new CRC32();
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE * 4096);
+        long count = 0;
+
+        for (int i = 0; i < segments.size(); i++) {
+            // Skip segments that end before fromLsn
+            if (i + 1 < segments.size() && firstLsn(segments.get(i + 1)) <= fromLsn) {
+                continue;
+            }
+            try (FileChannel channel = FileChannel.open(segments.get(i), StandardOpenOption.READ)) {
+                buffer.clear();
+                boolean valid = true;
+                while (valid && channel.read(buffer) > 0) {
+                    buffer.flip();
+                    while (buffer.remaining() >= RECORD_SIZE) {
+                        int start = buffer.position();
+                        crc.reset();
+                        crc.update(buffer.array(), start, CRC_OFFSET);
+                        if ((int) crc.getValue() != buffer.getInt(start + CRC_OFFSET)) {
+                            logger.warning("Torn or corrupted record in " + segments.get(i) + ", skipping the rest of the segment.");
+                            valid = false;
+                            break;
+                        }
+                        long lsn = buffer.getLong(start);
+                        if (lsn >= fromLsn) {
+                            visitor.onRecord(lsn, buffer.get(start + 40), buffer.getInt(start + 32), buffer.getInt(start + 36),
+                                    buffer.getLong(start + 8), buffer.getLong(start + 16), buffer.getLong(start + 24));
+                            count++;
+                        }
+                        buffer.position(start + RECORD_SIZE);
+                    }
+                    buffer.compact();
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Truncates the last segment after its last valid record, dropping a torn or corrupted tail left by a crash.
+     * @return The first LSN of the last segment (from its name), 0 if there is none
+     */
+    private static long repairLastSegment(Path directory) throws IOException {
+        List<Path> segments = listSegments(directory);
+        if (segments.isEmpty()) {
+            return 0;
+        }
+        Path last = segments.get(segments.size() - 1);
+        try (FileChannel channel = FileChannel.open(last, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            CRC32 crc = new CRC32();
+            ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE * 4096);
+            long valid = 0;
+            boolean torn = false;
+            while (!torn && channel.read(buffer) > 0) {
+                buffer.flip();
+                while (buffer.remaining() >= RECORD_SIZE) {
+                    int start = buffer.position();
+                    crc.reset();
+                    crc.update(buffer.array(), start, CRC_OFFSET);
+                    if ((int) crc.getValue() != buffer.getInt(start + CRC_OFFSET)) {
+                        torn = true;
+                        break;
+                    }
+                    valid += RECORD_SIZE;
+                    buffer.position(start + RECORD_SIZE);
+                }
+                buffer.compact();
+            }
+            if (valid < channel.size()) {
+                logger.warning("Cutting " + (channel.size() - valid) + " bytes of a torn record off " + last.getFileName());
+                channel.truncate(valid);
+                channel.force(true);
+            }
+        }
+        return firstLsn(last);
+    }
+
+    static List<Path> listSegments(Path directory) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return segments;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(p -> p.getFileName().toString().matches("wal-\\d{20}\\.log"))
+                 .sorted()
+                 .forEach(segments::add);
+        }
+        return segments;
+    }
+
+    private static long firstLsn(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring("wal-".length(), name.length() - ".log".length()));
+    }
+}
@@ -1,134 +1,173 @@
-package TransactionsSimulator;
-
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
-import java.util.logging.Logger;
-
-/**
- * BankAccount class represents a bank account with basic operations.
- * It uses a ReentrantLock to ensure thread-safe access to balance updates.
- */
-public class BankAccount {
-
-    // Logger for logging account activities
-    private static final Logger logger = Logger.getLogger(BankAccount.class.getName());
-
-    // Unique identifier for the account
-    private String accountId;
-
-    // Name of the bank associated with this account
-    private String bankName;
-
-    // Current balance of the account
-    private int balance;
-
-    // Lock to ensure thread-safe operations on balance
-    private final Lock lock = new ReentrantLock(); 
-
-    /**
-     * Constructor to create a new bank account.
-     * @param accountId Unique account ID
-     * @param bankName Name of the bank
-     */
-    public BankAccount(String accountId, String bankName) {
-        this.accountId = accountId;
-        this.bankName = bankName;
-        this.balance = 0;
-    }
-
-    public String getAccountId() {
-        return accountId;
-    }
-
-    public String getBankName() {
-        return bankName;
-    }
-
-    /**
-     * Gets the current account balance in a thread-safe way.
-     * @return Current balance
-     */
-    public int getBalance() {
-        lock.lock();
-        try {
-            return balance;
-        } finally {
-            lock.unlock();
-        }
-    }
-
-    /**
-     * Deposits the given amount into the account.
-     * Logs the transaction and uses locking to ensure safe access.
-     * @param amount Amount to deposit
-     */
-    public void deposit(int amount) {
-        lock.lock();
-        try {
-            balance += amount;
-            logger.info("Deposited: " + amount + " to account " + getAccountId());
-        } finally {
-            lock.unlock();
-        }
-    }
-
-    /**
-     * Withdraws money from the account based on a transaction.
-     * If insufficient balance, the transaction is marked as FAILED.
-     * @param transaction The transaction containing the amount to withdraw
-     */
-    public void withdraw(Transaction transaction) {
-        lock.lock();
-        try {
-            logger.info("Starting withdrawal of " + transaction.getAmount() + " from " + accountId);
-            if (balance >= transaction.getAmount()) {
-                balance -= transaction.getAmount();
-                logger.info("Withdrawal successful: " + transaction.getAmount() + " from account " + getAccountId());
-                transaction.setStatus(TransactionStatus.COMPLETED);
-            } else {
-                logger.warning("Insufficient funds: " + getAccountId() + " tried to withdraw " + transaction.getAmount() +
-                               " (Transaction: " + transaction.toString() + ")");
-                transaction.setStatus(TransactionStatus.FAILED);
-            }
-            logger.info("New balance for " + getAccountId() + ": " + balance);
-        } finally {
-            lock.unlock();
-        }
-    }
-
-    /**
-     * Transfers money from this account to another account.
-     * Logs and checks for sufficient funds.
-     * @param amount Amount to transfer
-     * @param targetAccount The recipient account
-     * @param transaction Transaction object for status tracking
-     */
-    public void transfer(int amount, BankAccount targetAccount, Transaction transaction) {
-        lock.lock();
-        try {
-            if (balance >= amount) {
-                balance -= amount;
-                targetAccount.deposit(amount);
-                logger.info("Transfer successful: " + amount + " from " + getAccountId() + " to " + targetAccount.getAccountId());
-            } else {
-                logger.warning("Insufficient funds for transfer: " + getAccountId() + " tried to send " + amount +
-                               " (Transaction: " + transaction.toString() + ")");
-                transaction.setStatus(TransactionStatus.FAILED);
-            }
-        } finally {
-            lock.unlock();
-        }
-    }
-
-    /**
-     * Resets the balance to 0. Used typically to reset the simulation.
-     */
-    public void resetBalance() {
-        lock.lock();
-        try {
-            balance = 0;
-        } finally {
-            lock.unlock();
-        }
-    }
-}
+package TransactionsSimulator;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * BankAccount class represents a bank account with basic operations.
+ * It uses a ReentrantLock to ensure thread-safe access to balance updates.
+ * Activities are reported through the EventLogger after the lock is released, so logging never extends the lock hold time.
+ * Transfers lock both accounts in a global order, so opposite transfers between the same accounts can't deadlock.
+ */
+public class BankAccount {
+
+    // Structured event logger for account activities (events are formatted on its own thread, after the lock is released)
+    private static final EventLogger events = EventLogger.global();
+
+    // Unique identifier for the account
+    private String accountId;
+
+    // Name of the bank associated with this account
+    private String bankName;
+
+    // Current balance of the account
+    private int balance;
+
+    // Lock to ensure thread-safe operations on balance
+    private final Lock lock = new ReentrantLock(); 
+
+    // Global lock order: every account gets the next number when created, transfers lock the lower one first
+    private static final AtomicLong nextLockOrder = new AtomicLong();
+    private final long lockOrder = nextLockOrder.getAndIncrement();
+
+    /**
+     * Constructor to create a new bank account.
+     * @param accountId Unique account ID
+     * @param bankName Name of the bank
+     */
+    public BankAccount(String accountId, String bankName) {
+        this.accountId = accountId;
+        this.bankName = bankName;
+        this.balance = 0;
+    }
+
+    public String getAccountId() {
+        return accountId;
+    }
+
+    public String getBankName() {
+        return bankName;
+    }
+
+    /**
+     * Gets the current account balance in a thread-safe way.
+     * @return Current balance
+     */
+    public int getBalance() {
+        lock.lock();
+        try {
+            return balance;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Deposits the given amount into the account.
+     * Uses locking to ensure safe access and reports the deposit as an event.
+     * @param amount Amount to deposit
+     */
+    public void deposit(int amount) {
+        int newBalance;
+        lock.lock();
+        try {
+            balance += amount;
+            newBalance = balance;
+        } finally {
+            lock.unlock();
+        }
+        events.log(LogEvent.DEPOSIT_COMPLETED, accountId, null, amount, newBalance);
+    }
+
+    /**
+     * Withdraws money from the account based on a transaction.
+     * If insufficient balance, the transaction is marked as FAILED.
+     * @param transaction The transaction containing the amount to withdraw
+     */
+    public void withdraw(Transaction transaction) {
+        int amount = transaction.getAmount();
+        boolean completed;
+        int newBalance;
+        lock.lock();
+        try {
+            completed = balance >= amount;
+            if (completed) {
+                balance -= amount;
+                transaction.setStatus(TransactionStatus.COMPLETED);
+            } else {
+                transaction.setStatus(TransactionStatus.FAILED);
+            }
+            newBalance = balance;
+        } finally {
+            lock.unlock();
+        }
+        events.log(completed ? LogEvent.WITHDRAWAL_COMPLETED : LogEvent.INSUFFICIENT_FUNDS,
+                accountId, TransactionType.WITHDRAWAL, amount, newBalance);
+    }
+
+    /**
+     * Transfers money from this account to another account.
+     * Checks for sufficient funds and reports the outcome as an event.
+     * Both locks are taken in the global lock order (not source first), so a transfer A->B
+     * and a transfer B->A running at the same time can't deadlock each other.
+     * @param amount Amount to transfer
+     * @param targetAccount The recipient account
+     * @param transaction Transaction object for status tracking
+     */
+    public void transfer(int amount, BankAccount targetAccount, Transaction transaction) {
+        BankAccount first = lockOrder <= targetAccount.lockOrder ? this : targetAccount;
+        BankAccount second = first == this ? targetAccount : this;
+
+        boolean completed;
+        int newBalance;
+        first.lock.lock();
+        try {
+            second.lock.lock();
+            try {
+                completed = balance >= amount;
+                if (completed) {
+                    balance -= amount;
+                    targetAccount.balance += amount;
+                } else {
+                    transaction.setStatus(TransactionStatus.FAILED);
+                }
+                newBalance = balance;
+            } finally {
+                second.lock.unlock();
+            }
+        } finally {
+            first.lock.unlock();
+        }
+        if (completed) {
+            events.log(LogEvent.TRANSFER_COMPLETED, accountId, targetAccount.accountId, amount, 0);
+        } else {
+            events.log(LogEvent.INSUFFICIENT_FUNDS, accountId, TransactionType.TRANSFER, amount, newBalance);
+        }
+    }
+
+    /**
+     * Sets the balance to a previously recorded value (e.g. when replaying a journal).
+     * @param balance The restored balance
+     */
+    public void restoreBalance(int balance) {
+        lock.lock();
+        try {
+            this.balance = balance;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Resets the balance to 0. Used typically to reset the simulation.
+     */
+    public void resetBalance() {
+        lock.lock();
+        try {
+            balance = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
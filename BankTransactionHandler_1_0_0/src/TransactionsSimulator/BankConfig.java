@@ -0,0 +1,202 @@
+package TransactionsSimulator;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+/*
+ * The BankConfig class holds the banks and accounts of the simulation and how they are served, read at startup from a properties file
+ * (src/banks.properties) instead of being hard-coded in BankSimulator:
+ *
+ *   accounts=Account_1:OTP:1000, ...   Accounts as <id>:<bank>:<deposit at the start of every cycle>. The banks are the ones named here.
+ *                                      The order is the order of the account indices (write-ahead log, journal), append new accounts at the end.
+ *   queueCapacity=16                   Slots of every bank's TransactionRingBuffer
+ *   queueBatch=8                       Largest batch a bank lane claims from its ring at once
+ *   schedulerThreads=0                 Threads of the BankScheduler shared by all banks, 0 for one per core
+ *   quantum=64                         Transactions a bank processes before it yields its thread to the other banks
+ *   lanes=1                            Most threads a bank can occupy at once (1 keeps the per-account order)
+ *   lanes.<bank>=N                     The same limit for one bank
+ */
+
+public class BankConfig {
+
+    // One configured account, in registration order
+    public record AccountSpec(String accountId, String bankName, long cycleDeposit) {
+    }
+
+    private final List<AccountSpec> accounts = new ArrayList<>();
+    private int queueCapacity = 16;
+    private int queueBatch = 8;
+    private int schedulerThreads = 0;
+    private int quantum = BankScheduler.DEFAULT_QUANTUM;
+    private int lanes = 1;
+    private final Map<String, Integer> bankLanes = new LinkedHashMap<>();
+
+    /**
+     * The accounts the simulator always had: Account_1 (OTP, 1000), Account_2 (KH, 1000) and Account_3 (OTP, 501).
+     */
+    public static BankConfig defaults() {
+        BankConfig config = new BankConfig();
+        config.accounts.add(new AccountSpec("Account_1", "OTP", 1000));
+        config.accounts.add(new AccountSpec("Account_2", "KH", 1000));
+        config.accounts.add(new AccountSpec("Account_3", "OTP", 501));
+        return config;
+    }
+
+    /**
+     * Reads the configuration from a properties file, or returns the defaults if there is no such file.
+     * @throws IllegalArgumentException If a key is unknown or a value is invalid
+     */
+    public static BankConfig load(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return defaults();
+        }
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file)) {
+            properties.load(reader);
+        }
+        return fromProperties(properties);
+    }
+
+    /**
+     * Reads the configuration from properties, the missing keys keep their defaults (the accounts too).
+     * @throws IllegalArgumentException If a key is unknown or a value is invalid
+     */
+    public static BankConfig fromProperties(Properties properties) {
+        BankConfig config = properties.containsKey("accounts") ? new BankConfig() : defaults();
+        for (String key : properties.stringPropertyNames()) {
+            String value = properties.getProperty(key).trim();
+            try {
+                switch (key) {
+                    case "accounts" -> config.accounts.addAll(parseAccounts(value));
+                    case "queueCapacity" -> config.queueCapacity = Integer.parseInt(value);
+                    case "queueBatch" -> config.queueBatch = Integer.parseInt(value);
+                    case "schedulerThreads" -> config.schedulerThreads = Integer.parseInt(value);
+                    case "quantum" -> config.quantum = Integer.parseInt(value);
+                    case "lanes" -> config.lanes = Integer.parseInt(value);
+                    default -> {
+                        if (!key.startsWith("lanes.")) {
+                            throw new IllegalArgumentException("Unknown bank setting: " + key);
+                        }
+                        config.bankLanes.put(key.substring("lanes.".length()), Integer.parseInt(value));
+                    }
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid value for " + key + ": " + value, e);
+            }
+        }
+        config.validate();
+        return config;
+    }
+
+    // id:bank:deposit, separated by commas
+    private static List<AccountSpec> parseAccounts(String value) {
+        List<AccountSpec> accounts = new ArrayList<>();
+        for (String entry : value.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            String[] parts = entry.split(":");
+            if (parts.length != 3 || parts[0].isBlank() || parts[1].isBlank()) {
+                throw new IllegalArgumentException("Expected account:bank:deposit, got: " + entry.trim());
+            }
+            accounts.add(new AccountSpec(parts[0].trim(), parts[1].trim(), Long.parseLong(parts[2].trim())));
+        }
+        return accounts;
+    }
+
+    private void validate() {
+        if (accounts.isEmpty()) {
+            throw new IllegalArgumentException("At least one account is needed.");
+        }
+        Set<String> ids = new HashSet<>();
+        Set<String> banks = new HashSet<>();
+        for (AccountSpec account : accounts) {
+            if (!ids.add(account.accountId())) {
+                throw new IllegalArgumentException("Account is configured twice: " + account.accountId());
+            }
+            if (account.cycleDeposit() < 0) {
+                throw new IllegalArgumentException("Deposit of " + account.accountId() + " must not be negative.");
+            }
+            banks.add(account.bankName());
+        }
+        if (queueCapacity <= 0 || queueBatch <= 0 || quantum <= 0) {
+            throw new IllegalArgumentException("Queue capacity, queue batch and quantum must be positive.");
+        }
+        if (schedulerThreads < 0) {
+            throw new IllegalArgumentException("Scheduler threads must not be negative.");
+        }
+        if (lanes <= 0) {
+            throw new IllegalArgumentException("Lanes must be positive.");
+        }
+        bankLanes.forEach((bank, limit) -> {
+            if (!banks.contains(bank)) {
+                throw new IllegalArgumentException("Lane limit of an unknown bank: " + bank);
+            }
+            if (limit <= 0) {
+                throw new IllegalArgumentException("Lanes of " + bank + " must be positive.");
+            }
+        });
+    }
+
+    /**
+     * Registers the accounts, in their configured order, into a new registry (the banks get their indices in order of first appearance).
+     */
+    public AccountRegistry newRegistry() {
+        AccountRegistry registry = new AccountRegistry(accounts.size(), 16);
+        for (AccountSpec account : accounts) {
+            registry.register(account.accountId(), account.bankName());
+        }
+        return registry;
+    }
+
+    /**
+     * Creates the scheduler shared by all banks, with the configured threads, quantum and lane limits.
+     */
+    public BankScheduler newScheduler() {
+        int threads = schedulerThreads > 0 ? schedulerThreads : Runtime.getRuntime().availableProcessors();
+        BankScheduler scheduler = new BankScheduler(threads, quantum, lanes);
+        bankLanes.forEach(scheduler::setLaneLimit);
+        return scheduler;
+    }
+
+    public List<AccountSpec> getAccounts() {
+        return Collections.unmodifiableList(accounts);
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public int getQueueBatch() {
+        return queueBatch;
+    }
+
+    public int getSchedulerThreads() {
+        return schedulerThreads;
+    }
+
+    public int getQuantum() {
+        return quantum;
+    }
+
+    public int getLanes() {
+        return lanes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("BankConfig[%d accounts, queue %d/%d, scheduler threads %s, quantum %d, lanes %d%s]",
+                accounts.size(), queueCapacity, queueBatch, schedulerThreads > 0 ? schedulerThreads : "cores", quantum, lanes,
+                bankLanes.isEmpty() ? "" : " " + bankLanes);
+    }
+}
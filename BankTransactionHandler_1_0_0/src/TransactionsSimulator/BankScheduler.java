@@ -0,0 +1,279 @@
+package TransactionsSimulator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/*
+ * The BankScheduler class serves the ring buffers of any number of banks from one shared work-stealing ForkJoinPool, so the number of
+ * threads follows the cores instead of the banks: an idle bank holds no thread, and the threads a quiet bank doesn't need go to a busy one.
+ *
+ * Every registered bank has one or more lanes, each a non-blocking poller of the bank's ring. A lane only runs while its ring has work:
+ * the ring's publish listener submits an idle lane to the pool, and the lane goes idle again once it finds the ring empty.
+ *  - fairness: a lane processes at most a quantum of transactions per turn, then goes to the back of one run queue shared by all banks,
+ *    so a bank with a deep backlog takes turns with the others instead of holding a thread until its ring is empty. (The pool's own
+ *    queues are not enough: a worker runs the tasks it submitted itself before looking at anyone else's, so every pool task just runs the
+ *    lane at the head of the run queue.)
+ *  - isolation: the lanes of a bank are the most threads it can occupy at once, whatever its backlog (its ring bounds its queue)
+ * With one lane a bank's transactions run one at a time in ring order, which keeps the per-account order (like ExecutionMode.PARTITIONED);
+ * with more lanes they run in parallel in any order (like ExecutionMode.POOL).
+ *
+ * A lane is scheduled with a CAS on its state, so a burst of publishes submits it once. The publisher makes its transaction visible before
+ * it reads the state, and a lane marks itself idle before it reads the ring a last time, so a transaction is never left without a lane.
+ */
+
+public class BankScheduler {
+
+    private static final Logger logger = Logger.getLogger(BankScheduler.class.getName());
+
+    public static final int DEFAULT_QUANTUM = 64;
+
+    private static final int IDLE = 0;
+    private static final int SCHEDULED = 1;
+
+    private final ForkJoinPool pool;
+    private final int quantum;
+    private final int defaultLanes;
+    private final Map<String, Integer> laneLimits = new ConcurrentHashMap<>();
+    private final List<Registration> registrations = new CopyOnWriteArrayList<>();
+    private final ConcurrentLinkedQueue<Registration.Lane> runQueue = new ConcurrentLinkedQueue<>();  // Lanes waiting for a turn, FIFO
+
+    // Pool task: one turn of the lane at the head of the run queue (there is one task per queued lane)
+    private final Runnable nextTurn = () -> {
+        Registration.Lane lane = runQueue.poll();
+        if (lane != null) {
+            lane.run();
+        }
+    };
+
+    /**
+     * Creates a scheduler with one thread per core, the default quantum and one lane per bank.
+     */
+    public BankScheduler() {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_QUANTUM, 1);
+    }
+
+    /**
+     * @param parallelism Threads of the shared pool
+     * @param quantum Most transactions a lane processes per turn
+     * @param defaultLanes Most threads a bank can occupy at once, unless setLaneLimit() says otherwise
+     */
+    public BankScheduler(int parallelism, int quantum, int defaultLanes) {
+        if (parallelism <= 0 || quantum <= 0 || defaultLanes <= 0) {
+            throw new IllegalArgumentException("Parallelism, quantum and lanes must be positive.");
+        }
+        this.quantum = quantum;
+        this.defaultLanes = defaultLanes;
+        this.pool = new ForkJoinPool(parallelism, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("Bank-Scheduler-" + thread.getPoolIndex());
+            return thread;
+        }, (thread, e) -> logger.severe("Bank lane failed on " + thread.getName() + ": " + e), true);
+    }
+
+    /**
+     * Sets the most threads the given bank can occupy at once. Call it before the bank is registered.
+     */
+    public void setLaneLimit(String bankName, int lanes) {
+        if (lanes <= 0) {
+            throw new IllegalArgumentException("Lanes must be positive.");
+        }
+        laneLimits.put(bankName, lanes);
+    }
+
+    /**
+     * Starts serving a bank's ring: from now on everything published into it is passed to the handler on the pool's threads.
+     * The ring's publish listener is taken over, and its producer must not be one of the pool's threads (a full ring would block it).
+     * @return The registration, to stop serving the bank and to read its counters
+     */
+    public Registration register(String bankName, TransactionRingBuffer ring, TransactionRingBuffer.BatchHandler handler) {
+        Registration registration = new Registration(bankName, ring, handler, laneLimits.getOrDefault(bankName, defaultLanes));
+        registrations.add(registration);
+        ring.setPublishListener(registration::signal);
+        registration.signal();  // Transactions published before the registration
+        return registration;
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    public int getQuantum() {
+        return quantum;
+    }
+
+    // Registered banks, in registration order (live, read-only view)
+    public List<Registration> getRegistrations() {
+        return Collections.unmodifiableList(registrations);
+    }
+
+    // Number of lanes waiting for a turn
+    public int getQueuedTurns() {
+        return runQueue.size();
+    }
+
+    /**
+     * Stops the pool once the lanes already submitted have run; call it after the banks' processors were stopped.
+     */
+    public void close() {
+        pool.shutdown();
+        try {
+            if (!pool.awaitTermination(60, TimeUnit.SECONDS)) {
+                pool.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            pool.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * A bank served by the scheduler.
+     */
+    public final class Registration {
+
+        private final String bankName;
+        private final TransactionRingBuffer ring;
+        private final TransactionRingBuffer.BatchHandler handler;
+        private final Lane[] lanes;
+        private final LongAdder processed = new LongAdder();
+        private final LongAdder turns = new LongAdder();
+        private final LongAdder preemptions = new LongAdder();
+
+        private Registration(String bankName, TransactionRingBuffer ring, TransactionRingBuffer.BatchHandler handler, int laneCount) {
+            this.bankName = bankName;
+            this.ring = ring;
+            this.handler = handler;
+            this.lanes = new Lane[laneCount];
+            for (int i = 0; i < laneCount; i++) {
+                lanes[i] = new Lane(ring.newPoller());
+            }
+        }
+
+        // Publish listener: wakes an idle lane (nothing to do if they are all scheduled, they will see the transaction)
+        private void signal() {
+            for (Lane lane : lanes) {
+                if (lane.schedule()) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Waits until everything published into the ring has been processed, then stops listening to it.
+         * Halt the ring first, otherwise new transactions can keep it busy.
+         */
+        public void close() throws InterruptedException {
+            while (ring.size() > 0 || isRunning()) {
+                Thread.sleep(1);
+            }
+            ring.setPublishListener(null);
+            registrations.remove(this);
+        }
+
+        private boolean isRunning() {
+            for (Lane lane : lanes) {
+                if (lane.state.get() != IDLE) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        public String getBankName() {
+            return bankName;
+        }
+
+        public int getLaneCount() {
+            return lanes.length;
+        }
+
+        // Transactions processed so far
+        public long getProcessed() {
+            return processed.sum();
+        }
+
+        // Turns the lanes had on the pool
+        public long getTurns() {
+            return turns.sum();
+        }
+
+        // Turns that ended with the quantum used up and transactions still waiting (the bank yielded to the others)
+        public long getPreemptions() {
+            return preemptions.sum();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d processed in %d turns (%d preempted), %d waiting, %d lane(s)",
+                    bankName, getProcessed(), getTurns(), getPreemptions(), ring.size(), lanes.length);
+        }
+
+        // One turn: at most a quantum of transactions, then back into the queue or idle
+        private final class Lane implements Runnable {
+
+            private final TransactionRingBuffer.Poller poller;
+            private final AtomicInteger state = new AtomicInteger(IDLE);
+
+            private Lane(TransactionRingBuffer.Poller poller) {
+                this.poller = poller;
+            }
+
+            // Submits the lane if it is idle, returns false if it was already scheduled
+            private boolean schedule() {
+                if (state.get() != IDLE || !state.compareAndSet(IDLE, SCHEDULED)) {
+                    return false;
+                }
+                enqueue();
+                return true;
+            }
+
+            @Override
+            public void run() {
+                int done = 0;
+                int count;
+                while (done < quantum && (count = poller.poll(handler, quantum - done)) > 0) {
+                    done += count;
+                }
+                processed.add(done);
+                turns.increment();
+                if (done < quantum) {
+                    // The ring was empty. Go idle, unless a transaction was published before the publisher could see the lane idle.
+                    state.set(IDLE);
+                    if (ring.size() == 0 || !state.compareAndSet(IDLE, SCHEDULED)) {
+                        return;
+                    }
+                } else if (ring.size() > 0) {
+                    preemptions.increment();
+                    signal();  // A deep backlog may use the bank's other lanes
+                }
+                enqueue();  // Behind the lanes of the other banks
+            }
+
+            private void enqueue() {
+                runQueue.offer(this);
+                pool.execute(nextTurn);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        List<String> banks = new ArrayList<>();
+        for (Registration registration : registrations) {
+            banks.add(registration.toString());
+        }
+        return "BankScheduler[" + pool.getParallelism() + " threads, quantum " + quantum + ", " + getQueuedTurns() + " turns queued]\n  "
+                + String.join("\n  ", banks);
+    }
+}
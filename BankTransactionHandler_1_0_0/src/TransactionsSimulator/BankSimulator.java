@@ -1,128 +1,253 @@
-package TransactionsSimulator;
-import java.util.*;
-import java.util.concurrent.*;
-
-public class BankSimulator {
-
-    private final Map<String, BankAccount> accounts;
-    private final Map<String, BlockingQueue<Transaction>> bankQueues;
-    private final List<String> accountIds;
-    private final TransactionGenerator generator;
-    private final BlockingQueue<Integer> balanceQueue;
-
-    public BankSimulator() {
-        // 1. Initialize accounts
-        accounts = new HashMap<>();
-        accounts.put("Account_1", new BankAccount("Account_1", "OTP"));
-        accounts.put("Account_2", new BankAccount("Account_2", "KH"));
-        accounts.put("Account_3", new BankAccount("Account_3", "OTP"));
-
-        // 2. Initialize bank queues (per bank)
-        bankQueues = new HashMap<>();
-        bankQueues.put("OTP", new LinkedBlockingQueue<>(10));
-        bankQueues.put("KH", new LinkedBlockingQueue<>(10));
-        
-        /*
-         * WATCH OUT HERE!
-         *  
-         * 'bankQueues.put("bank_name", new LinkedBlockingQueue<>(VALUE));'
-         * 
-         * If not specifying a value that's can easily lead to memory problems if you put too many items in it and don't take out it fast enough
-         */
-
-        // 3. Initialize transaction generator with account IDs
-        accountIds = new ArrayList<>(accounts.keySet());
-        generator = new TransactionGenerator(accountIds);
-
-        // 4. Queue for account balances (used externally)
-        balanceQueue = new LinkedBlockingQueue<>();
-    }
-
-    // Getter for the balance queue
-    public BlockingQueue<Integer> getBalanceQueue() {
-        return balanceQueue;
-    }
-
-    // Starts the simulation
-    public BlockingQueue<Integer> runSimulation() throws InterruptedException {
-        // 1. Start bank transaction processors in separate threads
-        BankTransactionProcessor otpProcessor = new BankTransactionProcessor(bankQueues.get("OTP"), accounts, "OTP");
-        BankTransactionProcessor khProcessor = new BankTransactionProcessor(bankQueues.get("KH"), accounts, "KH");
-
-        Thread otpThread = new Thread(otpProcessor, "OTP-Thread");
-        Thread khThread = new Thread(khProcessor, "KH-Thread");
-        otpThread.start();
-        khThread.start();
-  
-        while (true) {
-        	
-        	/*
-             * Time transaction example. Wait a certain amount of time for transactions to arrive.
-             */
-        	
-        	
-            // 2. Deposit base amount to all accounts at the start of each cycle
-            accounts.get("Account_1").deposit(1000);
-            accounts.get("Account_2").deposit(1000);
-            accounts.get("Account_3").deposit(501);
-            
-            System.out.println("\n--- New simulation cycle started ---\n");
-
-            // 3. Generate 5 transactions with a 1-second delay between each
-            for (int i = 0; i < 5; i++) {
-                generator.generateRandomTransaction();
-                Thread.sleep(1000);
-            }
-
-            // 4. Retrieve and print generated transactions
-            List<Transaction> transactions = generator.retrieveAndClearBuffer();
-            System.out.println("Generated transactions:");
-            for (Transaction tx : transactions) {
-                System.out.println(tx);
-            }
-
-            // 5. Put transactions into the appropriate bank queues
-            for (Transaction tx : transactions) {
-                try {
-                    String bankName = accounts.get(tx.getAccountId()).getBankName();
-                    bankQueues.get(bankName).put(tx);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    e.printStackTrace();
-                }
-            }
-
-            // 6. Print waiting transactions for each bank
-            printWaitingTransactions("OTP", bankQueues.get("OTP"));
-            printWaitingTransactions("KH", bankQueues.get("KH"));
-
-            // 7. Pause to allow transaction processing
-            Thread.sleep(2000);
-
-            // 8. Print current balances and store them in the balance queue
-            System.out.println("Current balances:");
-            for (BankAccount account : accounts.values()) {
-                System.out.println(account.getAccountId() + " balance: " + account.getBalance());
-                balanceQueue.put((int) account.getBalance());
-
-                // Reset the balance for the next cycle
-                
-                // Or here we can apply the 'Percentage' example (Mentioned in ThirdPartyMonitor.java) or other calculate. 
-                account.resetBalance();
-            }
-        }
-    }
-
-    // Helper function to print pending transactions in a thread-safe way
-    public static synchronized void printWaitingTransactions(String bankName, BlockingQueue<Transaction> queue) {
-        String purple = "\033[0;35m";  // Purple color
-        String reset = "\033[0m";      // Reset color
-        System.out.println("\nPending transactions at bank " + bankName + ":");
-
-        synchronized (queue) {
-            for (Transaction tx : queue) {
-                System.out.println(purple + tx + reset);  // Print transaction in purple
-            }
-        }
-    }
-}
+package TransactionsSimulator;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+public class BankSimulator {
+
+    private final BankConfig config;  // Banks, accounts and how they are served
+    private final AccountRegistry registry;  // Account IDs and banks interned to dense indices
+    private final StripedAccountTable balances;  // Balances indexed by account index
+    private final List<TransactionRingBuffer> bankQueues;  // Ring buffer queues indexed by bank index
+    private final List<AdmissionController> admission = new ArrayList<>();  // Admission control of the queues, indexed by bank index
+    private final List<String> accountIds;
+    private final TransactionGenerator generator;
+    private final BalanceSnapshotChannel balanceChannel;  // Per-account balance snapshots for the GUI and accounting consumers
+    private final long[] cycleDeposits;  // Deposit of every account at the start of a cycle, indexed by account index
+
+    // Serves the queues of all banks on a thread per core (created by runSimulation())
+    private BankScheduler scheduler;
+
+    // Recent transactions of every bank for account history and time range queries (64 MB, older rows go to src/store/)
+    private final TransactionStore store = new TransactionStore(64L * 1024 * 1024, 1_000_000_000L, Paths.get("src/store/"));
+
+    // Sliding and tumbling window statistics per bank and account, updated as the transactions complete
+    private final TransactionAnalytics analytics = new TransactionAnalytics();
+
+    // Per-bank metrics, published over JMX and printed every 30 seconds
+    private final List<TransactionMetrics> metrics = new ArrayList<>();
+    private MetricsReporter metricsReporter;
+
+    // Crash recovery of the balances (only set once enableDurability() was called)
+    private BalanceWriteAheadLog wal;
+    private BalanceSnapshotter snapshotter;
+
+    // Simulates the three accounts of BankConfig.defaults()
+    public BankSimulator() {
+        this(BankConfig.defaults());
+    }
+
+    public BankSimulator(BankConfig config) {
+        this.config = config;
+
+        // 1. Initialize accounts in their configured order (interned once to dense indices, the balances live in one long[])
+        registry = config.newRegistry();
+        balances = new StripedAccountTable(registry.size());
+        cycleDeposits = new long[registry.size()];
+        for (BankConfig.AccountSpec account : config.getAccounts()) {
+            cycleDeposits[registry.indexOf(account.accountId())] = account.cycleDeposit();
+        }
+
+        // 2. Initialize bank queues (per bank, in bank index order)
+        bankQueues = new ArrayList<>();
+        for (int bank = 0; bank < registry.bankCount(); bank++) {
+            bankQueues.add(new TransactionRingBuffer(config.getQueueCapacity(), config.getQueueBatch(), WaitStrategy.PARK));
+        }
+        
+        /*
+         * WATCH OUT HERE!
+         *  
+         * 'new TransactionRingBuffer(CAPACITY, BATCH, WAIT_STRATEGY)'
+         * 
+         * The ring is preallocated, so it is always bounded: a full ring blocks the producer until the workers catch up.
+         * The banks have no waiting workers: the shared BankScheduler only runs a bank while its ring has work, so the wait strategy
+         * only matters to the producer.
+         * 
+         * The producer never puts directly: an AdmissionController per bank keeps a slow bank from blocking the others (see setAdmissionPolicy).
+         */
+        setAdmissionPolicy(AdmissionPolicy.SPILL);
+
+        // 3. Initialize transaction generator with account IDs
+        accountIds = new ArrayList<>(registry.accountIds());
+        generator = new TransactionGenerator(accountIds);
+
+        // 4. Channel of the account balances (used externally), bounded whatever the consumers do
+        balanceChannel = new BalanceSnapshotChannel(registry.size());
+    }
+
+    /**
+     * Restores the account balances from the latest snapshot and the write-ahead log tail found in the directory,
+     * then logs every further balance change and takes a snapshot every 10 seconds.
+     * Call it before runSimulation().
+     * @param directory Directory of the write-ahead log and the snapshots
+     */
+    public void enableDurability(Path directory) throws IOException {
+        BalanceSnapshotter.recover(directory, directory, balances);
+
+        wal = new BalanceWriteAheadLog(directory);
+        balances.attachWriteAheadLog(wal);
+        snapshotter = new BalanceSnapshotter(directory, wal, balances);
+        snapshotter.snapshot();
+        snapshotter.start(10_000);
+
+        // Write out the buffered log records on a normal exit
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            snapshotter.close();
+            wal.close();
+        }, "Durability-Shutdown-Thread"));
+    }
+
+    /**
+     * Selects what happens to a transaction whose bank queue is full: wait at most 100 ms (BLOCK), fail it (REJECT) or park it in an
+     * overflow buffer of 1024 (SPILL, the default). Call it before runSimulation().
+     */
+    public void setAdmissionPolicy(AdmissionPolicy policy) {
+        admission.clear();
+        for (int bank = 0; bank < bankQueues.size(); bank++) {
+            admission.add(new AdmissionController(bankQueues.get(bank), registry.bankName(bank), policy));
+        }
+    }
+
+    // Getter for the balance channel
+    public BalanceSnapshotChannel getBalanceChannel() {
+        return balanceChannel;
+    }
+
+    // Getter for the store of the recent transactions
+    public TransactionStore getTransactionStore() {
+        return store;
+    }
+
+    // Getter for the windowed statistics
+    public TransactionAnalytics getAnalytics() {
+        return analytics;
+    }
+
+    // Getter for the scheduler serving the banks, null before runSimulation()
+    public BankScheduler getScheduler() {
+        return scheduler;
+    }
+
+    // Starts the simulation (runs until interrupted)
+    public void runSimulation() throws InterruptedException {
+        // 1. Start a processor per configured bank, all of them served by one scheduler with a thread per core (not per bank).
+        // One lane per bank runs its transactions in ring order, so a withdrawal never overtakes the deposit generated before it.
+        scheduler = config.newScheduler();
+        for (int bank = 0; bank < registry.bankCount(); bank++) {
+            String bankName = registry.bankName(bank);
+            BankTransactionProcessor processor = new BankTransactionProcessor(bankQueues.get(bank), registry, balances, bankName);
+            attachJournal(processor, bankName);
+            processor.setTransactionStore(store);
+            processor.setAnalytics(analytics);
+            attachMetrics(processor, bankName);
+            processor.setScheduler(scheduler);
+            processor.run();  // Registers the bank's queue with the scheduler and returns
+        }
+        metricsReporter = new MetricsReporter(metrics, 30_000, System.out);
+        System.out.println(registry.size() + " accounts in " + registry.bankCount() + " banks on " + scheduler.getParallelism()
+                + " scheduler threads");
+  
+        long cycle = 0;
+        while (true) {
+            cycle++;
+        	
+        	/*
+             * Time transaction example. Wait a certain amount of time for transactions to arrive.
+             */
+        	
+        	
+            // 2. Deposit the configured base amount to all accounts at the start of each cycle
+            for (int account = 0; account < cycleDeposits.length; account++) {
+                if (cycleDeposits[account] > 0) {
+                    balances.deposit(account, cycleDeposits[account]);
+                }
+            }
+            
+            System.out.println("\n--- New simulation cycle started ---\n");
+
+            // 3. Generate 5 transactions with a 1-second delay between each
+            for (int i = 0; i < 5; i++) {
+                generator.generateRandomTransaction();
+                Thread.sleep(1000);
+            }
+
+            // 4. Retrieve and print generated transactions
+            List<Transaction> transactions = generator.retrieveAndClearBuffer();
+            System.out.println("Generated transactions:");
+            for (Transaction tx : transactions) {
+                System.out.println(tx);
+            }
+
+            // 5. Admit transactions into the appropriate bank queues (a full queue only holds up its own bank's transactions)
+            for (Transaction tx : transactions) {
+                try {
+                    int account = registry.indexOf(tx.getAccountId());
+                    admission.get(registry.bankOf(account)).admit(tx);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    e.printStackTrace();
+                }
+            }
+
+            // 6. Print waiting transactions for each bank
+            for (int bank = 0; bank < bankQueues.size(); bank++) {
+                printWaitingTransactions(registry.bankName(bank), bankQueues.get(bank).pending());
+            }
+
+            // 7. Pause to allow transaction processing, publishing the spilled transactions as the queues drain
+            for (int i = 0; i < 20; i++) {
+                Thread.sleep(100);
+                for (AdmissionController controller : admission) {
+                    controller.drainSpill();
+                }
+            }
+
+            // 8. Print current balances and publish them on the balance channel
+            System.out.println("Current balances:");
+            for (int account = 0; account < registry.size(); account++) {
+                long balance = balances.getBalance(account);
+                System.out.println(registry.accountId(account) + " balance: " + balance);
+                balanceChannel.publish(account, registry.accountId(account), registry.bankName(registry.bankOf(account)), balance, cycle);
+
+                // Reset the balance for the next cycle
+                
+                // Or here we can apply a percentage fee (ComplianceRules.percentageFee, set on the processors) or other calculate. 
+                balances.resetBalance(account);
+            }
+
+            // 9. Windowed statistics, read without stopping the processors
+            System.out.print(analytics.format());
+        }
+    }
+
+    // Gives the processor a binary journal under src/journal/ (the JSON export keeps working if it can't be opened)
+    private void attachJournal(BankTransactionProcessor processor, String bankName) {
+        Path journalDir = Paths.get("src/journal/");
+        try {
+            processor.setJournal(new TransactionJournal(journalDir, bankName));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Gives the processor its stage metrics and publishes them as a JMX MBean
+    private void attachMetrics(BankTransactionProcessor processor, String bankName) {
+        TransactionMetrics bankMetrics = new TransactionMetrics(bankName);
+        processor.setMetrics(bankMetrics);
+        admission.get(registry.bankIndexOf(bankName)).setMetrics(bankMetrics);
+        bankMetrics.register();
+        metrics.add(bankMetrics);
+    }
+
+    // Helper function to print pending transactions in a thread-safe way
+    public static synchronized void printWaitingTransactions(String bankName, Collection<Transaction> pending) {
+        String purple = "\033[0;35m";  // Purple color
+        String reset = "\033[0m";      // Reset color
+        System.out.println("\nPending transactions at bank " + bankName + ":");
+
+        for (Transaction tx : pending) {
+            System.out.println(purple + tx + reset);  // Print transaction in purple
+        }
+    }
+}
@@ -1,101 +1,578 @@
-package TransactionsSimulator;
-
-import java.util.Map;
-import java.util.concurrent.*;
-import java.util.logging.Logger;
-
-import ThirdParticipante.ThirdPartyMonitor;
-
-/*
- * The BankTransactionProcessor class is responsible for processing banking transactions in a separate thread. 
- * It uses a thread pool (ExecutorService) to handle transactions concurrently. Each transaction is monitored by a third-party system before being 
- * applied to the appropriate bank account, and successful transactions are exported for logging or audit purposes.
- */
-
-public class BankTransactionProcessor implements Runnable {
-
-    private static final Logger logger = Logger.getLogger(BankTransactionProcessor.class.getName());
-
-    private BlockingQueue<Transaction> transactionQueue;
-    private Map<String, BankAccount> accounts;
-    private String bankName;
-    private volatile boolean stopRequested = false;
-
-    private ExecutorService executor;  // Thread pool for processing transactions
-    private TransactionExporter exporter;  // Handles transaction export (e.g. to file, DB)
-
-    public BankTransactionProcessor(BlockingQueue<Transaction> transactionQueue, Map<String, BankAccount> accounts, String bankName) {
-        this.transactionQueue = transactionQueue;
-        this.accounts = accounts;
-        this.bankName = bankName;
-        this.executor = Executors.newFixedThreadPool(4);  // Create a thread pool with 4 threads
-        this.exporter = new TransactionExporter();        // Initialize the exporter
-    }
-
-    @Override
-    public void run() {
-        try {
-            while (!stopRequested) {
-                // Continuously take transactions from the queue and process them
-                Transaction transaction = transactionQueue.take();
-                System.out.println("Transaction dequeued and will be processed: " + transaction);
-                processTransaction(transaction);
-                System.out.println("Transaction processed: " + transaction);
-            }
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();  // Restore interrupt status
-        }
-    }
-
-    // Gracefully stop processing and shut down thread pool
-    public void stop() {
-        stopRequested = true;
-        executor.shutdown();  // Initiate shutdown of the thread pool
-        try {
-            if (!executor.awaitTermination(60, TimeUnit.SECONDS)) {
-                executor.shutdownNow();  // Force shutdown if not finished in time
-            }
-        } catch (InterruptedException e) {
-            executor.shutdownNow();
-            Thread.currentThread().interrupt();
-        }
-    }
-
-    // Submits the transaction to be processed by one of the thread pool threads
-    public void processTransaction(Transaction transaction) {
-        executor.submit(() -> {
-            BankAccount account = accounts.get(transaction.getAccountId());
-            if (account != null) {
-
-                // Monitor and validate the transaction using a third-party monitor
-                ThirdPartyMonitor thirdPartyMonitor = new ThirdPartyMonitor();
-                thirdPartyMonitor.monitorTransaction(transaction);
-
-                // If transaction is valid and completed, apply it to the account
-                if (transaction.getStatus() == TransactionStatus.COMPLETED) {
-                    switch (transaction.getType()) {
-                        case DEPOSIT:
-                            account.deposit(transaction.getAmount());
-                            break;
-                        case WITHDRAWAL:
-                            account.withdraw(transaction);
-                            break;
-                        case TRANSFER:
-                            BankAccount targetAccount = accounts.get(transaction.getTargetAccountId());
-                            if (targetAccount != null) {
-                                account.transfer(transaction.getAmount(), targetAccount, transaction);
-                            } else {
-                                transaction.setStatus(TransactionStatus.FAILED); // Target account missing
-                            }
-                            break;
-                    }
-
-                    // Export the successful transaction for auditing
-                    exporter.exportTransaction(transaction, bankName);
-                } else {
-                    logger.warning("Transaction failed and was not exported: " + transaction);
-                }
-            }
-        });
-    }
-}
+package TransactionsSimulator;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+import java.util.logging.Logger;
+
+import ThirdParticipante.ComplianceEngine;
+import ThirdParticipante.ThirdPartyMonitor;
+
+/*
+ * The BankTransactionProcessor class is responsible for processing banking transactions in a separate thread. 
+ * It uses a thread pool (ExecutorService) to handle transactions concurrently. Each transaction is monitored by a third-party system before being 
+ * applied to the appropriate bank account, and successful transactions are exported for logging or audit purposes.
+ * Transactions come either from a BlockingQueue (taken one by one and submitted to the pool) or from a TransactionRingBuffer (claimed in
+ * batches by worker threads that process them inline).
+ * The export itself runs in a background stage (AsyncTransactionExporter), so the workers never wait for the disk.
+ * Accounts are resolved once per transaction to their dense index in the AccountRegistry, balances live in an AccountStore.
+ * Per-transaction events go to the asynchronous EventLogger instead of System.out, so the dispatcher and the workers never format messages.
+ * In SHARED mode the bank has no threads of its own: its ring is served by a BankScheduler shared by all banks.
+ * With TransactionMetrics set, the latency of every TransactionStage is recorded (the clock is not read at all without them).
+ */
+
+public class BankTransactionProcessor implements Runnable {
+
+    private static final Logger logger = Logger.getLogger(BankTransactionProcessor.class.getName());
+    private static final EventLogger events = EventLogger.global();
+
+    // Threads of the pool (queue mode) or ring workers (ring mode)
+    private static final int WORKER_COUNT = 4;
+
+    private BlockingQueue<Transaction> transactionQueue;  // Queue mode: taken one by one and handed to the pool
+    private TransactionRingBuffer ring;  // Ring mode: consumed in batches by the ring's worker threads
+    private final List<Thread> ringWorkers = new ArrayList<>();
+    private AccountRegistry registry;
+    private AccountStore balances;
+    private String bankName;
+    private volatile boolean stopRequested = false;
+
+    // Both created on first use for the selected mode (see startStages()), so a mode change never builds and discards threads
+    private volatile ExecutorService executor;  // Thread pool for processTransaction() and the virtual thread ring consumer
+    private volatile AsyncTransactionExporter exporter;  // Background export stage (e.g. to file, DB)
+    private TransactionExporter transactionExporter;  // The exporter behind the stage
+    private TransactionJournal journal;  // Optional binary system of record
+    private TransactionStore store;  // Optional in-memory store of the recent transactions, for queries
+    private TransactionAnalytics analytics;  // Optional windowed statistics per bank and account
+    private ToIntFunction<String> accountIndex;  // Resolves account IDs to registry (and journal) indices
+    private ThirdPartyMonitor thirdPartyMonitor = new ThirdPartyMonitor();  // Shared by the workers, its rule engine is lock-free
+    private ExecutionMode executionMode = ExecutionMode.POOL;
+    private PartitionedExecutor partitions;  // PARTITIONED mode: single-writer shards by account index
+    private BankScheduler scheduler;  // SHARED mode: the pool serving the ring
+    private BankScheduler.Registration registration;  // SHARED mode: set once run() registered the ring
+    private Consumer<Transaction> completionListener;  // Optional, told about every transaction whose outcome is final
+    private TransactionMetrics metrics;  // Optional per-stage latencies, counters and queue depths
+
+    public BankTransactionProcessor(BlockingQueue<Transaction> transactionQueue, AccountRegistry registry, AccountStore balances,
+                                    String bankName) {
+        // Append-only exporter in rolling segments (see JsonLinesConverter for the legacy format) behind the group-commit stage
+        this(transactionQueue, registry, balances, bankName, defaultExporter());
+    }
+
+    public BankTransactionProcessor(BlockingQueue<Transaction> transactionQueue, AccountRegistry registry, AccountStore balances,
+                                    String bankName, TransactionExporter transactionExporter) {
+        this(registry, balances, bankName, transactionExporter);
+        this.transactionQueue = transactionQueue;
+    }
+
+    /**
+     * Creates a processor that consumes the bank's ring buffer with WORKER_COUNT worker threads, each processing whole batches inline
+     * (no hand-off to the pool and no future per transaction).
+     */
+    public BankTransactionProcessor(TransactionRingBuffer ring, AccountRegistry registry, AccountStore balances, String bankName) {
+        this(ring, registry, balances, bankName, defaultExporter());
+    }
+
+    private static TransactionExporter defaultExporter() {
+        return new TransactionExporter(ExportFormat.JSON_LINES, Paths.get("src/exports/"), SegmentRollingPolicy.defaults());
+    }
+
+    public BankTransactionProcessor(TransactionRingBuffer ring, AccountRegistry registry, AccountStore balances, String bankName,
+                                    TransactionExporter transactionExporter) {
+        this(registry, balances, bankName, transactionExporter);
+        this.ring = ring;
+    }
+
+    private BankTransactionProcessor(AccountRegistry registry, AccountStore balances, String bankName, TransactionExporter transactionExporter) {
+        this.registry = registry;
+        this.balances = balances;
+        this.accountIndex = registry::indexOf;
+        this.bankName = bankName;
+        this.transactionExporter = transactionExporter;
+    }
+
+    // Gives access to the export stage (queue depth, batch size metrics); starts it, so select the execution mode first
+    public AsyncTransactionExporter getExporter() {
+        return exportStage();
+    }
+
+    /**
+     * Records every processed transaction (completed or failed) in the given binary journal, under the registry's account indices.
+     * @param journal The journal of this bank
+     */
+    public void setJournal(TransactionJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Adds every processed transaction (completed or failed) to the given queryable store, under the registry's account indices.
+     * @param store The store, can be shared by several processors
+     */
+    public void setTransactionStore(TransactionStore store) {
+        this.store = store;
+    }
+
+    /**
+     * Adds every processed transaction to the windowed statistics of this bank and of its account.
+     * @param analytics The analytics stage, can be shared by several processors
+     */
+    public void setAnalytics(TransactionAnalytics analytics) {
+        this.analytics = analytics;
+    }
+
+    /**
+     * Replaces the default compliance checks (positive amount) with the rules of the given engine. Call it before run().
+     * @param engine The rule engine, can be shared by several processors
+     */
+    public void setComplianceEngine(ComplianceEngine engine) {
+        this.thirdPartyMonitor = new ThirdPartyMonitor(engine);
+    }
+
+    public ComplianceEngine getComplianceEngine() {
+        return thirdPartyMonitor.getEngine();
+    }
+
+    /**
+     * Selects how the transactions are executed. Call it before run() or the first processTransaction(): they create the pool and the
+     * export stage of the selected mode, and the mode can't change afterwards (IllegalStateException).
+     *  - POOL: any worker takes any transaction (the transactions of one account can run in parallel and out of order)
+     *  - PARTITIONED: every account belongs to one of WORKER_COUNT shards, which runs that account's transactions in arrival order.
+     *    The balances of an account are only written by its shard, so the store's locks (if any) are never contended.
+     *    With a TransactionRingBuffer a single ring consumer dispatches to the shards, so the arrival order is kept.
+     *    A transfer to another shard's account is debited on the source shard and credited later on the target's (beginTransfer() and
+     *    completeTransfer() of the AccountStore); in between the amount is in neither balance. A BalanceWriteAheadLog logs the two halves
+     *    as one transfer, and recovery completes the credit of a transfer in flight at the crash.
+     *  - VIRTUAL_THREADS: every transaction runs on its own virtual thread (no pool limit), and the export stage writes on a virtual
+     *    thread too. Blocking on the export buffer, the journal or the locks only parks the virtual thread. The exporter, the journal and
+     *    the write-ahead log use ReentrantLocks instead of synchronized, so blocking I/O under them doesn't pin a carrier thread.
+     *    With a TransactionRingBuffer a single ring consumer starts the virtual threads.
+     *  - SHARED: the ring is served by the BankScheduler given to setScheduler(), on threads shared with the other banks, and run() returns
+     *    as soon as the ring is registered. The export stage writes on a virtual thread, so the bank holds no platform thread at all.
+     */
+    public synchronized void setExecutionMode(ExecutionMode executionMode) {
+        if (exporter != null || executor != null) {
+            throw new IllegalStateException("The execution mode of " + bankName + " must be set before the processor is started.");
+        }
+        this.executionMode = executionMode;
+    }
+
+    public ExecutionMode getExecutionMode() {
+        return executionMode;
+    }
+
+    private static boolean usesVirtualThreads(ExecutionMode executionMode) {
+        return executionMode == ExecutionMode.VIRTUAL_THREADS || executionMode == ExecutionMode.SHARED;
+    }
+
+    /**
+     * Serves the bank's ring from the given scheduler (ExecutionMode.SHARED). Call it before run().
+     * @param scheduler The scheduler, shared by the processors of all banks
+     * @throws IllegalStateException if the processor reads a BlockingQueue instead of a TransactionRingBuffer
+     */
+    public void setScheduler(BankScheduler scheduler) {
+        if (ring == null) {
+            throw new IllegalStateException("Only a ring buffer processor can be served by a BankScheduler.");
+        }
+        this.scheduler = scheduler;
+        setExecutionMode(ExecutionMode.SHARED);
+    }
+
+    // The export stage of the selected mode: its writer is a virtual thread in the modes without platform threads of their own
+    private AsyncTransactionExporter exportStage() {
+        AsyncTransactionExporter stage = exporter;
+        if (stage == null) {
+            synchronized (this) {
+                stage = exporter;
+                if (stage == null) {
+                    stage = usesVirtualThreads(executionMode)
+                            ? new AsyncTransactionExporter(transactionExporter, bankName, Thread.ofVirtual())
+                            : new AsyncTransactionExporter(transactionExporter, bankName);
+                    if (metrics != null) {
+                        stage.setMetrics(metrics);
+                    }
+                    exporter = stage;
+                }
+            }
+        }
+        return stage;
+    }
+
+    // The pool of the selected mode: WORKER_COUNT platform threads, or a virtual thread per transaction
+    private ExecutorService executor() {
+        ExecutorService pool = executor;
+        if (pool == null) {
+            synchronized (this) {
+                pool = executor;
+                if (pool == null) {
+                    pool = usesVirtualThreads(executionMode)
+                            ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(bankName + "-Virtual-", 0).factory())
+                            : Executors.newFixedThreadPool(WORKER_COUNT);
+                    executor = pool;
+                }
+            }
+        }
+        return pool;
+    }
+
+    // The scheduler's counters of this bank, null until run() registered it
+    public BankScheduler.Registration getRegistration() {
+        return registration;
+    }
+
+    /**
+     * Registers a listener that is called with every transaction of a known account once its outcome is final (COMPLETED or FAILED),
+     * on the thread that completed it. Call it before run(); the listener must be thread-safe and must not block.
+     */
+    public void setCompletionListener(Consumer<Transaction> completionListener) {
+        this.completionListener = completionListener;
+    }
+
+    /**
+     * Records the stage latencies, counters and queue depths of this bank into the given metrics. Call it before run().
+     * The producers should stamp Transaction.setEnqueuedNanos() when they put a transaction into the queue, otherwise the GENERATED and
+     * QUEUED stages stay empty.
+     */
+    public synchronized void setMetrics(TransactionMetrics metrics) {
+        this.metrics = metrics;
+        metrics.setQueueDepthSupplier(ring != null ? ring::size : transactionQueue::size);
+        metrics.setExportBacklogSupplier(() -> {
+            AsyncTransactionExporter stage = exporter;
+            return stage == null ? 0 : stage.getQueueDepth();
+        });
+        metrics.setExportDroppedSupplier(() -> {
+            AsyncTransactionExporter stage = exporter;
+            return stage == null ? 0 : stage.getDroppedCount();
+        });
+        AsyncTransactionExporter stage = exporter;
+        if (stage != null) {
+            stage.setMetrics(metrics);
+        }
+    }
+
+    public TransactionMetrics getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public void run() {
+        exportStage();
+        if (executionMode == ExecutionMode.SHARED) {
+            if (scheduler == null) {
+                throw new IllegalStateException("SHARED mode needs a scheduler, see setScheduler().");
+            }
+            // Returns at once: the scheduler's threads run the handler whenever the ring has work
+            registration = scheduler.register(bankName, ring, (transaction, sequence, endOfBatch) -> {
+                onDequeued(transaction);
+                events.log(LogEvent.TRANSACTION_DEQUEUED, transaction.getAccountId(), transaction.getType(), transaction.getAmount(), 0);
+                process(transaction);
+            });
+            return;
+        }
+        if (executionMode == ExecutionMode.PARTITIONED) {
+            startPartitions();
+        }
+        if (ring != null) {
+            runRingWorkers();
+            return;
+        }
+        try {
+            while (!stopRequested) {
+                // Continuously take transactions from the queue and process them
+                Transaction transaction = transactionQueue.take();
+                onDequeued(transaction);
+                events.log(LogEvent.TRANSACTION_DEQUEUED, transaction.getAccountId(), transaction.getType(), transaction.getAmount(), 0);
+                if (partitions != null) {
+                    dispatchToPartition(transaction);
+                } else {
+                    processTransaction(transaction);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();  // Restore interrupt status
+        }
+    }
+
+    // Starts the ring consumers and waits until they stop
+    private void runRingWorkers() {
+        // Partitioned: one consumer keeps the ring order and dispatches, the shards do the work.
+        // Virtual threads: one consumer starts a virtual thread per transaction.
+        boolean virtual = executionMode == ExecutionMode.VIRTUAL_THREADS;
+        int workerCount = partitions != null || virtual ? 1 : WORKER_COUNT;
+        synchronized (ringWorkers) {
+            for (int i = 0; i < workerCount; i++) {
+                Thread worker = new Thread(ring.newConsumer((transaction, sequence, endOfBatch) -> {
+                    onDequeued(transaction);
+                    events.log(LogEvent.TRANSACTION_DEQUEUED, transaction.getAccountId(), transaction.getType(), transaction.getAmount(), 0);
+                    if (partitions != null) {
+                        dispatchToPartition(transaction);
+                    } else if (virtual) {
+                        executor().execute(() -> process(transaction));
+                    } else {
+                        process(transaction);
+                    }
+                }), bankName + "-Ring-Worker-" + i);
+                ringWorkers.add(worker);
+                worker.start();
+            }
+        }
+        try {
+            joinRingWorkers();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();  // Restore interrupt status
+        }
+    }
+
+    private void joinRingWorkers() throws InterruptedException {
+        List<Thread> workers;
+        synchronized (ringWorkers) {
+            workers = new ArrayList<>(ringWorkers);
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+    }
+
+    // Gracefully stop processing and shut down thread pool, then flush the pending exports
+    public void stop() {
+        stopRequested = true;
+        if (ring != null) {
+            ring.halt();  // The workers finish what was published, then exit
+            try {
+                if (registration != null) {
+                    registration.close();  // The scheduler's lanes finish what was published
+                }
+                joinRingWorkers();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (partitions != null) {
+            partitions.close();  // Waits until the shards have completed everything, including handed off transfers
+        }
+        ExecutorService pool = executor;
+        if (pool != null) {
+            pool.shutdown();  // Initiate shutdown of the thread pool
+            try {
+                if (!pool.awaitTermination(60, TimeUnit.SECONDS)) {
+                    pool.shutdownNow();  // Force shutdown if not finished in time
+                }
+            } catch (InterruptedException e) {
+                pool.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+        AsyncTransactionExporter stage = exporter;
+        if (stage != null) {
+            stage.close();  // Writes and fsyncs everything still buffered
+        }
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    // Submits the transaction to be processed by one of the thread pool threads (the future completes once it is applied)
+    public Future<?> processTransaction(Transaction transaction) {
+        exportStage();
+        return executor().submit(() -> process(transaction));
+    }
+
+    // Monitors, applies, exports and journals one transaction on the calling thread
+    private void process(Transaction transaction) {
+        int account = registry.indexOf(transaction.getAccountId());
+        if (account != AccountRegistry.NOT_FOUND) {
+            long started = onStarted(transaction);
+
+            // Monitor and validate the transaction using the shared third-party monitor
+            thirdPartyMonitor.monitorTransaction(transaction);
+            long monitored = recordSince(TransactionStage.MONITOR, started);
+
+            // If transaction is valid and completed, apply it to the account
+            boolean accepted = transaction.getStatus() == TransactionStatus.COMPLETED;
+            if (accepted) {
+                switch (transaction.getType()) {
+                    case DEPOSIT:
+                        balances.deposit(account, transaction.getAmount() - transaction.getFee());  // Credited less the fee
+                        break;
+                    case WITHDRAWAL:
+                        if (!balances.withdraw(account, (long) transaction.getAmount() + transaction.getFee())) {  // Debited plus the fee
+                            events.log(LogEvent.INSUFFICIENT_FUNDS, transaction.getAccountId(), transaction.getType(),
+                                    transaction.getAmount(), balances.getBalance(account));
+                            transaction.setStatus(TransactionStatus.FAILED);
+                        }
+                        break;
+                    case TRANSFER:
+                        int targetAccount = registry.indexOf(transaction.getTargetAccountId());
+                        if (targetAccount == AccountRegistry.NOT_FOUND) {
+                            transaction.setStatus(TransactionStatus.FAILED); // Target account missing
+                        } else if (!balances.transfer(account, targetAccount, transaction.getAmount(), transaction.getFee())) {
+                            events.log(LogEvent.INSUFFICIENT_FUNDS, transaction.getAccountId(), transaction.getType(),
+                                    transaction.getAmount(), balances.getBalance(account));
+                            transaction.setStatus(TransactionStatus.FAILED);
+                        }
+                        break;
+                }
+                recordSince(TransactionStage.APPLY, monitored);
+            }
+            complete(transaction, accepted);
+        }
+    }
+
+    // Exports (if the monitor accepted it, whatever the outcome), journals and reports a transaction whose outcome is final
+    private void complete(Transaction transaction, boolean accepted) {
+        if (metrics != null) {
+            long now = System.nanoTime();
+            transaction.setCompletedNanos(now);
+            metrics.onCompleted(transaction, now);
+        }
+        if (accepted) {
+            // Hand off the accepted transaction to the export stage for auditing
+            try {
+                exporter.submit(transaction);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                logger.warning("Export hand-off interrupted: " + transaction);
+            }
+        } else {
+            events.log(LogEvent.TRANSACTION_NOT_EXPORTED, transaction.getAccountId(), transaction.getType(), transaction.getAmount(), 0);
+        }
+
+        // Record the final outcome in the binary journal
+        if (journal != null) {
+            try {
+                journal.append(transaction, accountIndex);
+            } catch (IOException e) {
+                logger.severe("Journal append failed: " + e.getMessage());
+            }
+        }
+        if (store != null) {
+            store.append(transaction, accountIndex);
+        }
+        if (analytics != null) {
+            analytics.record(transaction, bankName);
+        }
+        events.log(LogEvent.TRANSACTION_PROCESSED, transaction.getAccountId(), transaction.getStatus(), transaction.getAmount(), 0);
+        if (completionListener != null) {
+            completionListener.accept(transaction);
+        }
+    }
+
+    private void startPartitions() {
+        partitions = new PartitionedExecutor(WORKER_COUNT, bankName, WaitStrategy.PARK, new PartitionedExecutor.ShardHandler() {
+            @Override
+            public void onTransaction(Transaction transaction) {
+                processOnShard(transaction);
+            }
+
+            @Override
+            public void onCredit(Transaction transaction, long ticket) {
+                // Second half of a cross-shard transfer, on the target's shard
+                balances.completeTransfer(registry.indexOf(transaction.getTargetAccountId()), transaction.getAmount(), ticket);
+                complete(transaction, true);
+            }
+        });
+    }
+
+    // Routes a transaction to the shard of its source account (unknown accounts are ignored, like in process())
+    private void dispatchToPartition(Transaction transaction) {
+        int account = registry.indexOf(transaction.getAccountId());
+        if (account != AccountRegistry.NOT_FOUND) {
+            partitions.execute(transaction, account);
+        }
+    }
+
+    // Like process(), but on the shard of the source account: a transfer to another shard's account is debited here and credited there
+    private void processOnShard(Transaction transaction) {
+        int account = registry.indexOf(transaction.getAccountId());
+        long started = onStarted(transaction);
+        thirdPartyMonitor.monitorTransaction(transaction);
+        long monitored = recordSince(TransactionStage.MONITOR, started);
+
+        boolean accepted = transaction.getStatus() == TransactionStatus.COMPLETED;
+        if (accepted) {
+            switch (transaction.getType()) {
+                case DEPOSIT:
+                    balances.deposit(account, transaction.getAmount() - transaction.getFee());  // Credited less the fee
+                    break;
+                case WITHDRAWAL:
+                    if (!balances.withdraw(account, (long) transaction.getAmount() + transaction.getFee())) {  // Debited plus the fee
+                        events.log(LogEvent.INSUFFICIENT_FUNDS, transaction.getAccountId(), transaction.getType(),
+                                transaction.getAmount(), balances.getBalance(account));
+                        transaction.setStatus(TransactionStatus.FAILED);
+                    }
+                    break;
+                case TRANSFER:
+                    int targetAccount = registry.indexOf(transaction.getTargetAccountId());
+                    boolean sameShard = targetAccount != AccountRegistry.NOT_FOUND
+                            && partitions.shardOf(targetAccount) == partitions.shardOf(account);
+                    boolean debited;
+                    long ticket = 0;
+                    if (targetAccount == AccountRegistry.NOT_FOUND) {
+                        debited = false;  // Target account missing
+                    } else if (sameShard) {
+                        debited = balances.transfer(account, targetAccount, transaction.getAmount(), transaction.getFee());
+                    } else {
+                        ticket = balances.beginTransfer(account, targetAccount, transaction.getAmount(), transaction.getFee());
+                        debited = ticket >= 0;
+                    }
+                    if (!debited) {
+                        if (targetAccount != AccountRegistry.NOT_FOUND) {
+                            events.log(LogEvent.INSUFFICIENT_FUNDS, transaction.getAccountId(), transaction.getType(),
+                                    transaction.getAmount(), balances.getBalance(account));
+                        }
+                        transaction.setStatus(TransactionStatus.FAILED);
+                    } else if (!sameShard) {
+                        recordSince(TransactionStage.APPLY, monitored);
+                        partitions.handOff(transaction, targetAccount, ticket);  // Credited and completed by the target's shard
+                        return;
+                    }
+                    break;
+            }
+            recordSince(TransactionStage.APPLY, monitored);
+        }
+        complete(transaction, accepted);
+    }
+
+    // Metrics: stamps the dequeue time and records how long the transaction waited before it
+    private void onDequeued(Transaction transaction) {
+        if (metrics == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        transaction.setDequeuedNanos(now);
+        long enqueued = transaction.getEnqueuedNanos();
+        if (enqueued != 0) {
+            metrics.record(TransactionStage.GENERATED, enqueued - transaction.getCreatedNanos());
+            metrics.record(TransactionStage.QUEUED, now - enqueued);
+        }
+    }
+
+    // Metrics: records the hand-off from the dequeuing thread, returns the start time (0 without metrics)
+    private long onStarted(Transaction transaction) {
+        if (metrics == null) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        if (transaction.getDequeuedNanos() != 0) {
+            metrics.record(TransactionStage.DISPATCHED, now - transaction.getDequeuedNanos());
+        }
+        return now;
+    }
+
+    // Metrics: records the time since startNanos for the stage, returns the current time (0 without metrics)
+    private long recordSince(TransactionStage stage, long startNanos) {
+        if (metrics == null || startNanos == 0) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        metrics.record(stage, now - startNanos);
+        return now;
+    }
+}
@@ -0,0 +1,41 @@
+package TransactionsSimulator;
+
+/*
+ * The BurstProfile enum shapes the offered load of the LoadGenerator over time. The rate at any moment is the configured target TPS
+ * multiplied by rateMultiplier():
+ *  - CONSTANT: always the target TPS
+ *  - PERIODIC: burstFactor times the target TPS for burstLength at the start of every burstPeriod, the target TPS otherwise
+ *  - RAMP: grows linearly from the target TPS to burstFactor times the target TPS over the run
+ */
+
+public enum BurstProfile {
+
+    CONSTANT {
+        @Override
+        double rateMultiplier(long elapsedNanos, LoadGeneratorConfig config) {
+            return 1.0;
+        }
+    },
+
+    PERIODIC {
+        @Override
+        double rateMultiplier(long elapsedNanos, LoadGeneratorConfig config) {
+            boolean inBurst = elapsedNanos % config.getBurstPeriodNanos() < config.getBurstLengthNanos();
+            return inBurst ? config.getBurstFactor() : 1.0;
+        }
+    },
+
+    RAMP {
+        @Override
+        double rateMultiplier(long elapsedNanos, LoadGeneratorConfig config) {
+            double progress = Math.min(1.0, (double) elapsedNanos / config.getDurationNanos());
+            return 1.0 + (config.getBurstFactor() - 1.0) * progress;
+        }
+    };
+
+    /**
+     * @param elapsedNanos Time since the start of the run
+     * @return The factor applied to the target TPS at that time
+     */
+    abstract double rateMultiplier(long elapsedNanos, LoadGeneratorConfig config);
+}
@@ -0,0 +1,4 @@
+package TransactionsSimulator;
+public enum DurabilityMode {
+    FSYNC_PER_BATCH, PERIODIC, NONE
+}
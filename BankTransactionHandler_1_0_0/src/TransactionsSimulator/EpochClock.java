@@ -0,0 +1,43 @@
+package TransactionsSimulator;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/*
+ * The EpochClock class gives timestamps in nanoseconds since the epoch from System.nanoTime(): the wall clock is read once when the class is
+ * loaded and later timestamps are that origin plus the elapsed monotonic time. A timestamp is one nanoTime() call and a long (no clock and zone
+ * computation, no allocation, never goes backwards); the conversion to LocalDateTime is only done when a timestamp is displayed or exported.
+ * Wall clock adjustments made after the start (NTP) are not followed.
+ */
+
+public final class EpochClock {
+
+    private static final long ORIGIN_NANO_TIME;
+    private static final long ORIGIN_EPOCH_NANOS;
+
+    static {
+        Instant now = Instant.now();
+        ORIGIN_NANO_TIME = System.nanoTime();
+        ORIGIN_EPOCH_NANOS = now.getEpochSecond() * 1_000_000_000L + now.getNano();
+    }
+
+    private EpochClock() {
+    }
+
+    // Current time in nanoseconds since the epoch
+    public static long nowEpochNanos() {
+        return toEpochNanos(System.nanoTime());
+    }
+
+    // Converts a System.nanoTime() stamp of this JVM into nanoseconds since the epoch
+    public static long toEpochNanos(long nanoTime) {
+        return ORIGIN_EPOCH_NANOS + (nanoTime - ORIGIN_NANO_TIME);
+    }
+
+    // Converts nanoseconds since the epoch into a local timestamp (system time zone)
+    public static LocalDateTime toLocalDateTime(long epochNanos) {
+        Instant instant = Instant.ofEpochSecond(Math.floorDiv(epochNanos, 1_000_000_000L), Math.floorMod(epochNanos, 1_000_000_000L));
+        return LocalDateTime.ofInstant(instant, ZoneId.systemDefault());
+    }
+}
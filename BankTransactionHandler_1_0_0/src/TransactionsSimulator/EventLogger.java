@@ -0,0 +1,265 @@
+package TransactionsSimulator;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+
+/*
+ * The EventLogger class is an asynchronous structured logger for the transaction hot path. Callers only check the level and copy the fields
+ * of a LogEvent (references and primitives) into a preallocated ring buffer slot; no message is built and nothing is allocated on their
+ * thread. A background drainer thread formats the events as 'time LEVEL EVENT key=value ...' lines and writes them in batches.
+ *
+ * The ring is multi-producer: a producer claims a sequence number with a CAS, fills the slot, then publishes it by storing the sequence in the
+ * slot's published marker. The drainer consumes the slots strictly in order. When the ring is full the overflow policy decides: DROP counts
+ * the event as dropped and returns at once (the drainer reports the count as an EVENTS_DROPPED event), BLOCK waits until there is space.
+ *
+ * Fields must be immutable values captured at the time of the event (IDs, enums, amounts), not mutable objects such as a Transaction,
+ * because they are only formatted later.
+ */
+
+public class EventLogger implements AutoCloseable {
+
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
+    private static final long IDLE_PARK_NANOS = 1_000_000;
+    private static final long FULL_PARK_NANOS = 10_000;
+
+    private static EventLogger global;
+
+    private final int mask;
+    private final LogEvent[] events;
+    private final Object[] objects;  // 2 per slot
+    private final long[] values;     // 2 per slot
+    private final long[] times;
+    private final AtomicLongArray published;
+
+    private final LogOverflowPolicy policy;
+    private final Writer out;
+    private final Thread drainerThread;
+    private volatile int levelValue;
+
+    // Next sequence to claim, and the next sequence the drainer will consume
+    private final AtomicLong claimed = new AtomicLong();
+    private volatile long consumed;
+
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong loggedCount = new AtomicLong();
+    private volatile boolean running = true;
+
+    /**
+     * @param capacity Number of slots of the ring buffer, rounded up to a power of two
+     * @param level Minimum level of the events that are logged
+     * @param policy What to do with an event when the ring is full
+     * @param out Where the drainer writes the formatted lines (flushed after every batch)
+     */
+    public EventLogger(int capacity, Level level, LogOverflowPolicy policy, Writer out) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive.");
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.mask = size - 1;
+        this.events = new LogEvent[size];
+        this.objects = new Object[size * 2];
+        this.values = new long[size * 2];
+        this.times = new long[size];
+        this.published = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            published.set(i, -1);
+        }
+        this.policy = policy;
+        this.out = out;
+        this.levelValue = level.intValue();
+
+        this.drainerThread = new Thread(this::drainLoop, "Event-Logger-Thread");
+        this.drainerThread.setDaemon(true);
+        this.drainerThread.start();
+    }
+
+    /**
+     * Returns the shared logger of the simulator: 8192 slots, INFO level, DROP policy, writing to System.out.
+     * It is drained and flushed when the JVM exits.
+     */
+    public static synchronized EventLogger global() {
+        if (global == null) {
+            global = new EventLogger(8192, Level.INFO, LogOverflowPolicy.DROP, new BufferedWriter(new OutputStreamWriter(System.out)));
+            EventLogger logger = global;
+            Runtime.getRuntime().addShutdownHook(new Thread(logger::close, "Event-Logger-Shutdown"));
+        }
+        return global;
+    }
+
+    public void setLevel(Level level) {
+        this.levelValue = level.intValue();
+    }
+
+    public boolean isLoggable(LogEvent event) {
+        return event.levelValue >= levelValue && levelValue != Level.OFF.intValue();
+    }
+
+    public void log(LogEvent event, Object subject, long value) {
+        log(event, subject, null, value, 0);
+    }
+
+    /**
+     * Logs an event with its fields in the order of the event's field names.
+     */
+    public void log(LogEvent event, Object subject, Object detail, long value, long value2) {
+        if (!isLoggable(event) || !running) {
+            return;
+        }
+        long sequence = claim();
+        if (sequence < 0) {
+            droppedCount.incrementAndGet();
+            return;
+        }
+        int slot = (int) sequence & mask;
+        events[slot] = event;
+        objects[slot * 2] = subject;
+        objects[slot * 2 + 1] = detail;
+        values[slot * 2] = value;
+        values[slot * 2 + 1] = value2;
+        times[slot] = System.currentTimeMillis();
+        published.lazySet(slot, sequence);
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    public long getLoggedCount() {
+        return loggedCount.get();
+    }
+
+    // Number of events waiting for the drainer
+    public int getBacklog() {
+        return (int) (claimed.get() - consumed);
+    }
+
+    /**
+     * Stops accepting events, writes everything already logged and flushes the output.
+     */
+    @Override
+    public void close() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(drainerThread);
+        try {
+            drainerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Claims the next slot, or returns -1 if the ring is full and the policy is DROP
+    private long claim() {
+        while (true) {
+            long sequence = claimed.get();
+            if (sequence - consumed > mask) {
+                if (policy == LogOverflowPolicy.DROP || !running) {
+                    return -1;
+                }
+                LockSupport.parkNanos(FULL_PARK_NANOS);
+                continue;
+            }
+            if (claimed.compareAndSet(sequence, sequence + 1)) {
+                return sequence;
+            }
+        }
+    }
+
+    // Drainer thread: formats and writes the published events in order, parks while there are none
+    private void drainLoop() {
+        StringBuilder line = new StringBuilder(256);
+        long reportedDrops = 0;
+        while (true) {
+            boolean stopping = !running;
+            int drained = drain(line);
+
+            long dropped = droppedCount.get();
+            if (dropped != reportedDrops) {
+                format(line, LogEvent.EVENTS_DROPPED, System.currentTimeMillis(), null, null, dropped - reportedDrops, 0);
+                write(line);
+                reportedDrops = dropped;
+                drained++;
+            }
+            if (drained > 0) {
+                flush();
+            }
+            // Stop only once nothing was claimed after running was cleared
+            if (stopping && consumed == claimed.get()) {
+                return;
+            }
+            if (drained == 0) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+    }
+
+    private int drain(StringBuilder line) {
+        int count = 0;
+        long next = consumed;
+        while (true) {
+            int slot = (int) next & mask;
+            if (published.get(slot) != next) {
+                break;
+            }
+            format(line, events[slot], times[slot], objects[slot * 2], objects[slot * 2 + 1], values[slot * 2], values[slot * 2 + 1]);
+            objects[slot * 2] = null;
+            objects[slot * 2 + 1] = null;
+            write(line);
+            next++;
+            consumed = next;
+            count++;
+        }
+        loggedCount.addAndGet(count);
+        return count;
+    }
+
+    private static void format(StringBuilder line, LogEvent event, long time, Object subject, Object detail, long value, long value2) {
+        line.setLength(0);
+        TIME_FORMAT.formatTo(Instant.ofEpochMilli(time), line);
+        line.append(' ').append(event.level.getName()).append(' ').append(event.name());
+        String[] names = event.fieldNames;
+        if (names[0] != null) {
+            line.append(' ').append(names[0]).append('=').append(subject);
+        }
+        if (names[1] != null) {
+            line.append(' ').append(names[1]).append('=').append(detail);
+        }
+        if (names[2] != null) {
+            line.append(' ').append(names[2]).append('=').append(value);
+        }
+        if (names[3] != null) {
+            line.append(' ').append(names[3]).append('=').append(value2);
+        }
+        line.append(System.lineSeparator());
+    }
+
+    private void write(StringBuilder line) {
+        try {
+            out.append(line);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void flush() {
+        try {
+            out.flush();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,4 @@
+package TransactionsSimulator;
+public enum ExecutionMode {
+    POOL, PARTITIONED, VIRTUAL_THREADS, SHARED
+}
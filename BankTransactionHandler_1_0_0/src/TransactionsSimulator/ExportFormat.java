@@ -0,0 +1,4 @@
+package TransactionsSimulator;
+public enum ExportFormat {
+    JSON_ARRAY, JSON_LINES
+}
@@ -0,0 +1,69 @@
+package TransactionsSimulator;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.zip.GZIPInputStream;
+
+/*
+ * The JsonLinesConverter class turns an append-only '.jsonl' export (one transaction per line) into the legacy pretty printed JSON array format,
+ * so existing consumers of '<bank>_transactions.json' keep working. It is meant to be run offline, not on the transaction path.
+ * 
+ * Rolled export segments can be converted one by one, compressed ones ('.jsonl.gz') are read as they are.
+ *
+ * Usage: java TransactionsSimulator.JsonLinesConverter <input.jsonl|input.jsonl.gz> [output.json]
+ */
+
+public class JsonLinesConverter {
+
+    /**
+     * Converts a JSON Lines file into a JSON array file (indentation level 2).
+     * Blank lines are skipped, a malformed line aborts the conversion.
+     */
+    public static int convert(Path input, Path output) throws IOException {
+        JSONArray transactionList = new JSONArray();
+
+        try (BufferedReader reader = input.toString().endsWith(".gz")
+                ? new BufferedReader(new InputStreamReader(new GZIPInputStream(Files.newInputStream(input)), StandardCharsets.UTF_8))
+                : Files.newBufferedReader(input, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    transactionList.put(new JSONObject(line));
+                }
+            }
+        }
+
+        try (Writer writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+            writer.write(transactionList.toString(2));
+        }
+        return transactionList.length();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: JsonLinesConverter <input.jsonl|input.jsonl.gz> [output.json]");
+            System.exit(1);
+        }
+
+        Path input = Paths.get(args[0]);
+        String name = input.getFileName().toString();
+        if (name.endsWith(".gz")) {
+            name = name.substring(0, name.length() - 3);
+        }
+        Path output = args.length > 1
+                ? Paths.get(args[1])
+                : input.resolveSibling(name.endsWith(".jsonl") ? name.substring(0, name.length() - 1) : name + ".json");
+
+        int count = convert(input, output);
+        System.out.println("Converted " + count + " transactions to " + output);
+    }
+}
@@ -0,0 +1,194 @@
+package TransactionsSimulator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+ * The LoadGenerator class load-tests the processing core without the GUI. It builds the configured accounts and banks (one ring buffer and one
+ * BankTransactionProcessor per bank, like BankSimulator), then publishes transactions of the configured profile (drawn by a seeded
+ * ParallelTransactionGenerator, so a run can be replayed) on an open-loop schedule:
+ * the n-th transaction is due at a fixed time derived from the target TPS and the burst profile, whether or not the processors kept up.
+ * The latency of a transaction is measured from that intended time to its completion, so a stalled processor (or a full ring blocking the
+ * generator) shows up as latency of every transaction scheduled meanwhile instead of silently lowering the offered rate (coordinated omission).
+ * The per-stage TransactionMetrics of every bank are published over JMX during the run and included in the summary.
+ * With an admission policy every bank queue is guarded by an AdmissionController; rejected transactions are counted, not waited for.
+ */
+
+public class LoadGenerator {
+
+    // Closer than this to the due time the generator yields instead of parking (parkNanos oversleeps by tens of microseconds)
+    private static final long YIELD_THRESHOLD_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    // How long the run waits for the transactions still in flight after the last one was published
+    private static final long DRAIN_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    private final LoadGeneratorConfig config;
+    private final AccountRegistry registry;
+    private final StripedAccountTable balances;
+    private final TransactionRingBuffer[] rings;  // Indexed by bank index
+    private final AdmissionController[] admission;  // Indexed by bank index, null without admission control
+    private final int[] bankOfAccount;
+    private final ParallelTransactionGenerator generator;
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    public LoadGenerator(LoadGeneratorConfig config) {
+        this.config = config;
+
+        // Accounts spread round-robin over the banks
+        registry = new AccountRegistry(config.getAccounts(), 16);
+        for (int i = 0; i < config.getAccounts(); i++) {
+            registry.register("Account_" + i, "Bank_" + (i % config.getBanks()));
+        }
+        balances = new StripedAccountTable(registry.size());
+        bankOfAccount = new int[registry.size()];
+        for (int account = 0; account < registry.size(); account++) {
+            balances.setBalance(account, config.getInitialBalance());
+            bankOfAccount[account] = registry.bankOf(account);
+        }
+
+        generator = new ParallelTransactionGenerator(registry.accountIds(), config.getProfile(), config.getSeed());
+
+        rings = new TransactionRingBuffer[registry.bankCount()];
+        for (int bank = 0; bank < rings.length; bank++) {
+            rings[bank] = new TransactionRingBuffer(4096, 64, WaitStrategy.PARK);
+        }
+        if (config.getAdmissionPolicy() != null) {
+            admission = new AdmissionController[rings.length];
+            for (int bank = 0; bank < rings.length; bank++) {
+                admission[bank] = new AdmissionController(rings[bank], registry.bankName(bank), config.getAdmissionPolicy(),
+                        config.getAdmissionTimeoutMillis(), 64 * 1024, config.getQueueDelayMillis());
+            }
+        } else {
+            admission = null;
+        }
+    }
+
+    /**
+     * Runs the load test for the configured duration, waits for the transactions in flight and stops the processors.
+     * @return The throughput and latency summary
+     */
+    public LoadReport run() throws InterruptedException {
+        EventLogger.global().setLevel(config.getLogLevel());
+
+        // 1. Start a processor per bank (SHARED: all banks on one scheduler with a thread per core, instead of threads per bank)
+        BankScheduler scheduler = config.getExecutionMode() == ExecutionMode.SHARED ? new BankScheduler() : null;
+        List<BankTransactionProcessor> processors = new ArrayList<>();
+        List<Thread> processorThreads = new ArrayList<>();
+        List<TransactionMetrics> metrics = new ArrayList<>();
+        for (int bank = 0; bank < rings.length; bank++) {
+            String bankName = registry.bankName(bank);
+            BankTransactionProcessor processor = new BankTransactionProcessor(rings[bank], registry, balances, bankName,
+                    new TransactionExporter(ExportFormat.JSON_LINES, config.getExportDir(), config.getRollingPolicy()));
+            if (scheduler != null) {
+                processor.setScheduler(scheduler);
+            } else {
+                processor.setExecutionMode(config.getExecutionMode());
+            }
+            processor.setCompletionListener(this::onCompleted);
+            TransactionMetrics bankMetrics = new TransactionMetrics(bankName);
+            processor.setMetrics(bankMetrics);
+            if (admission != null) {
+                admission[bank].setMetrics(bankMetrics);
+            }
+            bankMetrics.register();
+            metrics.add(bankMetrics);
+            if (scheduler != null) {
+                processor.run();  // Registers the ring and returns
+            } else {
+                Thread thread = new Thread(processor, bankName + "-Thread");
+                thread.start();
+                processorThreads.add(thread);
+            }
+            processors.add(processor);
+        }
+
+        MetricsReporter reporter = config.getMetricsIntervalMillis() > 0
+                ? new MetricsReporter(metrics, config.getMetricsIntervalMillis(), System.out) : null;
+
+        // 2. Publish on the open-loop schedule
+        SplittableRandom random = generator.stream(0);
+        long start = System.nanoTime();
+        long end = start + config.getDurationNanos();
+        long due = start;
+        long sent = 0;
+        long rejected = 0;
+        long maxLagNanos = 0;
+        while (due < end) {
+            waitUntil(due);
+            maxLagNanos = Math.max(maxLagNanos, System.nanoTime() - due);
+
+            int account = generator.nextAccount(random);
+            Transaction transaction = generator.next(random, account);
+            transaction.setSubmitNanos(due);
+            int bank = bankOfAccount[account];
+            if (admission == null) {
+                transaction.setEnqueuedNanos(System.nanoTime());
+                rings[bank].put(transaction);
+            } else if (!admission[bank].admit(transaction)) {
+                rejected++;
+            }
+            sent++;
+
+            double rate = config.getTargetTps() * config.getBurstProfile().rateMultiplier(due - start, config);
+            due += Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / rate));
+        }
+        long generationNanos = System.nanoTime() - start;
+
+        // 3. Wait for the transactions still in flight (and publish what was spilled)
+        long drainDeadline = System.nanoTime() + DRAIN_TIMEOUT_NANOS;
+        while (completed.sum() + rejected < sent && System.nanoTime() < drainDeadline) {
+            if (admission != null) {
+                for (AdmissionController controller : admission) {
+                    controller.drainSpill();
+                }
+            }
+            Thread.sleep(1);
+        }
+        long elapsedNanos = System.nanoTime() - start;
+
+        // 4. Stop the processors (flushes the exports)
+        for (BankTransactionProcessor processor : processors) {
+            processor.stop();
+        }
+        for (Thread thread : processorThreads) {
+            thread.join();
+        }
+        if (scheduler != null) {
+            scheduler.close();
+        }
+        if (reporter != null) {
+            reporter.close();
+        }
+        for (TransactionMetrics bankMetrics : metrics) {
+            bankMetrics.unregister();
+        }
+        return new LoadReport(config, sent, completed.sum(), failed.sum(), rejected, generationNanos, elapsedNanos, maxLagNanos, latency, metrics);
+    }
+
+    // Completion listener of the processors, runs on their worker threads
+    private void onCompleted(Transaction transaction) {
+        latency.record(System.nanoTime() - transaction.getSubmitNanos());
+        if (transaction.getStatus() == TransactionStatus.FAILED) {
+            failed.increment();
+        }
+        completed.increment();
+    }
+
+    private static void waitUntil(long dueNanos) {
+        long remaining;
+        while ((remaining = dueNanos - System.nanoTime()) > 0) {
+            if (remaining > YIELD_THRESHOLD_NANOS) {
+                LockSupport.parkNanos(remaining - YIELD_THRESHOLD_NANOS);
+            } else {
+                Thread.yield();
+            }
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package TransactionsSimulator;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/*
+ * The LoadGeneratorConfig class holds the settings of a headless load test (see LoadGenerator). The settings are read from key=value pairs,
+ * given on the command line and/or in a properties file:
+ *
+ *   config=<file>              Properties file with any of the keys below (command line pairs override it)
+ *   accounts=1000              Number of accounts, spread round-robin over the banks
+ *   banks=2                    Number of banks, each with its own ring buffer and processor
+ *   tps=10000                  Target transactions per second (open-loop: the schedule doesn't wait for the processors)
+ *   duration=30                Run duration in seconds
+ *   burst=CONSTANT             Burst profile: CONSTANT, PERIODIC or RAMP
+ *   burstFactor=5              Rate multiplier during bursts (PERIODIC) or at the end of the run (RAMP)
+ *   burstPeriod=10             PERIODIC: seconds between the starts of two bursts
+ *   burstLength=1              PERIODIC: length of a burst in seconds
+ *   initialBalance=1000000     Starting balance of every account
+ *   seed=<random>              Seed of the transaction streams, the same seed replays the same transactions
+ *   skew=0                     Zipf exponent of the account choice, 0 for uniform, around 1 for a few hot accounts
+ *   mix=1:1:1                  Relative weights of deposits, withdrawals and transfers
+ *   amounts=UNIFORM            Amount distribution: UNIFORM or LOG_NORMAL
+ *   minAmount=50               Smallest amount
+ *   maxAmount=499              Largest amount
+ *   mode=PARTITIONED           ExecutionMode of the processors (SHARED: one BankScheduler, a thread per core, serves every bank)
+ *   exportDir=src/exports/     Directory of the transaction exports
+ *   segmentMB=64               Size of a rolling export segment in MB (0 for no size limit)
+ *   segmentSeconds=900         Time window of a rolling export segment (0 for none, both 0: one export file per bank, no rolling)
+ *   compress=true              Whether closed export segments are GZIP compressed
+ *   logLevel=WARNING           Level of the EventLogger (INFO logs every transaction)
+ *   admission=NONE             Admission control of the bank queues: NONE (the generator blocks on a full queue), BLOCK, REJECT or SPILL
+ *   admissionTimeout=100       BLOCK: longest wait in milliseconds before a transaction is rejected
+ *   queueDelay=50              Target queue wait in milliseconds of the adaptive admission limit
+ *   metricsInterval=0          Seconds between the per-stage metrics dumps during the run, 0 for none (they are always in the summary)
+ */
+
+public class LoadGeneratorConfig {
+
+    private int accounts = 1000;
+    private int banks = 2;
+    private double targetTps = 10_000;
+    private long durationNanos = TimeUnit.SECONDS.toNanos(30);
+    private BurstProfile burstProfile = BurstProfile.CONSTANT;
+    private double burstFactor = 5;
+    private long burstPeriodNanos = TimeUnit.SECONDS.toNanos(10);
+    private long burstLengthNanos = TimeUnit.SECONDS.toNanos(1);
+    private long initialBalance = 1_000_000;
+    private long seed = System.nanoTime();
+    private double skew = 0;
+    private int[] mix = {1, 1, 1};
+    private AmountDistribution amounts = AmountDistribution.UNIFORM;
+    private int minAmount = 50;
+    private int maxAmount = 499;
+    private ExecutionMode executionMode = ExecutionMode.PARTITIONED;
+    private Path exportDir = Paths.get("src/exports/");
+    private long segmentBytes = SegmentRollingPolicy.defaults().getMaxSegmentBytes();
+    private long segmentMillis = SegmentRollingPolicy.defaults().getMaxSegmentMillis();
+    private boolean compress = true;
+    private Level logLevel = Level.WARNING;
+    private long metricsIntervalMillis = 0;
+    private AdmissionPolicy admissionPolicy;  // null: no admission control
+    private long admissionTimeoutMillis = 100;
+    private long queueDelayMillis = 50;
+
+    /**
+     * Reads the settings from key=value arguments, loading the file of a config=<file> argument first.
+     * @throws IllegalArgumentException If an argument is not a key=value pair, the key is unknown or the value is invalid
+     */
+    public static LoadGeneratorConfig fromArgs(String[] args) throws IOException {
+        Properties properties = new Properties();
+        Properties overrides = new Properties();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Expected key=value, got: " + arg);
+            }
+            String key = arg.substring(0, separator).trim();
+            String value = arg.substring(separator + 1).trim();
+            if (key.equals("config")) {
+                try (Reader reader = Files.newBufferedReader(Paths.get(value))) {
+                    properties.load(reader);
+                }
+            } else {
+                overrides.setProperty(key, value);
+            }
+        }
+        properties.putAll(overrides);
+        return fromProperties(properties);
+    }
+
+    /**
+     * Reads the settings from properties, the missing keys keep their defaults.
+     * @throws IllegalArgumentException If a key is unknown or a value is invalid
+     */
+    public static LoadGeneratorConfig fromProperties(Properties properties) {
+        LoadGeneratorConfig config = new LoadGeneratorConfig();
+        for (String key : properties.stringPropertyNames()) {
+            String value = properties.getProperty(key).trim();
+            try {
+                switch (key) {
+                    case "accounts" -> config.accounts = Integer.parseInt(value);
+                    case "banks" -> config.banks = Integer.parseInt(value);
+                    case "tps" -> config.targetTps = Double.parseDouble(value);
+                    case "duration" -> config.durationNanos = secondsToNanos(value);
+                    case "burst" -> config.burstProfile = BurstProfile.valueOf(value.toUpperCase());
+                    case "burstFactor" -> config.burstFactor = Double.parseDouble(value);
+                    case "burstPeriod" -> config.burstPeriodNanos = secondsToNanos(value);
+                    case "burstLength" -> config.burstLengthNanos = secondsToNanos(value);
+                    case "initialBalance" -> config.initialBalance = Long.parseLong(value);
+                    case "seed" -> config.seed = Long.parseLong(value);
+                    case "skew" -> config.skew = Double.parseDouble(value);
+                    case "mix" -> config.mix = parseMix(value);
+                    case "amounts" -> config.amounts = AmountDistribution.valueOf(value.toUpperCase());
+                    case "minAmount" -> config.minAmount = Integer.parseInt(value);
+                    case "maxAmount" -> config.maxAmount = Integer.parseInt(value);
+                    case "mode" -> config.executionMode = ExecutionMode.valueOf(value.toUpperCase());
+                    case "exportDir" -> config.exportDir = Paths.get(value);
+                    case "segmentMB" -> config.segmentBytes = (long) (Double.parseDouble(value) * 1024 * 1024);
+                    case "segmentSeconds" -> config.segmentMillis = (long) (Double.parseDouble(value) * 1000);
+                    case "compress" -> config.compress = Boolean.parseBoolean(value);
+                    case "logLevel" -> config.logLevel = Level.parse(value.toUpperCase());
+                    case "admission" -> config.admissionPolicy = value.equalsIgnoreCase("NONE") ? null
+                            : AdmissionPolicy.valueOf(value.toUpperCase());
+                    case "admissionTimeout" -> config.admissionTimeoutMillis = Long.parseLong(value);
+                    case "queueDelay" -> config.queueDelayMillis = Long.parseLong(value);
+                    case "metricsInterval" -> config.metricsIntervalMillis = (long) (Double.parseDouble(value) * 1000);
+                    default -> throw new IllegalArgumentException("Unknown load generator setting: " + key);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid value for " + key + ": " + value, e);
+            }
+        }
+        config.validate();
+        return config;
+    }
+
+    // deposit:withdrawal:transfer, e.g. 5:3:2
+    private static int[] parseMix(String value) {
+        String[] parts = value.split(":");
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("Expected deposit:withdrawal:transfer weights, got: " + value);
+        }
+        return new int[] {Integer.parseInt(parts[0].trim()), Integer.parseInt(parts[1].trim()), Integer.parseInt(parts[2].trim())};
+    }
+
+    private static long secondsToNanos(String seconds) {
+        return (long) (Double.parseDouble(seconds) * TimeUnit.SECONDS.toNanos(1));
+    }
+
+    private void validate() {
+        if (accounts < 2) {
+            throw new IllegalArgumentException("At least 2 accounts are needed for transfers.");
+        }
+        if (banks <= 0 || banks > accounts) {
+            throw new IllegalArgumentException("Bank count must be between 1 and the account count.");
+        }
+        if (targetTps <= 0 || burstFactor <= 0) {
+            throw new IllegalArgumentException("Target TPS and burst factor must be positive.");
+        }
+        if (durationNanos <= 0 || burstPeriodNanos <= 0 || burstLengthNanos < 0) {
+            throw new IllegalArgumentException("Duration and burst period must be positive.");
+        }
+        if (admissionTimeoutMillis < 0 || queueDelayMillis <= 0) {
+            throw new IllegalArgumentException("Admission timeout must not be negative and the queue delay must be positive.");
+        }
+        if (metricsIntervalMillis < 0) {
+            throw new IllegalArgumentException("Metrics interval must not be negative.");
+        }
+        if (segmentBytes < 0 || segmentMillis < 0) {
+            throw new IllegalArgumentException("Segment size and time window must not be negative.");
+        }
+        if (initialBalance < 0) {
+            throw new IllegalArgumentException("Initial balance must not be negative.");
+        }
+        getProfile();  // Checks the skew, the mix and the amounts
+    }
+
+    public int getAccounts() {
+        return accounts;
+    }
+
+    public int getBanks() {
+        return banks;
+    }
+
+    public double getTargetTps() {
+        return targetTps;
+    }
+
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    public BurstProfile getBurstProfile() {
+        return burstProfile;
+    }
+
+    public double getBurstFactor() {
+        return burstFactor;
+    }
+
+    public long getBurstPeriodNanos() {
+        return burstPeriodNanos;
+    }
+
+    public long getBurstLengthNanos() {
+        return burstLengthNanos;
+    }
+
+    public long getInitialBalance() {
+        return initialBalance;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    // The transaction profile of the skew, mix and amount settings
+    public TransactionProfile getProfile() {
+        return new TransactionProfile(skew, mix[0], mix[1], mix[2], amounts, minAmount, maxAmount);
+    }
+
+    public ExecutionMode getExecutionMode() {
+        return executionMode;
+    }
+
+    public Path getExportDir() {
+        return exportDir;
+    }
+
+    // null if the exports are not rolled (segmentMB=0 and segmentSeconds=0)
+    public SegmentRollingPolicy getRollingPolicy() {
+        return segmentBytes == 0 && segmentMillis == 0 ? null : new SegmentRollingPolicy(segmentBytes, segmentMillis, compress);
+    }
+
+    public Level getLogLevel() {
+        return logLevel;
+    }
+
+    // null if the generator puts directly into the bank queues
+    public AdmissionPolicy getAdmissionPolicy() {
+        return admissionPolicy;
+    }
+
+    public long getAdmissionTimeoutMillis() {
+        return admissionTimeoutMillis;
+    }
+
+    public long getQueueDelayMillis() {
+        return queueDelayMillis;
+    }
+
+    public long getMetricsIntervalMillis() {
+        return metricsIntervalMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "accounts=" + accounts + ", banks=" + banks + ", tps=" + targetTps + ", duration=" + durationNanos / 1e9 + "s"
+                + ", burst=" + burstProfile + (burstProfile == BurstProfile.CONSTANT ? "" : " x" + burstFactor)
+                + ", " + getProfile() + ", seed=" + seed + ", mode=" + executionMode
+                + (admissionPolicy == null ? "" : ", admission=" + admissionPolicy);
+    }
+}
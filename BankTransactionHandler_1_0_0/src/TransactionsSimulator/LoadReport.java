@@ -0,0 +1,104 @@
+package TransactionsSimulator;
+
+import java.util.List;
+
+/*
+ * The LoadReport class is the result of a LoadGenerator run: how many transactions were offered and completed, the achieved throughput
+ * and the latency distribution measured from the intended send times, plus the per-stage metrics of the banks. toString() gives the
+ * printable summary.
+ */
+
+public class LoadReport {
+
+    private final LoadGeneratorConfig config;
+    private final long sent;
+    private final long completed;
+    private final long failed;
+    private final long rejected;
+    private final long generationNanos;
+    private final long elapsedNanos;
+    private final long maxScheduleLagNanos;
+    private final LatencyHistogram latency;
+    private final List<TransactionMetrics> bankMetrics;
+
+    /**
+     * @param rejected Transactions rejected by admission control (not completed)
+     * @param generationNanos Time spent publishing
+     * @param elapsedNanos Time until the last completion was seen (or the drain timed out)
+     * @param maxScheduleLagNanos Largest delay of a publish behind its due time (how far the generator itself fell behind)
+     * @param bankMetrics The stage metrics of every bank
+     */
+    public LoadReport(LoadGeneratorConfig config, long sent, long completed, long failed, long rejected, long generationNanos,
+                      long elapsedNanos, long maxScheduleLagNanos, LatencyHistogram latency, List<TransactionMetrics> bankMetrics) {
+        this.config = config;
+        this.sent = sent;
+        this.completed = completed;
+        this.failed = failed;
+        this.rejected = rejected;
+        this.generationNanos = generationNanos;
+        this.elapsedNanos = elapsedNanos;
+        this.maxScheduleLagNanos = maxScheduleLagNanos;
+        this.latency = latency;
+        this.bankMetrics = List.copyOf(bankMetrics);
+    }
+
+    public long getSent() {
+        return sent;
+    }
+
+    public long getCompleted() {
+        return completed;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public double getOfferedTps() {
+        return sent / (generationNanos / 1e9);
+    }
+
+    public double getAchievedTps() {
+        return completed / (elapsedNanos / 1e9);
+    }
+
+    public long getMaxScheduleLagNanos() {
+        return maxScheduleLagNanos;
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    public List<TransactionMetrics> getBankMetrics() {
+        return bankMetrics;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder stages = new StringBuilder();
+        for (TransactionMetrics metrics : bankMetrics) {
+            stages.append(metrics.format());
+        }
+        return String.format("""
+                --- Load test summary ---
+                Config:      %s
+                Offered:     %d transactions in %.2f s (%.0f TPS, target %.0f)
+                Completed:   %d transactions (%d failed, %d rejected, %d unfinished) in %.2f s (%.0f TPS)
+                Latency:     mean %.1f us, p50 %.1f us, p90 %.1f us, p99 %.1f us, p99.9 %.1f us, max %.1f us
+                Max schedule lag of the generator: %.1f us
+                %s""",
+                config, sent, generationNanos / 1e9, getOfferedTps(), config.getTargetTps(),
+                completed, failed, rejected, sent - completed - rejected, elapsedNanos / 1e9, getAchievedTps(),
+                latency.getMean() / 1e3, micros(50), micros(90), micros(99), micros(99.9), latency.getMax() / 1e3,
+                maxScheduleLagNanos / 1e3, stages);
+    }
+
+    private double micros(double percentile) {
+        return latency.getValueAtPercentile(percentile) / 1e3;
+    }
+}
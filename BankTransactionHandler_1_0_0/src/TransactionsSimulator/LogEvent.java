@@ -0,0 +1,40 @@
+package TransactionsSimulator;
+
+import java.util.logging.Level;
+
+/*
+ * The LogEvent enum lists the structured events of the transaction hot path, logged through EventLogger. Every event has a level and the
+ * names of its fields: two object fields (account IDs, enums) and two long fields (amounts, balances). A null name means the field is unused.
+ */
+
+public enum LogEvent {
+
+    DEPOSIT_COMPLETED(Level.FINE, "account", null, "amount", "balance"),
+    WITHDRAWAL_COMPLETED(Level.FINE, "account", null, "amount", "balance"),
+    TRANSFER_COMPLETED(Level.FINE, "account", "target", "amount", null),
+    INSUFFICIENT_FUNDS(Level.WARNING, "account", "type", "amount", "balance"),
+
+    TRANSACTION_DEQUEUED(Level.FINE, "account", "type", "amount", null),
+    TRANSACTION_MONITORED(Level.FINE, "account", "status", "amount", null),
+    RULE_REJECTED(Level.WARNING, "account", "rule", "amount", null),
+    TRANSACTION_PROCESSED(Level.INFO, "account", "status", "amount", null),
+    TRANSACTION_NOT_EXPORTED(Level.WARNING, "account", "type", "amount", null),
+    ADMISSION_REJECTED(Level.WARNING, "account", "policy", "amount", "limit"),
+
+    // Logged by the drainer itself when events were dropped because the buffer was full
+    EVENTS_DROPPED(Level.WARNING, null, null, "count", null);
+
+    final Level level;
+    final int levelValue;
+    final String[] fieldNames;
+
+    LogEvent(Level level, String subject, String detail, String value, String value2) {
+        this.level = level;
+        this.levelValue = level.intValue();
+        this.fieldNames = new String[] {subject, detail, value, value2};
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+}
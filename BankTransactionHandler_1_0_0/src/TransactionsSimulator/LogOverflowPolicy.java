@@ -0,0 +1,4 @@
+package TransactionsSimulator;
+public enum LogOverflowPolicy {
+    DROP, BLOCK
+}
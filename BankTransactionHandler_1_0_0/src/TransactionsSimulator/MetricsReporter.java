@@ -0,0 +1,54 @@
+package TransactionsSimulator;
+
+import java.io.PrintStream;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * The MetricsReporter class prints the TransactionMetrics of the banks at a fixed interval on a daemon thread, as a periodic text dump
+ * next to the JMX MBeans.
+ */
+
+public class MetricsReporter implements AutoCloseable {
+
+    private final List<TransactionMetrics> metrics;
+    private final PrintStream out;
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * Starts printing.
+     * @param metrics The metrics to print, one block per bank
+     * @param intervalMillis Time between two dumps
+     * @param out Where to print (e.g. System.out)
+     */
+    public MetricsReporter(List<TransactionMetrics> metrics, long intervalMillis, PrintStream out) {
+        if (intervalMillis <= 0) {
+            throw new IllegalArgumentException("Dump interval must be positive.");
+        }
+        this.metrics = List.copyOf(metrics);
+        this.out = out;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Metrics-Reporter-Thread");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(this::dump, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // Prints all banks' metrics at once, so the blocks of a dump stay together
+    public void dump() {
+        StringBuilder sb = new StringBuilder();
+        for (TransactionMetrics bankMetrics : metrics) {
+            sb.append(bankMetrics.format());
+        }
+        out.print(sb);
+        out.flush();
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
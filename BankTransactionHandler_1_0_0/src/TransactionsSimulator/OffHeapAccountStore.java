@@ -0,0 +1,192 @@
+package TransactionsSimulator;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/*
+ * The OffHeapAccountStore class keeps the account balances outside of the Java heap, 8 bytes per account, so hundreds of millions of accounts
+ * cost the garbage collector nothing. The balances live in direct ByteBuffers of up to 1 GB each (a single buffer can't exceed 2 GB); with
+ * open() they are memory mapped from a file instead, so the balances survive a restart of the simulator.
+ *
+ * Every slot is updated atomically through a VarHandle (getAndAdd for deposits, a compare-and-set loop for withdrawals), so there are no locks
+ * at all. A transfer is a withdrawal followed by a deposit: it never overdraws the source and never loses money, but a concurrent reader can
+ * briefly see the amount in neither account. Use StripedAccountTable when transfers must be seen atomically or a write-ahead log is needed.
+ *
+ * File layout: int magic, int reserved, long account count, padded to 64 bytes, then one little endian long per account.
+ * Anonymous stores allocate direct memory, which is limited by -XX:MaxDirectMemorySize (by default the maximum heap size).
+ */
+
+public class OffHeapAccountStore implements AccountStore, AutoCloseable {
+
+    static final int MAGIC = 0x42415331;  // "BAS1"
+    static final int HEADER_SIZE = 64;
+
+    // 2^27 slots (1 GB) per buffer
+    private static final int CHUNK_SHIFT = 27;
+    private static final int CHUNK_MASK = (1 << CHUNK_SHIFT) - 1;
+
+    private static final VarHandle SLOT = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final int size;
+    private final ByteBuffer[] chunks;
+    private final FileChannel channel;  // null if not file backed
+    private final MappedByteBuffer header;
+
+    /**
+     * Creates an anonymous store in direct memory with all balances at 0.
+     */
+    public OffHeapAccountStore(int accounts) {
+        this(checkCount(accounts), null, null);
+        for (int c = 0; c < chunks.length; c++) {
+            chunks[c] = ByteBuffer.allocateDirect(chunkBytes(c));
+        }
+    }
+
+    private OffHeapAccountStore(int accounts, FileChannel channel, MappedByteBuffer header) {
+        this.size = accounts;
+        this.channel = channel;
+        this.header = header;
+        this.chunks = new ByteBuffer[(int) ((accounts + (long) CHUNK_MASK) >>> CHUNK_SHIFT)];
+    }
+
+    /**
+     * Opens (or creates) a file backed store. Balances already in the file are kept, new accounts start at 0.
+     * @param file The balance file
+     * @param accounts Number of accounts, at least as many as the file already holds
+     */
+    public static OffHeapAccountStore open(Path file, int accounts) throws IOException {
+        checkCount(accounts);
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+            if (channel.size() > HEADER_SIZE) {
+                if (header.getInt(0) != MAGIC) {
+                    throw new IOException("Not an account store file: " + file);
+                }
+                long existing = header.getLong(8);
+                if (existing > accounts) {
+                    throw new IllegalArgumentException("The file holds " + existing + " accounts, more than " + accounts + ".");
+                }
+            }
+            header.putInt(0, MAGIC).putLong(8, accounts);
+
+            OffHeapAccountStore store = new OffHeapAccountStore(accounts, channel, header);
+            for (int c = 0; c < store.chunks.length; c++) {
+                long position = HEADER_SIZE + ((long) c << (CHUNK_SHIFT + 3));
+                store.chunks[c] = channel.map(FileChannel.MapMode.READ_WRITE, position, store.chunkBytes(c));
+            }
+            return store;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public long getBalance(int account) {
+        return (long) SLOT.getVolatile(chunkOf(account), offsetOf(account));
+    }
+
+    @Override
+    public void deposit(int account, long amount) {
+        SLOT.getAndAdd(chunkOf(account), offsetOf(account), amount);
+    }
+
+    @Override
+    public boolean withdraw(int account, long amount) {
+        ByteBuffer chunk = chunkOf(account);
+        int offset = offsetOf(account);
+        long balance;
+        do {
+            balance = (long) SLOT.getVolatile(chunk, offset);
+            if (balance < amount) {
+                return false;
+            }
+        } while (!SLOT.compareAndSet(chunk, offset, balance, balance - amount));
+        return true;
+    }
+
+    @Override
+    public boolean transfer(int from, int to, long amount, long fee) {
+        chunkOf(to);  // Validate the target before anything is withdrawn
+        if (!withdraw(from, amount + fee)) {
+            return false;
+        }
+        deposit(to, amount);
+        return true;
+    }
+
+    @Override
+    public void setBalance(int account, long balance) {
+        SLOT.setVolatile(chunkOf(account), offsetOf(account), balance);
+    }
+
+    @Override
+    public void resetBalance(int account) {
+        setBalance(account, 0);
+    }
+
+    /**
+     * Writes the balances of a file backed store to the storage device. Does nothing for anonymous stores.
+     */
+    public void force() {
+        if (channel == null) {
+            return;
+        }
+        header.force();
+        for (ByteBuffer chunk : chunks) {
+            ((MappedByteBuffer) chunk).force();
+        }
+    }
+
+    /**
+     * Forces and closes the file of a file backed store. The memory itself is released when the store is garbage collected.
+     */
+    @Override
+    public void close() {
+        if (channel == null) {
+            return;
+        }
+        force();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private ByteBuffer chunkOf(int account) {
+        if (account < 0 || account >= size) {
+            throw new IndexOutOfBoundsException("Unknown account index: " + account);
+        }
+        return chunks[account >>> CHUNK_SHIFT];
+    }
+
+    private int chunkBytes(int c) {
+        int slots = Math.min(1 << CHUNK_SHIFT, size - (c << CHUNK_SHIFT));
+        return slots << 3;
+    }
+
+    private static int offsetOf(int account) {
+        return (account & CHUNK_MASK) << 3;
+    }
+
+    private static int checkCount(int accounts) {
+        if (accounts < 0) {
+            throw new IllegalArgumentException("Account count must not be negative.");
+        }
+        return accounts;
+    }
+}
@@ -0,0 +1,116 @@
+package TransactionsSimulator;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/*
+ * The ParallelTransactionGenerator class produces random transactions according to a TransactionProfile, reproducibly from a seed.
+ * Unlike TransactionGenerator it has no lock, no shared Random and no buffer: every thread draws from its own SplittableRandom stream
+ * (stream(index)), and the streams are derived from the seed and the stream index only. generate() splits the work into fixed chunks with
+ * one stream each, so the same seed gives the same transactions in the same order however many threads run it.
+ */
+
+public class ParallelTransactionGenerator {
+
+    // Transactions per chunk of generate(), each chunk has its own stream
+    private static final int CHUNK_SIZE = 16 * 1024;
+
+    private final String[] accountIds;
+    private final TransactionProfile profile;
+    private final long seed;
+    private final ZipfDistribution accounts;
+    private final int depositBound;     // Type draw below this is a deposit
+    private final int withdrawalBound;  // Below this a withdrawal, below the total weight a transfer
+    private final int totalWeight;
+
+    /**
+     * @param accountIds The accounts, the first one is the hottest when the profile is skewed
+     * @param profile What to generate
+     * @param seed The same seed (with the same accounts and profile) reproduces the same transactions
+     */
+    public ParallelTransactionGenerator(List<String> accountIds, TransactionProfile profile, long seed) {
+        if (accountIds.isEmpty()) {
+            throw new IllegalArgumentException("At least one account is needed.");
+        }
+        if (accountIds.size() < 2 && profile.getTransferWeight() > 0) {
+            throw new IllegalArgumentException("Transfers need at least 2 accounts.");
+        }
+        this.accountIds = accountIds.toArray(new String[0]);
+        this.profile = profile;
+        this.seed = seed;
+        this.accounts = new ZipfDistribution(this.accountIds.length, profile.getZipfExponent());
+        this.depositBound = profile.getDepositWeight();
+        this.withdrawalBound = depositBound + profile.getWithdrawalWeight();
+        this.totalWeight = withdrawalBound + profile.getTransferWeight();
+    }
+
+    /**
+     * Returns the random stream with the given index. Different indices give independent streams, the same index always the same one.
+     * Use one stream per thread: a SplittableRandom must not be shared.
+     */
+    public SplittableRandom stream(long index) {
+        return new SplittableRandom(mix64(seed + mix64(index)));
+    }
+
+    // Draws a source account index according to the profile's skew
+    public int nextAccount(SplittableRandom random) {
+        return accounts.sample(random);
+    }
+
+    // Draws a transaction from a random source account
+    public Transaction next(SplittableRandom random) {
+        return next(random, nextAccount(random));
+    }
+
+    /**
+     * Draws a transaction from the given source account (callers that route by account can draw it with nextAccount() first).
+     * Transfer targets follow the same skew as the sources, but are never the source itself.
+     */
+    public Transaction next(SplittableRandom random, int account) {
+        int draw = random.nextInt(totalWeight);
+        TransactionType type = draw < depositBound ? TransactionType.DEPOSIT
+                : draw < withdrawalBound ? TransactionType.WITHDRAWAL : TransactionType.TRANSFER;
+        int amount = profile.getAmounts().sample(random, profile.getMinAmount(), profile.getMaxAmount());
+        if (type != TransactionType.TRANSFER) {
+            return new Transaction(accountIds[account], amount, type);
+        }
+        int target;
+        do {
+            target = accounts.sample(random);
+        } while (target == account);
+        return new Transaction(accountIds[account], amount, type, accountIds[target]);
+    }
+
+    /**
+     * Generates count transactions in parallel (on the common ForkJoinPool), in chunks of CHUNK_SIZE with one stream per chunk.
+     * The result only depends on the seed, the accounts and the profile.
+     */
+    public Transaction[] generate(int count) {
+        Transaction[] transactions = new Transaction[count];
+        int chunks = (count + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        IntStream.range(0, chunks).parallel().forEach(chunk -> {
+            SplittableRandom random = stream(chunk);
+            int end = Math.min(count, (chunk + 1) * CHUNK_SIZE);
+            for (int i = chunk * CHUNK_SIZE; i < end; i++) {
+                transactions[i] = next(random);
+            }
+        });
+        return transactions;
+    }
+
+    public TransactionProfile getProfile() {
+        return profile;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    // Stafford's variant 13 of the MurmurHash3 finalizer, spreads nearby seeds over unrelated SplittableRandom states
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
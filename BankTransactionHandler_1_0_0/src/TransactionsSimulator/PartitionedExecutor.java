@@ -0,0 +1,190 @@
+package TransactionsSimulator;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/*
+ * The PartitionedExecutor class runs transactions on a fixed set of single-writer shards. Account i belongs to shard i % shardCount, and every
+ * transaction is executed on the shard of its source account, in the order it was submitted. So the transactions of one account never race
+ * each other (a withdrawal can't overtake the deposit before it) and the shard is the only thread that writes its accounts' balances.
+ *
+ * A transfer to an account of another shard is split: the source shard debits the source account and hands the transaction off to the
+ * target's shard (handOff()), together with the ticket of the debit (AccountStore.beginTransfer()), which credits it in its own order and
+ * completes the transaction. Until then the amount is in flight. Shards poll their hand-off (credit) queue before every batch of new
+ * transactions, so credits are never starved.
+ *
+ * execute() must be called from a single dispatcher thread, handOff() only from a shard while it runs a transaction.
+ */
+
+public class PartitionedExecutor implements AutoCloseable {
+
+    private static final Logger logger = Logger.getLogger(PartitionedExecutor.class.getName());
+
+    private static final int BATCH_SIZE = 64;
+
+    /**
+     * The work done on the shards.
+     */
+    public interface ShardHandler {
+
+        // Runs a transaction on the shard of its source account
+        void onTransaction(Transaction transaction);
+
+        // Runs a handed off transfer on the shard of its target account, with the ticket given to handOff()
+        void onCredit(Transaction transaction, long ticket);
+    }
+
+    private final ShardHandler handler;
+    private final WaitStrategy waitStrategy;
+    private final Shard[] shards;
+
+    // Transactions submitted but not completed yet (a handed off transfer completes on the target shard)
+    private final LongAdder inFlight = new LongAdder();
+    private volatile boolean closing;
+
+    /**
+     * @param shardCount Number of shard threads
+     * @param name Prefix of the thread names
+     * @param waitStrategy How idle shards wait for work
+     */
+    public PartitionedExecutor(int shardCount, String name, WaitStrategy waitStrategy, ShardHandler handler) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("Shard count must be positive.");
+        }
+        this.handler = handler;
+        this.waitStrategy = waitStrategy;
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(name + "-Shard-" + i);
+        }
+        for (Shard shard : shards) {
+            shard.start();
+        }
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    public int shardOf(int account) {
+        return account % shards.length;
+    }
+
+    /**
+     * Queues a transaction on the shard of its source account.
+     * @param account Registry index of the source account
+     */
+    public void execute(Transaction transaction, int account) {
+        if (closing) {
+            throw new IllegalStateException("Executor is closed.");
+        }
+        inFlight.increment();
+        shards[shardOf(account)].inbox.offer(transaction);
+    }
+
+    /**
+     * Hands the transaction over to the shard of the target account (called by the handler on the source shard, after the debit).
+     * The transaction completes when the target shard has run onCredit().
+     * @param target Registry index of the target account
+     * @param ticket Passed on to onCredit() (the ticket of the debit)
+     */
+    public void handOff(Transaction transaction, int target, long ticket) {
+        if (!(Thread.currentThread() instanceof Shard current) || current.executor() != this) {
+            throw new IllegalStateException("handOff() must be called from a shard of this executor.");
+        }
+        current.handedOff = true;
+        shards[shardOf(target)].credits.offer(new Credit(transaction, ticket));
+    }
+
+    // Number of transactions queued on the shards (including credits)
+    public int getQueuedCount() {
+        int queued = 0;
+        for (Shard shard : shards) {
+            queued += shard.inbox.size() + shard.credits.size();
+        }
+        return queued;
+    }
+
+    /**
+     * Stops accepting transactions and waits until every submitted transaction, including its hand-off, has completed.
+     */
+    @Override
+    public void close() {
+        closing = true;
+        for (Shard shard : shards) {
+            try {
+                shard.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    // A handed off transfer waiting for its target shard
+    private record Credit(Transaction transaction, long ticket) {
+    }
+
+    private final class Shard extends Thread {
+
+        private final Queue<Transaction> inbox = new ConcurrentLinkedQueue<>();
+        private final Queue<Credit> credits = new ConcurrentLinkedQueue<>();
+        private boolean handedOff;
+
+        private Shard(String name) {
+            super(name);
+            setDaemon(true);
+        }
+
+        private PartitionedExecutor executor() {
+            return PartitionedExecutor.this;
+        }
+
+        @Override
+        public void run() {
+            int spins = 0;
+            while (true) {
+                int done = runCredits();
+                Transaction transaction;
+                while (done < BATCH_SIZE && (transaction = inbox.poll()) != null) {
+                    handedOff = false;
+                    try {
+                        handler.onTransaction(transaction);
+                    } catch (RuntimeException e) {
+                        logger.severe(getName() + " failed to run a transaction: " + e);
+                    }
+                    if (!handedOff) {
+                        inFlight.decrement();
+                    }
+                    done++;
+                }
+
+                if (done > 0) {
+                    spins = 0;
+                } else if (closing && inFlight.sum() == 0) {
+                    // Nothing can arrive any more: no new transactions, and no transfer left that could hand off a credit
+                    return;
+                } else {
+                    spins = waitStrategy.idle(spins);
+                }
+            }
+        }
+
+        private int runCredits() {
+            int done = 0;
+            Credit credit;
+            while ((credit = credits.poll()) != null) {
+                try {
+                    handler.onCredit(credit.transaction(), credit.ticket());
+                } catch (RuntimeException e) {
+                    logger.severe(getName() + " failed to credit a transfer: " + e);
+                }
+                inFlight.decrement();
+                done++;
+            }
+            return done;
+        }
+    }
+}
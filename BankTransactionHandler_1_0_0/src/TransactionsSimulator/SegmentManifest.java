@@ -0,0 +1,97 @@
+package TransactionsSimulator;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * The SegmentManifest class is the index of the closed export segments of one file ('<bank>_transactions.manifest' next to the segments).
+ * Every closed segment adds one tab separated line: segment file name, first and last transaction timestamp (epoch nanoseconds), number of
+ * records and uncompressed size in bytes. A reader looking for a time range reads the manifest and opens only the segments that overlap it,
+ * instead of scanning every file. The segment still being written is not in the manifest yet.
+ */
+
+public class SegmentManifest {
+
+    public static final String EXTENSION = ".manifest";
+    private static final String HEADER = "# segment\tfirstEpochNanos\tlastEpochNanos\trecords\tbytes";
+
+    /**
+     * One closed segment.
+     */
+    public record Entry(String segment, long firstEpochNanos, long lastEpochNanos, long records, long bytes) {
+
+        // Whether the segment holds transactions from the range [fromEpochNanos, toEpochNanos]
+        public boolean overlaps(long fromEpochNanos, long toEpochNanos) {
+            return firstEpochNanos <= toEpochNanos && lastEpochNanos >= fromEpochNanos;
+        }
+    }
+
+    private SegmentManifest() {
+    }
+
+    // The manifest of the segments of a base name ('<bank>_transactions')
+    public static Path path(Path directory, String baseName) {
+        return directory.resolve(baseName + EXTENSION);
+    }
+
+    /**
+     * Adds a closed segment to the manifest (creating it with a header line if needed).
+     */
+    static void append(Path directory, String baseName, Entry entry) throws IOException {
+        Path manifest = path(directory, baseName);
+        boolean created = Files.notExists(manifest);
+        try (Writer writer = Files.newBufferedWriter(manifest, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            if (created) {
+                writer.write(HEADER + "\n");
+            }
+            writer.write(entry.segment() + "\t" + entry.firstEpochNanos() + "\t" + entry.lastEpochNanos() + "\t"
+                    + entry.records() + "\t" + entry.bytes() + "\n");
+        }
+    }
+
+    /**
+     * Reads every entry of a manifest in the order the segments were closed (empty if there is no manifest yet).
+     */
+    public static List<Entry> read(Path directory, String baseName) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        Path manifest = path(directory, baseName);
+        if (Files.notExists(manifest)) {
+            return entries;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(manifest, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split("\t");
+                if (fields.length != 5) {
+                    throw new IOException("Malformed manifest line in " + manifest + ": " + line);
+                }
+                entries.add(new Entry(fields[0], Long.parseLong(fields[1]), Long.parseLong(fields[2]),
+                        Long.parseLong(fields[3]), Long.parseLong(fields[4])));
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Returns the segment files that hold transactions from the given time range (epoch nanoseconds, inclusive).
+     */
+    public static List<Path> segmentsBetween(Path directory, String baseName, long fromEpochNanos, long toEpochNanos) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        for (Entry entry : read(directory, baseName)) {
+            if (entry.overlaps(fromEpochNanos, toEpochNanos)) {
+                segments.add(directory.resolve(entry.segment()));
+            }
+        }
+        return segments;
+    }
+}
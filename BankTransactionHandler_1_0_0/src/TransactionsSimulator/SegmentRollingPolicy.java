@@ -0,0 +1,64 @@
+package TransactionsSimulator;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ * The SegmentRollingPolicy class tells a JSON_LINES TransactionExporter when to close the current export segment of a file and start the next
+ * one: when the segment reaches a size, or when it has been open for a time window, whichever comes first. Closed segments are optionally
+ * GZIP compressed in the background; either way they are listed in the SegmentManifest of their file. It is immutable.
+ */
+
+public class SegmentRollingPolicy {
+
+    private final long maxSegmentBytes;
+    private final long maxSegmentMillis;
+    private final boolean compress;
+
+    /**
+     * @param maxSegmentBytes Size after which a segment is closed (uncompressed), 0 for no size limit
+     * @param maxSegmentMillis Time after which a segment is closed, 0 for no time limit
+     * @param compress Whether closed segments are GZIP compressed
+     */
+    public SegmentRollingPolicy(long maxSegmentBytes, long maxSegmentMillis, boolean compress) {
+        if (maxSegmentBytes < 0 || maxSegmentMillis < 0) {
+            throw new IllegalArgumentException("Segment limits must not be negative.");
+        }
+        if (maxSegmentBytes == 0 && maxSegmentMillis == 0) {
+            throw new IllegalArgumentException("A segment needs a size or a time limit.");
+        }
+        this.maxSegmentBytes = maxSegmentBytes;
+        this.maxSegmentMillis = maxSegmentMillis;
+        this.compress = compress;
+    }
+
+    // 64 MB or 15 minutes per segment, compressed
+    public static SegmentRollingPolicy defaults() {
+        return new SegmentRollingPolicy(64L * 1024 * 1024, TimeUnit.MINUTES.toMillis(15), true);
+    }
+
+    /**
+     * Whether a segment with the given size, opened at the given System.nanoTime(), has to be closed.
+     */
+    boolean isFull(long segmentBytes, long openedNanos, long nowNanos) {
+        return (maxSegmentBytes > 0 && segmentBytes >= maxSegmentBytes)
+                || (maxSegmentMillis > 0 && nowNanos - openedNanos >= TimeUnit.MILLISECONDS.toNanos(maxSegmentMillis));
+    }
+
+    public long getMaxSegmentBytes() {
+        return maxSegmentBytes;
+    }
+
+    public long getMaxSegmentMillis() {
+        return maxSegmentMillis;
+    }
+
+    public boolean isCompress() {
+        return compress;
+    }
+
+    @Override
+    public String toString() {
+        return "segments of " + (maxSegmentBytes > 0 ? maxSegmentBytes + " bytes" : "any size")
+                + (maxSegmentMillis > 0 ? " / " + maxSegmentMillis + " ms" : "") + (compress ? ", gzip" : "");
+    }
+}
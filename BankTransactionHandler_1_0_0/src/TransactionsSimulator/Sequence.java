@@ -0,0 +1,52 @@
+package TransactionsSimulator;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/*
+ * The Sequence class is a long counter of the TransactionRingBuffer, padded to its own cache line on both sides, so the producer's cursor
+ * and the consumers' sequences don't slow each other down by sharing a cache line (false sharing). The padding fields are spread over a
+ * class hierarchy, because the JVM doesn't reorder fields across classes.
+ */
+
+abstract class SequenceLeftPadding {
+    protected long p1, p2, p3, p4, p5, p6, p7;
+}
+
+abstract class SequenceValue extends SequenceLeftPadding {
+    protected volatile long value;
+}
+
+abstract class SequenceRightPadding extends SequenceValue {
+    protected long p9, p10, p11, p12, p13, p14, p15;
+}
+
+final class Sequence extends SequenceRightPadding {
+
+    private static final VarHandle VALUE;
+
+    static {
+        try {
+            VALUE = MethodHandles.lookup().findVarHandle(SequenceValue.class, "value", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    Sequence(long initialValue) {
+        this.value = initialValue;
+    }
+
+    long get() {
+        return value;
+    }
+
+    // Ordered store: cheaper than a volatile write, still makes every earlier write visible to a thread that reads the new value
+    void setRelease(long newValue) {
+        VALUE.setRelease(this, newValue);
+    }
+
+    boolean compareAndSet(long expected, long newValue) {
+        return VALUE.compareAndSet(this, expected, newValue);
+    }
+}
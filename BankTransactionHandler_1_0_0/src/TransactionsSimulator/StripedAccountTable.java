@@ -0,0 +1,301 @@
+package TransactionsSimulator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+ * The StripedAccountTable class holds the balances of all accounts in one primitive long[] indexed by the dense account index of the
+ * AccountRegistry. Instead of one lock per account it uses a fixed number of lock stripes (account index modulo stripe count), so the
+ * memory cost per account is just its 8 byte balance (plus 8 bytes of LSN once a write-ahead log is attached).
+ *
+ * Transfers lock the two stripes in stripe order (and a shared stripe only once), so they can't deadlock.
+ *
+ * With a write-ahead log every change is logged before it is stored: if the log has failed, append() throws and the balance is unchanged.
+ * A split transfer (beginTransfer() and completeTransfer()) is logged as a TRANSFER_OUT and a TRANSFER_IN record; the table keeps the
+ * LSNs of the ones in flight, so a snapshot starts early enough to see them (see BalanceSnapshotter).
+ */
+
+public class StripedAccountTable implements AccountStore {
+
+    private final long[] balances;
+    private final ReentrantLock[] stripes;
+    private final int stripeMask;
+
+    // Optional write-ahead log and the LSN of the last logged change per account
+    private BalanceWriteAheadLog wal;
+    private long[] lastLsns;
+
+    // LSNs of the TRANSFER_OUT records whose credit hasn't been logged yet
+    private final ConcurrentSkipListSet<Long> pendingTransfers = new ConcurrentSkipListSet<>();
+
+    // Credits of in-flight transfers applied by recovery, logged once the log is attached: {target, LSN of the TRANSFER_OUT, amount}
+    private final List<long[]> recoveredCredits = new ArrayList<>();
+
+    /**
+     * Creates a table with 1024 lock stripes (fewer for small tables).
+     */
+    public StripedAccountTable(int accounts) {
+        this(accounts, 1024);
+    }
+
+    /**
+     * @param accounts Number of accounts (the size of the registry)
+     * @param stripeCount Number of locks, rounded up to a power of two
+     */
+    public StripedAccountTable(int accounts, int stripeCount) {
+        if (accounts < 0 || stripeCount <= 0) {
+            throw new IllegalArgumentException("Account and stripe count must be positive.");
+        }
+        int size = 1;
+        while (size < Math.min(stripeCount, Math.max(1, accounts))) {
+            size <<= 1;
+        }
+        this.balances = new long[accounts];
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.stripeMask = size - 1;
+    }
+
+    @Override
+    public int size() {
+        return balances.length;
+    }
+
+    /**
+     * Attaches a write-ahead log: from now on every change is logged under the account's index.
+     * The credits recovery applied for transfers in flight at the crash are logged first, so they are never applied twice.
+     * Call it before the table is shared with other threads.
+     */
+    public void attachWriteAheadLog(BalanceWriteAheadLog wal) {
+        if (lastLsns == null) {
+            lastLsns = new long[balances.length];
+        }
+        this.wal = wal;
+        for (long[] credit : recoveredCredits) {
+            int account = (int) credit[0];
+            lastLsns[account] = wal.appendTransferIn(account, balances[account], credit[1], credit[2]);
+        }
+        recoveredCredits.clear();
+    }
+
+    @Override
+    public long getBalance(int account) {
+        ReentrantLock lock = stripeOf(account);
+        lock.lock();
+        try {
+            return balances[account];
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void deposit(int account, long amount) {
+        ReentrantLock lock = stripeOf(account);
+        lock.lock();
+        try {
+            long after = balances[account] + amount;
+            if (wal != null) {
+                lastLsns[account] = wal.append(BalanceWriteAheadLog.OP_DEPOSIT, account, amount, after);
+            }
+            balances[account] = after;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean withdraw(int account, long amount) {
+        ReentrantLock lock = stripeOf(account);
+        lock.lock();
+        try {
+            if (balances[account] < amount) {
+                return false;
+            }
+            long after = balances[account] - amount;
+            if (wal != null) {
+                lastLsns[account] = wal.append(BalanceWriteAheadLog.OP_WITHDRAW, account, amount, after);
+            }
+            balances[account] = after;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean transfer(int from, int to, long amount, long fee) {
+        checkIndex(from);
+        checkIndex(to);
+        int fromStripe = from & stripeMask;
+        int toStripe = to & stripeMask;
+        ReentrantLock first = stripes[Math.min(fromStripe, toStripe)];
+        ReentrantLock second = stripes[Math.max(fromStripe, toStripe)];
+
+        first.lock();
+        try {
+            if (second != first) {
+                second.lock();
+            }
+            try {
+                if (balances[from] < amount + fee) {
+                    return false;
+                }
+                long fromAfter = balances[from] - amount - fee;
+                long toAfter = from == to ? fromAfter + amount : balances[to] + amount;
+                if (wal != null) {
+                    long lsn = wal.appendTransfer(from, fromAfter, to, toAfter, amount);
+                    lastLsns[from] = lsn;
+                    lastLsns[to] = lsn;
+                }
+                balances[from] = fromAfter;
+                balances[to] = toAfter;
+                return true;
+            } finally {
+                if (second != first) {
+                    second.unlock();
+                }
+            }
+        } finally {
+            first.unlock();
+        }
+    }
+
+    @Override
+    public long beginTransfer(int from, int to, long amount, long fee) {
+        checkIndex(to);
+        ReentrantLock lock = stripeOf(from);
+        lock.lock();
+        try {
+            if (balances[from] < amount + fee) {
+                return -1;
+            }
+            long after = balances[from] - amount - fee;
+            long ticket = 0;
+            if (wal != null) {
+                ticket = wal.appendTransferOut(from, after, to, amount);
+                lastLsns[from] = ticket;
+                pendingTransfers.add(ticket);
+            }
+            balances[from] = after;
+            return ticket;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void completeTransfer(int to, long amount, long ticket) {
+        ReentrantLock lock = stripeOf(to);
+        lock.lock();
+        try {
+            long after = balances[to] + amount;
+            if (wal != null) {
+                lastLsns[to] = ticket > 0
+                        ? wal.appendTransferIn(to, after, ticket, amount)
+                        : wal.append(BalanceWriteAheadLog.OP_DEPOSIT, to, amount, after);  // Debited before the log was attached
+            }
+            balances[to] = after;
+        } finally {
+            lock.unlock();
+        }
+        pendingTransfers.remove(ticket);
+    }
+
+    /**
+     * Returns the LSN of the oldest transfer whose credit hasn't been logged yet, Long.MAX_VALUE if there is none.
+     */
+    long oldestPendingTransfer() {
+        Long oldest = pendingTransfers.ceiling(Long.MIN_VALUE);
+        return oldest != null ? oldest : Long.MAX_VALUE;
+    }
+
+    @Override
+    public void setBalance(int account, long balance) {
+        ReentrantLock lock = stripeOf(account);
+        lock.lock();
+        try {
+            if (wal != null) {
+                lastLsns[account] = wal.append(BalanceWriteAheadLog.OP_SET, account, balance, balance);
+            }
+            balances[account] = balance;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void resetBalance(int account) {
+        ReentrantLock lock = stripeOf(account);
+        lock.lock();
+        try {
+            if (wal != null) {
+                lastLsns[account] = wal.append(BalanceWriteAheadLog.OP_RESET, account, 0, 0);
+            }
+            balances[account] = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Copies the balance and the LSN of the last logged change, read together under the lock (used by snapshots).
+     * @param state Receives the balance at [0] and the LSN at [1]
+     */
+    void copyState(int account, long[] state) {
+        ReentrantLock lock = stripeOf(account);
+        lock.lock();
+        try {
+            state[0] = balances[account];
+            state[1] = lastLsns != null ? lastLsns[account] : 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Sets the recovered balance and LSN without logging anything (used by crash recovery).
+     */
+    void recoverState(int account, long balance, long lsn) {
+        ReentrantLock lock = stripeOf(account);
+        lock.lock();
+        try {
+            balances[account] = balance;
+            if (lastLsns == null) {
+                lastLsns = new long[balances.length];
+            }
+            lastLsns[account] = lsn;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Credits a transfer that was in flight at the crash (its TRANSFER_OUT has no TRANSFER_IN), after recoverState() (used by crash recovery).
+     */
+    void recoverCredit(int account, long amount, long transferLsn) {
+        ReentrantLock lock = stripeOf(account);
+        lock.lock();
+        try {
+            balances[account] += amount;
+            recoveredCredits.add(new long[] {account, transferLsn, amount});
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ReentrantLock stripeOf(int account) {
+        checkIndex(account);
+        return stripes[account & stripeMask];
+    }
+
+    private void checkIndex(int account) {
+        if (account < 0 || account >= balances.length) {
+            throw new IndexOutOfBoundsException("Unknown account index: " + account);
+        }
+    }
+}
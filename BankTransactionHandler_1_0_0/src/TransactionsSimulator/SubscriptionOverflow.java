@@ -0,0 +1,12 @@
+package TransactionsSimulator;
+
+/*
+ * The SubscriptionOverflow enum decides what a BalanceSubscription does with a published snapshot when its buffer is full:
+ *  - BLOCK: the publisher waits until there is room (lossless, but a slow consumer slows down the whole simulation)
+ *  - DROP_OLDEST: removes the oldest buffered snapshot to make room, counted as dropped
+ *  - DROP_NEWEST: keeps the buffer as it is and drops the new snapshot, counted as dropped
+ */
+
+public enum SubscriptionOverflow {
+    BLOCK, DROP_OLDEST, DROP_NEWEST
+}
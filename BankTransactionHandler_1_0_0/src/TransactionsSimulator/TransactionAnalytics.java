@@ -0,0 +1,74 @@
+package TransactionsSimulator;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * The TransactionAnalytics class is the streaming analytics stage of the processors: every completed transaction is added to the WindowedStats
+ * of its bank and of its account (TPS, volume, failure rate, mean and percentile amounts over sliding and tumbling windows). Each record is
+ * O(1), and the windows can be read at any time, from any thread, without rescanning the history or blocking the processors.
+ *
+ * Banks get 1 second slots over 5 minutes with 1/16 amount precision (about 1 MB per bank). Accounts get 10 second slots over 1 minute
+ * with 1/4 precision, about 6 KB per account, created at the account's first transaction. Tumbling windows can be at most half as long
+ * (2.5 minutes per bank, 30 seconds per account).
+ */
+
+public class TransactionAnalytics {
+
+    private static final long BANK_SLOT_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final int BANK_SLOTS = 300;
+    private static final int BANK_SUB_BUCKET_BITS = 4;
+
+    private static final long ACCOUNT_SLOT_NANOS = TimeUnit.SECONDS.toNanos(10);
+    private static final int ACCOUNT_SLOTS = 6;
+    private static final int ACCOUNT_SUB_BUCKET_BITS = 2;
+
+    private final Map<String, WindowedStats> banks = new ConcurrentHashMap<>();
+    private final Map<String, WindowedStats> accounts = new ConcurrentHashMap<>();
+
+    /**
+     * Adds a completed transaction of a bank (as of its completion stamp, or now if it has none).
+     */
+    public void record(Transaction tx, String bankName) {
+        long now = tx.getCompletedNanos() != 0 ? tx.getCompletedNanos() : System.nanoTime();
+        boolean failed = tx.getStatus() == TransactionStatus.FAILED;
+        banks.computeIfAbsent(bankName, _ -> new WindowedStats(BANK_SLOT_NANOS, BANK_SLOTS, BANK_SUB_BUCKET_BITS))
+                .record(now, tx.getAmount(), failed);
+        accounts.computeIfAbsent(tx.getAccountId(), _ -> new WindowedStats(ACCOUNT_SLOT_NANOS, ACCOUNT_SLOTS, ACCOUNT_SUB_BUCKET_BITS))
+                .record(now, tx.getAmount(), failed);
+    }
+
+    // Windows of a bank, null if it had no transaction yet
+    public WindowedStats getBank(String bankName) {
+        return banks.get(bankName);
+    }
+
+    // Windows of an account, null if it had no transaction yet
+    public WindowedStats getAccount(String accountId) {
+        return accounts.get(accountId);
+    }
+
+    // Windows of every bank seen so far (live, read-only view)
+    public Map<String, WindowedStats> getBanks() {
+        return Collections.unmodifiableMap(banks);
+    }
+
+    // Windows of every account seen so far (live, read-only view)
+    public Map<String, WindowedStats> getAccounts() {
+        return Collections.unmodifiableMap(accounts);
+    }
+
+    /**
+     * One line per bank: the last 10 seconds (sliding) and the last full minute (tumbling).
+     */
+    public String format() {
+        StringBuilder sb = new StringBuilder();
+        banks.forEach((bank, stats) -> sb.append(bank)
+                .append(" last 10 s: ").append(stats.sliding(TimeUnit.SECONDS.toNanos(10)))
+                .append(" | last full minute: ").append(stats.tumbling(TimeUnit.MINUTES.toNanos(1)))
+                .append('\n'));
+        return sb.toString();
+    }
+}
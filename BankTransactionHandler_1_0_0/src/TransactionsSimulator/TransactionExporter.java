@@ -1,83 +1,538 @@
-package TransactionsSimulator;
-
-import org.json.JSONArray;
-import org.json.JSONObject;
-
-import java.io.FileWriter;
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.time.format.DateTimeFormatter;
-
-/*
- * The TransactionExporter class is responsible for exporting transaction data to JSON files. It saves both successful and failed transactions to separate 
- * files under the src/exports/ directory. The class ensures the export directory exists, loads existing transactions if the file already exists, and appends 
- * the new transaction.
- */
-
-public class TransactionExporter {
-
-    private static final String EXPORT_DIR = "src/exports/";
-
-    public TransactionExporter() {
-        // Create export directory if it doesn't exist
-        try {
-            Files.createDirectories(Paths.get(EXPORT_DIR));
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-    }
-
-    /**
-     * Public method to export a transaction.
-     * Failed transactions are stored in a separate file.
-     */
-    public synchronized void exportTransaction(Transaction tx, String bankName) {
-        if (tx.getStatus() == TransactionStatus.FAILED) {
-            exportToFile(tx, bankName + "_failed_transactions.json");
-        } else {
-            exportToFile(tx, bankName + "_transactions.json");
-        }
-    }
-
-    /**
-     * Private method that performs the actual writing to a JSON file.
-     */
-    private synchronized void exportToFile(Transaction tx, String fileName) {
-        // Create a JSON object from the transaction
-        JSONObject jsonObject = new JSONObject();
-        jsonObject.put("accountId", tx.getAccountId());
-        jsonObject.put("amount", tx.getAmount());
-        jsonObject.put("timestamp", tx.getTimestamp().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
-        jsonObject.put("transactionType", tx.getType().toString());
-        jsonObject.put("targetAccountId", tx.getType() == TransactionType.TRANSFER ? tx.getTargetAccountId() : null);
-        jsonObject.put("status", tx.getStatus().toString());
-
-        Path filePath = Paths.get(EXPORT_DIR + fileName);
-        JSONArray transactionList = new JSONArray();
-
-        // Load existing transactions from file if it exists
-        if (Files.exists(filePath)) {
-            try {
-                String content = Files.readString(filePath);
-                if (content.trim().isEmpty()) {
-                    content = "[]"; // Initialize empty array if file is empty
-                }
-                transactionList = new JSONArray(content);
-            } catch (Exception e) {
-                System.err.println("Failed to load existing JSON: " + e.getMessage());
-            }
-        }
-
-        // Add the new transaction to the list
-        transactionList.put(jsonObject);
-
-        // Write the updated list back to the file
-        try (FileWriter file = new FileWriter(filePath.toFile())) {
-            file.write(transactionList.toString(2)); // Indentation level 2 for pretty printing
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-    }
-}
+package TransactionsSimulator;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/*
+ * The TransactionExporter class is responsible for exporting transaction data to JSON files. It saves both successful and failed transactions to separate 
+ * files under the src/exports/ directory. The class ensures the export directory exists, loads existing transactions if the file already exists, and appends 
+ * the new transaction.
+ * 
+ * In JSON_LINES mode every transaction is written as a single line to a '.jsonl' file that is kept open in append mode, so an export never has to read
+ * back or rewrite what is already on disk. JsonLinesConverter turns these files into the legacy pretty printed JSON array.
+ *
+ * With a SegmentRollingPolicy the JSON_LINES files don't grow forever: every file is written as a series of segments
+ * ('<bank>_transactions-0000000000.jsonl', '-0000000001.jsonl', ...), the current one is closed when it reaches the size or time limit of the
+ * policy. A background thread GZIP compresses the closed segments ('.jsonl.gz') and adds them to the SegmentManifest of the file, so every
+ * export only ever appends to a small open segment and readers can pick the segments of a time range from the manifest.
+ *
+ * A failed write or flush throws UncheckedIOException, so the caller (AsyncTransactionExporter) can retry the batch or count it as dropped.
+ */
+
+public class TransactionExporter {
+
+    private static final Logger logger = Logger.getLogger(TransactionExporter.class.getName());
+
+    private static final String EXPORT_DIR = "src/exports/";
+
+    private final ExportFormat format;
+    private final Path exportDir;
+
+    // Open append writers for the JSON_LINES mode, keyed by file name
+    private final Map<String, Writer> writers = new HashMap<>();
+
+    // The streams under the writers, kept to be able to fsync them
+    private final Map<String, FileOutputStream> streams = new HashMap<>();
+
+    // Guards the writers and the line buffer. A ReentrantLock instead of synchronized, so a virtual thread blocked in file I/O
+    // while holding it unmounts instead of pinning its carrier thread.
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // Reused line buffer (only touched while holding the exporter's lock)
+    private final StringBuilder line = new StringBuilder(256);
+
+    // Rolling segments (null: one file per base name), the open segment of every base name and the thread finishing the closed ones
+    private final SegmentRollingPolicy rolling;
+    private final Map<String, Segment> segments = new HashMap<>();
+    private ExecutorService segmentCloser;
+
+    public TransactionExporter() {
+        this(ExportFormat.JSON_ARRAY);
+    }
+
+    public TransactionExporter(ExportFormat format) {
+        this(format, Paths.get(EXPORT_DIR));
+    }
+
+    public TransactionExporter(ExportFormat format, Path exportDir) {
+        this(format, exportDir, null);
+    }
+
+    /**
+     * @param rolling When to start a new segment of a file, null to append to one file forever (JSON_LINES only)
+     */
+    public TransactionExporter(ExportFormat format, Path exportDir, SegmentRollingPolicy rolling) {
+        if (rolling != null && format != ExportFormat.JSON_LINES) {
+            throw new IllegalArgumentException("Rolling segments need the JSON_LINES format.");
+        }
+        this.format = format;
+        this.exportDir = exportDir;
+        this.rolling = rolling;
+
+        // Create export directory if it doesn't exist
+        try {
+            Files.createDirectories(exportDir);
+        } catch (IOException e) {
+            logger.severe("Export directory " + exportDir + " can't be created: " + e);
+        }
+    }
+
+    public ExportFormat getFormat() {
+        return format;
+    }
+
+    public SegmentRollingPolicy getRollingPolicy() {
+        return rolling;
+    }
+
+    /**
+     * Public method to export a transaction.
+     * Failed transactions are stored in a separate file.
+     */
+    public void exportTransaction(Transaction tx, String bankName) {
+        lock.lock();
+        try {
+            String baseName = tx.getStatus() == TransactionStatus.FAILED ? bankName + "_failed_transactions" : bankName + "_transactions";
+
+            if (format == ExportFormat.JSON_LINES) {
+                appendLine(tx, baseName, true);
+            } else {
+                exportToFile(tx, baseName + ".json");
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Exports a batch of transactions of one bank without flushing after every record.
+     * Call flush() afterwards to push the batch out of the buffers.
+     */
+    public void exportBatch(List<Transaction> batch, String bankName) {
+        lock.lock();
+        try {
+            for (Transaction tx : batch) {
+                if (format == ExportFormat.JSON_LINES) {
+                    String baseName = tx.getStatus() == TransactionStatus.FAILED ? bankName + "_failed_transactions" : bankName + "_transactions";
+                    appendLine(tx, baseName, false);
+                } else {
+                    exportTransaction(tx, bankName);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Flushes the buffered JSON_LINES writers to the operating system.
+     * @param sync if true the files are also forced to the storage device (fsync)
+     * @throws UncheckedIOException if a file could not be flushed (the others are still flushed)
+     */
+    public void flush(boolean sync) {
+        lock.lock();
+        try {
+            IOException failure = null;
+            for (Map.Entry<String, Writer> entry : writers.entrySet()) {
+                try {
+                    entry.getValue().flush();
+                    if (sync) {
+                        streams.get(entry.getKey()).getChannel().force(false);
+                    }
+                } catch (IOException e) {
+                    failure = addFailure(failure, e);
+                }
+            }
+            for (Segment segment : segments.values()) {
+                try {
+                    segment.writer.flush();
+                    if (sync) {
+                        segment.stream.getChannel().force(false);
+                    }
+                } catch (IOException e) {
+                    failure = addFailure(failure, e);
+                }
+            }
+            if (failure != null) {
+                throw new UncheckedIOException("Flushing the exports in " + exportDir + " failed", failure);
+            }
+            rollExpiredSegments();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Closes the open segments whose time window is over, so a quiet file is rolled too (nothing to do without a rolling policy).
+     */
+    public void rollExpiredSegments() {
+        if (rolling == null) {
+            return;
+        }
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            Iterator<Segment> open = segments.values().iterator();
+            while (open.hasNext()) {
+                Segment segment = open.next();
+                if (rolling.isFull(segment.bytes, segment.openedNanos, now)) {
+                    open.remove();  // Before it is closed, so a segment that fails to close isn't written to again
+                    finishSegment(segment);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Closes every open append writer and segment, and waits until the closed segments are compressed and in their manifests.
+     * Safe to call more than once.
+     */
+    public void close() {
+        ExecutorService closer;
+        lock.lock();
+        try {
+            writers.forEach((fileName, writer) -> {
+                try {
+                    writer.close();
+                } catch (IOException e) {
+                    logger.severe("Closing export " + fileName + " failed: " + e);
+                }
+            });
+            writers.clear();
+            streams.clear();
+
+            for (Segment segment : segments.values()) {
+                try {
+                    finishSegment(segment);
+                } catch (UncheckedIOException e) {
+                    logger.severe(e.getMessage() + ": " + e.getCause());
+                }
+            }
+            segments.clear();
+            closer = segmentCloser;
+            segmentCloser = null;
+        } finally {
+            lock.unlock();
+        }
+
+        if (closer != null) {
+            closer.shutdown();
+            try {
+                if (!closer.awaitTermination(1, TimeUnit.MINUTES)) {
+                    logger.warning("Closed export segments are still being compressed in " + exportDir);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Appends the transaction as one JSON line with a single buffered write, to the file or the open segment of the base name.
+     * @throws UncheckedIOException if the line could not be written (a broken file writer is discarded, the next append reopens it)
+     */
+    private void appendLine(Transaction tx, String baseName, boolean flush) {
+        line.setLength(0);
+        writeJson(tx, line);
+        line.append('\n');
+
+        if (rolling != null) {
+            appendToSegment(tx, baseName, flush);
+            return;
+        }
+
+        String fileName = baseName + ".jsonl";
+        try {
+            Writer writer = writers.get(fileName);
+            if (writer == null) {
+                FileOutputStream stream = new FileOutputStream(exportDir.resolve(fileName).toFile(), true);
+                writer = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8), 8192);
+                writers.put(fileName, writer);
+                streams.put(fileName, stream);
+            }
+            writer.append(line);
+            if (flush) {
+                writer.flush();
+            }
+        } catch (IOException e) {
+            discardWriter(fileName);
+            throw new UncheckedIOException("Export to " + fileName + " failed", e);
+        }
+    }
+
+    // Closes and forgets a file writer after a failed write, whatever is still in its buffer is lost (the batch is retried)
+    private void discardWriter(String fileName) {
+        Writer writer = writers.remove(fileName);
+        streams.remove(fileName);
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                // Already failed, the write error is the one reported
+            }
+        }
+    }
+
+    // Keeps the first failure and attaches the others to it
+    private static IOException addFailure(IOException failure, IOException e) {
+        if (failure == null) {
+            return e;
+        }
+        failure.addSuppressed(e);
+        return failure;
+    }
+
+    // Appends the line in the buffer to the open segment of the base name, rolling to a new segment when the policy says so
+    private void appendToSegment(Transaction tx, String baseName, boolean flush) {
+        long now = System.nanoTime();
+        Segment segment = segments.get(baseName);
+        if (segment != null && rolling.isFull(segment.bytes, segment.openedNanos, now)) {
+            segments.remove(baseName);
+            finishSegment(segment);  // Time window over
+            segment = null;
+        }
+
+        try {
+            if (segment == null) {
+                segment = openSegment(baseName, now);
+                segments.put(baseName, segment);
+            }
+            segment.writer.append(line);
+            if (flush) {
+                segment.writer.flush();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Export to segment of " + baseName + " failed", e);
+        }
+
+        long timestamp = tx.getEpochNanos();
+        if (segment.records == 0) {
+            segment.firstEpochNanos = timestamp;
+            segment.lastEpochNanos = timestamp;
+        } else {
+            segment.firstEpochNanos = Math.min(segment.firstEpochNanos, timestamp);
+            segment.lastEpochNanos = Math.max(segment.lastEpochNanos, timestamp);
+        }
+        segment.records++;
+        segment.bytes += line.length();  // Characters, equal to the bytes for the ASCII ids and values
+
+        if (rolling.isFull(segment.bytes, segment.openedNanos, now)) {
+            segments.remove(baseName);
+            finishSegment(segment);  // Size reached
+        }
+    }
+
+    // Opens the next segment of a base name, continuing after the segments already in the directory
+    private Segment openSegment(String baseName, long now) throws IOException {
+        long index = nextSegmentIndex(baseName);
+        String fileName = String.format("%s-%010d.jsonl", baseName, index);
+        FileOutputStream stream = new FileOutputStream(exportDir.resolve(fileName).toFile(), true);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8), 8192);
+        return new Segment(baseName, fileName, stream, writer, now);
+    }
+
+    // Highest segment index of the base name in the export directory plus one (0 for a new file)
+    private long nextSegmentIndex(String baseName) throws IOException {
+        Pattern pattern = Pattern.compile(Pattern.quote(baseName) + "-(\\d{10})\\.jsonl(\\.gz)?");
+        long next = 0;
+        try (Stream<Path> files = Files.list(exportDir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Matcher matcher = pattern.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    next = Math.max(next, Long.parseLong(matcher.group(1)) + 1);
+                }
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Closes a segment and hands it to the background thread, which compresses it (if the policy says so) and adds it to the manifest.
+     * The manifest is only written by that thread, in the order the segments were closed.
+     * @throws UncheckedIOException if the rest of the segment could not be written (it is then left out of the manifest)
+     */
+    private void finishSegment(Segment segment) {
+        try {
+            segment.writer.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Closing export segment " + segment.fileName + " failed", e);
+        }
+        if (segmentCloser == null) {
+            // One thread keeps the manifest order; it exits when idle, so the exporters of quiet banks hold no thread between rolls
+            ThreadPoolExecutor closer = new ThreadPoolExecutor(1, 1, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "Export-Segment-Closer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            closer.allowCoreThreadTimeOut(true);
+            segmentCloser = closer;
+        }
+        boolean compress = rolling.isCompress();
+        segmentCloser.execute(() -> {
+            try {
+                String fileName = compress ? compress(segment.fileName) : segment.fileName;
+                SegmentManifest.append(exportDir, segment.baseName, new SegmentManifest.Entry(fileName, segment.firstEpochNanos,
+                        segment.lastEpochNanos, segment.records, segment.bytes));
+            } catch (IOException e) {
+                logger.severe("Export segment " + segment.fileName + " could not be added to the manifest: " + e);
+            }
+        });
+    }
+
+    // GZIP compresses a closed segment next to it and removes the original, returns the name of the compressed file
+    private String compress(String fileName) throws IOException {
+        Path source = exportDir.resolve(fileName);
+        Path target = exportDir.resolve(fileName + ".gz");
+        Path temp = exportDir.resolve(fileName + ".gz.tmp");
+        try (InputStream in = Files.newInputStream(source);
+             OutputStream out = new GZIPOutputStream(Files.newOutputStream(temp), 65536)) {
+            in.transferTo(out);
+        }
+        // Only a complete file gets the final name, so a crash leaves the plain segment (or a .tmp) but never a truncated .gz
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Files.delete(source);
+        return target.getFileName().toString();
+    }
+
+    /**
+     * Writes the transaction as a JSON object into the given buffer, with the same fields as the legacy export.
+     * The target account is left out for non-transfer transactions, just like JSONObject does with null values.
+     */
+    static void writeJson(Transaction tx, StringBuilder sb) {
+        sb.append("{\"accountId\":");
+        writeString(tx.getAccountId(), sb);
+        sb.append(",\"amount\":").append(tx.getAmount());
+        sb.append(",\"timestamp\":\"");
+        DateTimeFormatter.ISO_LOCAL_DATE_TIME.formatTo(tx.getTimestamp(), sb);
+        sb.append("\",\"transactionType\":\"").append(tx.getType().name()).append('"');
+        if (tx.getType() == TransactionType.TRANSFER && tx.getTargetAccountId() != null) {
+            sb.append(",\"targetAccountId\":");
+            writeString(tx.getTargetAccountId(), sb);
+        }
+        sb.append(",\"status\":\"").append(tx.getStatus().name()).append("\"}");
+    }
+
+    // Writes a quoted and escaped JSON string
+    private static void writeString(String value, StringBuilder sb) {
+        if (value == null) {
+            sb.append("null");
+            return;
+        }
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        sb.append('"');
+    }
+
+    /**
+     * Private method that performs the actual writing to a JSON file.
+     */
+    private void exportToFile(Transaction tx, String fileName) {
+        lock.lock();
+        try {
+            // Create a JSON object from the transaction
+            JSONObject jsonObject = new JSONObject();
+            jsonObject.put("accountId", tx.getAccountId());
+            jsonObject.put("amount", tx.getAmount());
+            jsonObject.put("timestamp", tx.getTimestamp().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+            jsonObject.put("transactionType", tx.getType().toString());
+            jsonObject.put("targetAccountId", tx.getType() == TransactionType.TRANSFER ? tx.getTargetAccountId() : null);
+            jsonObject.put("status", tx.getStatus().toString());
+
+            Path filePath = exportDir.resolve(fileName);
+            JSONArray transactionList = new JSONArray();
+
+            // Load existing transactions from file if it exists
+            if (Files.exists(filePath)) {
+                try {
+                    String content = Files.readString(filePath);
+                    if (content.trim().isEmpty()) {
+                        content = "[]"; // Initialize empty array if file is empty
+                    }
+                    transactionList = new JSONArray(content);
+                } catch (Exception e) {
+                    logger.warning("Failed to load existing JSON: " + e.getMessage());
+                }
+            }
+
+            // Add the new transaction to the list
+            transactionList.put(jsonObject);
+
+            // Write the updated list back to the file
+            try (FileWriter file = new FileWriter(filePath.toFile())) {
+                file.write(transactionList.toString(2)); // Indentation level 2 for pretty printing
+            } catch (IOException e) {
+                throw new UncheckedIOException("Export to " + fileName + " failed", e);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // The open segment of a base name (only touched while holding the exporter's lock, then by the closer thread)
+    private static final class Segment {
+        final String baseName;
+        final String fileName;
+        final FileOutputStream stream;
+        final Writer writer;
+        final long openedNanos;
+        long bytes;
+        long records;
+        long firstEpochNanos;
+        long lastEpochNanos;
+
+        Segment(String baseName, String fileName, FileOutputStream stream, Writer writer, long openedNanos) {
+            this.baseName = baseName;
+            this.fileName = fileName;
+            this.stream = stream;
+            this.writer = writer;
+            this.openedNanos = openedNanos;
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package TransactionsSimulator;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToIntFunction;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/*
+ * The TransactionJournal class is a binary system of record for transactions. Every transaction is written as a fixed-width 32 byte record
+ * through a MappedByteBuffer into pre-sized segment files ('<name>-0000000000.seg', '<name>-0000000001.seg', ...). When a segment is full the
+ * journal forces it to disk and continues in the next one. TransactionJournalReader replays the segments sequentially.
+ *
+ * Segment layout:
+ *  - header (32 bytes): int magic, int record size, long segment index, rest reserved
+ *  - records (32 bytes each):
+ *      0  int   account index
+ *      4  int   target account index (-1 if not a transfer)
+ *      8  long  amount
+ *      16 byte  type (TransactionType ordinal)
+ *      17 byte  status (TransactionStatus ordinal)
+ *      18 byte  commit marker (1 = record is complete, 0 = end of data)
+ *      19..23   reserved
+ *      24 long  timestamp in epoch nanoseconds
+ */
+
+public class TransactionJournal implements AutoCloseable {
+
+    public static final int MAGIC = 0x42544A31;  // "BTJ1"
+    public static final int RECORD_SIZE = 32;
+    public static final int HEADER_SIZE = 32;
+
+    static final int OFFSET_ACCOUNT = 0;
+    static final int OFFSET_TARGET = 4;
+    static final int OFFSET_AMOUNT = 8;
+    static final int OFFSET_TYPE = 16;
+    static final int OFFSET_STATUS = 17;
+    static final int OFFSET_COMMIT = 18;
+    static final int OFFSET_TIMESTAMP = 24;
+
+    public static final int NO_ACCOUNT = -1;
+
+    private final Path directory;
+    private final String name;
+    private final int recordsPerSegment;
+    private final long segmentSize;
+
+    // Guards the segment; not synchronized, so a virtual thread waiting for a force() doesn't pin its carrier thread
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private long segmentIndex;
+    private long appendedCount;
+
+    /**
+     * Opens (or creates) the journal with 1M records (32 MB) per segment.
+     */
+    public TransactionJournal(Path directory, String name) throws IOException {
+        this(directory, name, 1 << 20);
+    }
+
+    /**
+     * Opens (or creates) the journal. An existing journal is continued after its last complete record.
+     * @param directory Directory of the segment files
+     * @param name Prefix of the segment files (e.g. the bank name)
+     * @param recordsPerSegment Number of records a segment can hold
+     */
+    public TransactionJournal(Path directory, String name, int recordsPerSegment) throws IOException {
+        if (recordsPerSegment <= 0) {
+            throw new IllegalArgumentException("Records per segment must be positive.");
+        }
+        this.directory = directory;
+        this.name = name;
+        this.recordsPerSegment = recordsPerSegment;
+        this.segmentSize = HEADER_SIZE + (long) recordsPerSegment * RECORD_SIZE;
+
+        Files.createDirectories(directory);
+        List<Path> existing = listSegments(directory, name);
+        if (existing.isEmpty()) {
+            openSegment(0);
+        } else {
+            // Continue in the last segment, after its last committed record
+            String last = existing.get(existing.size() - 1).getFileName().toString();
+            openSegment(Long.parseLong(last.substring(name.length() + 1, last.length() - ".seg".length())));
+            int position = HEADER_SIZE;
+            while (position + RECORD_SIZE <= segment.limit() && segment.get(position + OFFSET_COMMIT) == 1) {
+                position += RECORD_SIZE;
+            }
+            segment.position(position);
+        }
+    }
+
+    /**
+     * Appends a transaction by its primitive fields.
+     */
+    public void append(int accountIndex, int targetIndex, long amount, TransactionType type,
+                       TransactionStatus status, long epochNanos) throws IOException {
+        lock.lock();
+        try {
+            if (segment == null) {
+                throw new IllegalStateException("Journal " + name + " is closed.");
+            }
+            if (segment.remaining() < RECORD_SIZE) {
+                segment.force();
+                openSegment(segmentIndex + 1);
+            }
+
+            int position = segment.position();
+            segment.putInt(position + OFFSET_ACCOUNT, accountIndex);
+            segment.putInt(position + OFFSET_TARGET, targetIndex);
+            segment.putLong(position + OFFSET_AMOUNT, amount);
+            segment.put(position + OFFSET_TYPE, (byte) type.ordinal());
+            segment.put(position + OFFSET_STATUS, (byte) status.ordinal());
+            segment.putLong(position + OFFSET_TIMESTAMP, epochNanos);
+            segment.put(position + OFFSET_COMMIT, (byte) 1);  // Written last, marks the record complete
+            segment.position(position + RECORD_SIZE);
+            appendedCount++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Appends a transaction, resolving its account IDs to indices with the given function.
+     */
+    public void append(Transaction tx, ToIntFunction<String> indexOf) throws IOException {
+        int target = tx.getTargetAccountId() != null ? indexOf.applyAsInt(tx.getTargetAccountId()) : NO_ACCOUNT;
+        append(indexOf.applyAsInt(tx.getAccountId()), target, tx.getAmount(), tx.getType(), tx.getStatus(), tx.getEpochNanos());
+    }
+
+    /**
+     * Appends a compact transaction record (same fields, no lookup).
+     */
+    public void append(TransactionRecord record) throws IOException {
+        append(record.account(), record.targetAccount(), record.amount(), record.type(), record.status(), record.epochNanos());
+    }
+
+    /**
+     * Forces the current segment to the storage device.
+     */
+    public void force() {
+        lock.lock();
+        try {
+            if (segment != null) {
+                segment.force();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getAppendedCount() {
+        lock.lock();
+        try {
+            return appendedCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (segment != null) {
+                segment.force();
+                segment = null;
+                channel.close();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Converts a local timestamp into nanoseconds since the epoch.
+     */
+    public static long toEpochNanos(LocalDateTime timestamp) {
+        Instant instant = timestamp.atZone(ZoneId.systemDefault()).toInstant();
+        return instant.getEpochSecond() * 1_000_000_000L + instant.getNano();
+    }
+
+    /**
+     * Returns the segment files of a journal in order.
+     */
+    static List<Path> listSegments(Path directory, String name) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return segments;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(p -> p.getFileName().toString().matches(Pattern.quote(name) + "-\\d{10}\\.seg"))
+                 .sorted()
+                 .forEach(segments::add);
+        }
+        return segments;
+    }
+
+    static Path segmentPath(Path directory, String name, long index) {
+        return directory.resolve(String.format("%s-%010d.seg", name, index));
+    }
+
+    // Maps the segment with the given index (creating and sizing it if needed) and writes its header
+    private void openSegment(long index) throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+        channel = FileChannel.open(segmentPath(directory, name, index),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        segmentIndex = index;
+
+        segment.putInt(0, MAGIC);
+        segment.putInt(4, RECORD_SIZE);
+        segment.putLong(8, index);
+        segment.position(HEADER_SIZE);
+    }
+
+    public int getRecordsPerSegment() {
+        return recordsPerSegment;
+    }
+}
@@ -0,0 +1,138 @@
+package TransactionsSimulator;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/*
+ * The TransactionJournalReader class replays the segments written by TransactionJournal in order. Records are decoded straight from read-only
+ * memory mapped segments into primitive arguments of a RecordVisitor, so a replay allocates nothing per record.
+ *
+ * Usage: java TransactionsSimulator.TransactionJournalReader <journal dir> <name>
+ */
+
+public class TransactionJournalReader {
+
+    /**
+     * Receives the fields of one journal record.
+     */
+    @FunctionalInterface
+    public interface RecordVisitor {
+        void onRecord(int accountIndex, int targetIndex, long amount, TransactionType type,
+                      TransactionStatus status, long epochNanos);
+    }
+
+    private static final TransactionType[] TYPES = TransactionType.values();
+    private static final TransactionStatus[] STATUSES = TransactionStatus.values();
+
+    private final Path directory;
+    private final String name;
+
+    public TransactionJournalReader(Path directory, String name) {
+        this.directory = directory;
+        this.name = name;
+    }
+
+    /**
+     * Replays every complete record of the journal.
+     * @return Number of records replayed
+     */
+    public long replay(RecordVisitor visitor) throws IOException {
+        long count = 0;
+        for (Path path : TransactionJournal.listSegments(directory, name)) {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                if (segment.limit() < TransactionJournal.HEADER_SIZE || segment.getInt(0) != TransactionJournal.MAGIC) {
+                    throw new IOException("Not a journal segment: " + path);
+                }
+
+                int recordSize = segment.getInt(4);
+                int position = TransactionJournal.HEADER_SIZE;
+                while (position + recordSize <= segment.limit()
+                        && segment.get(position + TransactionJournal.OFFSET_COMMIT) == 1) {
+                    visitor.onRecord(
+                            segment.getInt(position + TransactionJournal.OFFSET_ACCOUNT),
+                            segment.getInt(position + TransactionJournal.OFFSET_TARGET),
+                            segment.getLong(position + TransactionJournal.OFFSET_AMOUNT),
+                            TYPES[segment.get(position + TransactionJournal.OFFSET_TYPE)],
+                            STATUSES[segment.get(position + TransactionJournal.OFFSET_STATUS)],
+                            segment.getLong(position + TransactionJournal.OFFSET_TIMESTAMP));
+                    position += recordSize;
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Rebuilds balances from the completed transactions of the journal.
+     * @param balances Balances indexed by account index, updated in place
+     * @return Number of records replayed
+     */
+    public long replayInto(long[] balances) throws IOException {
+        return replay((account, target, amount, type, status, epochNanos) -> {
+            if (status != TransactionStatus.COMPLETED) {
+                return;
+            }
+            switch (type) {
+                case DEPOSIT:
+                    balances[account] += amount;
+                    break;
+                case WITHDRAWAL:
+                    balances[account] -= amount;
+                    break;
+                case TRANSFER:
+                    balances[account] -= amount;
+                    balances[target] += amount;
+                    break;
+            }
+        });
+    }
+
+    /**
+     * Applies the completed transactions of the journal to the given accounts.
+     * The net change of every account is computed first, so each account is only locked once.
+     * @param accounts Accounts indexed by account index
+     * @return Number of records replayed
+     */
+    public long replayInto(BankAccount[] accounts) throws IOException {
+        long[] deltas = new long[accounts.length];
+        long count = replayInto(deltas);
+        for (int i = 0; i < accounts.length; i++) {
+            if (deltas[i] != 0) {
+                accounts[i].restoreBalance((int) (accounts[i].getBalance() + deltas[i]));
+            }
+        }
+        return count;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: TransactionJournalReader <journal dir> <name>");
+            System.exit(1);
+        }
+
+        long[] volumeByType = new long[TYPES.length];
+        long[] failed = new long[1];
+        long start = System.nanoTime();
+        long count = new TransactionJournalReader(Paths.get(args[0]), args[1]).replay(
+                (account, target, amount, type, status, epochNanos) -> {
+                    volumeByType[type.ordinal()] += amount;
+                    if (status == TransactionStatus.FAILED) {
+                        failed[0]++;
+                    }
+                });
+        long elapsed = System.nanoTime() - start;
+
+        System.out.println("Replayed " + count + " records in " + elapsed / 1_000_000 + " ms ("
+                + (elapsed == 0 ? 0 : count * 1_000_000_000L / elapsed) + " records/s), failed: " + failed[0]);
+        for (TransactionType type : TYPES) {
+            System.out.println(type + " volume: " + volumeByType[type.ordinal()]);
+        }
+    }
+}
@@ -0,0 +1,346 @@
+package TransactionsSimulator;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+import java.util.logging.Logger;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+
+/*
+ * The TransactionMetrics class collects the metrics of one bank: a LatencyHistogram per TransactionStage, completed and failed counters, the
+ * throughput and the depths of the bank queue and the export buffer. Recording doesn't allocate and takes no lock, so the processor's
+ * workers record every transaction.
+ *
+ * register() publishes it as the JMX MBean "TransactionsSimulator:type=TransactionMetrics,bank=<bank>" with the attributes
+ * CompletedCount, FailedCount, RejectedCount, ThroughputTps, QueueDepth, ExportBacklog, ExportDropped, AdmissionLimit, SpillDepth and, per stage, <Stage>Count, <Stage>MeanMicros, <Stage>P50Micros,
+ * <Stage>P99Micros, <Stage>P999Micros and <Stage>MaxMicros (e.g. QueuedP99Micros), plus the operations reset() and dump().
+ * format() gives the same as text, MetricsReporter prints it periodically.
+ */
+
+public class TransactionMetrics implements DynamicMBean {
+
+    private static final Logger logger = Logger.getLogger(TransactionMetrics.class.getName());
+
+    private static final TransactionStage[] STAGES = TransactionStage.values();
+    private static final long RATE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final String bankName;
+    private final LatencyHistogram[] histograms = new LatencyHistogram[STAGES.length];
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private volatile IntSupplier queueDepth = () -> 0;
+    private volatile IntSupplier exportBacklog = () -> 0;
+    private volatile LongSupplier exportDropped = () -> 0;
+    private volatile IntSupplier admissionLimit = () -> 0;
+    private volatile IntSupplier spillDepth = () -> 0;
+
+    // Throughput sample, refreshed at most once per RATE_INTERVAL_NANOS by getThroughput()
+    private long rateSampleNanos = System.nanoTime();
+    private long rateSampleCount;
+    private double throughput;
+
+    private final MBeanInfo mBeanInfo;
+    private ObjectName objectName;
+
+    public TransactionMetrics(String bankName) {
+        this.bankName = bankName;
+        for (int i = 0; i < STAGES.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+        this.mBeanInfo = buildMBeanInfo();
+    }
+
+    // Records the latency of a stage
+    public void record(TransactionStage stage, long nanos) {
+        histograms[stage.ordinal()].record(nanos);
+    }
+
+    // Counts a transaction whose outcome is final and records its TOTAL latency
+    public void onCompleted(Transaction transaction, long completedNanos) {
+        completed.increment();
+        if (transaction.getStatus() == TransactionStatus.FAILED) {
+            failed.increment();
+        }
+        histograms[TransactionStage.TOTAL.ordinal()].record(completedNanos - transaction.getCreatedNanos());
+    }
+
+    // Counts a transaction rejected by admission control (it never reaches the processor)
+    public void onRejected() {
+        rejected.increment();
+    }
+
+    // Where the queue depths come from (set by the processor)
+    public void setQueueDepthSupplier(IntSupplier queueDepth) {
+        this.queueDepth = queueDepth;
+    }
+
+    public void setExportBacklogSupplier(IntSupplier exportBacklog) {
+        this.exportBacklog = exportBacklog;
+    }
+
+    public void setExportDroppedSupplier(LongSupplier exportDropped) {
+        this.exportDropped = exportDropped;
+    }
+
+    // Where the admission limit and the spill depth come from (set by the AdmissionController)
+    public void setAdmissionSuppliers(IntSupplier admissionLimit, IntSupplier spillDepth) {
+        this.admissionLimit = admissionLimit;
+        this.spillDepth = spillDepth;
+    }
+
+    public String getBankName() {
+        return bankName;
+    }
+
+    public LatencyHistogram getHistogram(TransactionStage stage) {
+        return histograms[stage.ordinal()];
+    }
+
+    public long getCompletedCount() {
+        return completed.sum();
+    }
+
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * Returns the completed transactions per second, averaged since the previous sample. A new sample is taken when the previous one
+     * is at least a second old, so readers (JMX, MetricsReporter) polling at different rates don't distort each other much.
+     */
+    public synchronized double getThroughput() {
+        long now = System.nanoTime();
+        if (now - rateSampleNanos >= RATE_INTERVAL_NANOS) {
+            long count = completed.sum();
+            throughput = (count - rateSampleCount) * 1e9 / (now - rateSampleNanos);
+            rateSampleNanos = now;
+            rateSampleCount = count;
+        }
+        return throughput;
+    }
+
+    public int getQueueDepth() {
+        return queueDepth.getAsInt();
+    }
+
+    public int getExportBacklog() {
+        return exportBacklog.getAsInt();
+    }
+
+    // Transactions the export stage gave up on
+    public long getExportDropped() {
+        return exportDropped.getAsLong();
+    }
+
+    public int getAdmissionLimit() {
+        return admissionLimit.getAsInt();
+    }
+
+    public int getSpillDepth() {
+        return spillDepth.getAsInt();
+    }
+
+    // Clears the histograms and counters
+    public void reset() {
+        for (LatencyHistogram histogram : histograms) {
+            histogram.reset();
+        }
+        completed.reset();
+        failed.reset();
+        rejected.reset();
+        synchronized (this) {
+            rateSampleNanos = System.nanoTime();
+            rateSampleCount = 0;
+            throughput = 0;
+        }
+    }
+
+    // Text dump: the counters and a row per stage that recorded anything (latencies in microseconds)
+    public String format() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("--- Metrics of bank %s: %d completed (%d failed), %d rejected, %.1f TPS, queue depth %d (limit %d, spilled %d),"
+                + " export backlog %d (dropped %d) ---%n", bankName, getCompletedCount(), getFailedCount(), getRejectedCount(), getThroughput(),
+                getQueueDepth(), getAdmissionLimit(), getSpillDepth(), getExportBacklog(), getExportDropped()));
+        sb.append(String.format("%-11s %12s %12s %12s %12s %12s %12s%n", "Stage", "Count", "Mean us", "p50 us", "p99 us", "p99.9 us", "Max us"));
+        for (TransactionStage stage : STAGES) {
+            LatencyHistogram histogram = histograms[stage.ordinal()];
+            if (histogram.getCount() > 0) {
+                sb.append(String.format("%-11s %12d %12.1f %12.1f %12.1f %12.1f %12.1f%n", stage, histogram.getCount(),
+                        histogram.getMean() / 1e3, histogram.getValueAtPercentile(50) / 1e3, histogram.getValueAtPercentile(99) / 1e3,
+                        histogram.getValueAtPercentile(99.9) / 1e3, histogram.getMax() / 1e3));
+            }
+        }
+        return sb.toString();
+    }
+
+    // Publishes the metrics in the platform MBean server (a failure is logged, the metrics keep working)
+    public void register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName("TransactionsSimulator:type=TransactionMetrics,bank=" + ObjectName.quote(bankName));
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);  // A previous run of the same bank
+            }
+            server.registerMBean(this, name);
+            objectName = name;
+        } catch (JMException e) {
+            logger.warning("Metrics of bank " + bankName + " could not be registered: " + e);
+        }
+    }
+
+    public void unregister() {
+        if (objectName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (JMException e) {
+            logger.warning("Metrics of bank " + bankName + " could not be unregistered: " + e);
+        }
+        objectName = null;
+    }
+
+    // DynamicMBean
+
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        switch (attribute) {
+            case "CompletedCount":
+                return getCompletedCount();
+            case "FailedCount":
+                return getFailedCount();
+            case "RejectedCount":
+                return getRejectedCount();
+            case "ThroughputTps":
+                return getThroughput();
+            case "QueueDepth":
+                return getQueueDepth();
+            case "ExportBacklog":
+                return getExportBacklog();
+            case "ExportDropped":
+                return getExportDropped();
+            case "AdmissionLimit":
+                return getAdmissionLimit();
+            case "SpillDepth":
+                return getSpillDepth();
+            default:
+                break;
+        }
+        for (TransactionStage stage : STAGES) {
+            String prefix = stage.displayName();
+            if (attribute.startsWith(prefix)) {
+                LatencyHistogram histogram = histograms[stage.ordinal()];
+                switch (attribute.substring(prefix.length())) {
+                    case "Count":
+                        return histogram.getCount();
+                    case "MeanMicros":
+                        return histogram.getMean() / 1e3;
+                    case "P50Micros":
+                        return histogram.getValueAtPercentile(50) / 1e3;
+                    case "P99Micros":
+                        return histogram.getValueAtPercentile(99) / 1e3;
+                    case "P999Micros":
+                        return histogram.getValueAtPercentile(99.9) / 1e3;
+                    case "MaxMicros":
+                        return histogram.getMax() / 1e3;
+                    default:
+                        break;
+                }
+            }
+        }
+        throw new AttributeNotFoundException(attribute);
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] attributes) {
+        AttributeList list = new AttributeList();
+        for (String attribute : attributes) {
+            try {
+                list.add(new Attribute(attribute, getAttribute(attribute)));
+            } catch (AttributeNotFoundException e) {
+                // Left out, as the DynamicMBean contract asks
+            }
+        }
+        return list;
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException("All metrics are read-only: " + attribute.getName());
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList();  // All read-only
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+        switch (actionName) {
+            case "reset":
+                reset();
+                return null;
+            case "dump":
+                return format();
+            default:
+                throw new ReflectionException(new NoSuchMethodException(actionName));
+        }
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        return mBeanInfo;
+    }
+
+    private MBeanInfo buildMBeanInfo() {
+        List<MBeanAttributeInfo> attributes = new ArrayList<>();
+        attributes.add(attribute("CompletedCount", "long", "Transactions whose outcome is final"));
+        attributes.add(attribute("FailedCount", "long", "Completed transactions that failed"));
+        attributes.add(attribute("RejectedCount", "long", "Transactions rejected by admission control"));
+        attributes.add(attribute("ThroughputTps", "double", "Completed transactions per second"));
+        attributes.add(attribute("QueueDepth", "int", "Transactions waiting in the bank queue"));
+        attributes.add(attribute("ExportBacklog", "int", "Transactions waiting in the export buffer"));
+        attributes.add(attribute("ExportDropped", "long", "Transactions dropped after every export attempt failed"));
+        attributes.add(attribute("AdmissionLimit", "int", "Current adaptive admission limit of the bank queue"));
+        attributes.add(attribute("SpillDepth", "int", "Transactions waiting in the admission overflow buffer"));
+        for (TransactionStage stage : STAGES) {
+            String prefix = stage.displayName();
+            attributes.add(attribute(prefix + "Count", "long", "Recorded latencies of " + stage));
+            attributes.add(attribute(prefix + "MeanMicros", "double", "Mean latency of " + stage));
+            attributes.add(attribute(prefix + "P50Micros", "double", "Median latency of " + stage));
+            attributes.add(attribute(prefix + "P99Micros", "double", "99th percentile latency of " + stage));
+            attributes.add(attribute(prefix + "P999Micros", "double", "99.9th percentile latency of " + stage));
+            attributes.add(attribute(prefix + "MaxMicros", "double", "Maximum latency of " + stage));
+        }
+        MBeanOperationInfo[] operations = {
+                new MBeanOperationInfo("reset", "Clears the histograms and counters", null, "void", MBeanOperationInfo.ACTION),
+                new MBeanOperationInfo("dump", "Returns the metrics as text", null, "java.lang.String", MBeanOperationInfo.INFO)
+        };
+        return new MBeanInfo(getClass().getName(), "Transaction metrics of bank " + bankName,
+                attributes.toArray(new MBeanAttributeInfo[0]), null, operations, null);
+    }
+
+    private static MBeanAttributeInfo attribute(String name, String type, String description) {
+        return new MBeanAttributeInfo(name, type, description, true, false, false);
+    }
+}
@@ -0,0 +1,85 @@
+package TransactionsSimulator;
+
+/*
+ * The TransactionProfile class describes what a ParallelTransactionGenerator produces: how skewed the account choice is (Zipf exponent),
+ * the relative weights of deposits, withdrawals and transfers, and the amount distribution with its bounds. It is immutable.
+ */
+
+public class TransactionProfile {
+
+    private final double zipfExponent;
+    private final int depositWeight;
+    private final int withdrawalWeight;
+    private final int transferWeight;
+    private final AmountDistribution amounts;
+    private final int minAmount;
+    private final int maxAmount;
+
+    /**
+     * @param zipfExponent Skew of the source and target accounts, 0 for uniform, around 1 for a few hot accounts
+     * @param depositWeight Relative frequency of deposits (the three weights don't need to add up to anything)
+     * @param withdrawalWeight Relative frequency of withdrawals
+     * @param transferWeight Relative frequency of transfers
+     * @param amounts Distribution of the amounts
+     * @param minAmount Smallest amount, positive
+     * @param maxAmount Largest amount
+     */
+    public TransactionProfile(double zipfExponent, int depositWeight, int withdrawalWeight, int transferWeight,
+                              AmountDistribution amounts, int minAmount, int maxAmount) {
+        if (zipfExponent < 0) {
+            throw new IllegalArgumentException("Zipf exponent must not be negative.");
+        }
+        if (depositWeight < 0 || withdrawalWeight < 0 || transferWeight < 0 || depositWeight + withdrawalWeight + transferWeight == 0) {
+            throw new IllegalArgumentException("Type weights must not be negative and at least one must be positive.");
+        }
+        if (minAmount <= 0 || maxAmount < minAmount || maxAmount == Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Amounts must satisfy 0 < min <= max < Integer.MAX_VALUE.");
+        }
+        this.zipfExponent = zipfExponent;
+        this.depositWeight = depositWeight;
+        this.withdrawalWeight = withdrawalWeight;
+        this.transferWeight = transferWeight;
+        this.amounts = amounts;
+        this.minAmount = minAmount;
+        this.maxAmount = maxAmount;
+    }
+
+    // The mix of TransactionGenerator: uniform accounts and types, uniform amounts between 50 and 499
+    public static TransactionProfile uniform() {
+        return new TransactionProfile(0, 1, 1, 1, AmountDistribution.UNIFORM, 50, 499);
+    }
+
+    public double getZipfExponent() {
+        return zipfExponent;
+    }
+
+    public int getDepositWeight() {
+        return depositWeight;
+    }
+
+    public int getWithdrawalWeight() {
+        return withdrawalWeight;
+    }
+
+    public int getTransferWeight() {
+        return transferWeight;
+    }
+
+    public AmountDistribution getAmounts() {
+        return amounts;
+    }
+
+    public int getMinAmount() {
+        return minAmount;
+    }
+
+    public int getMaxAmount() {
+        return maxAmount;
+    }
+
+    @Override
+    public String toString() {
+        return "zipf=" + zipfExponent + ", mix=" + depositWeight + ":" + withdrawalWeight + ":" + transferWeight
+                + ", amounts=" + amounts + " " + minAmount + ".." + maxAmount;
+    }
+}
@@ -0,0 +1,106 @@
+package TransactionsSimulator;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToIntFunction;
+
+/*
+ * The TransactionRecord record is the compact, immutable form of a transaction: int account indices (AccountRegistry), a long amount, the type
+ * and status packed into one int, a monotonic sequence number and a timestamp in epoch nanoseconds (EpochClock). It has the fields of a
+ * TransactionJournal record, so it is written there without any lookup or conversion. An account id that is not in the registry (a failed
+ * transaction) is stored as NO_ACCOUNT, like in the journal.
+ *
+ * Being immutable it can be handed between threads safely (all fields are final); a status change doesn't modify it but returns a new record
+ * with the outcome (withStatus). For the allocation-free path see TransactionRecordBuffer.
+ */
+
+public record TransactionRecord(long sequence, long epochNanos, int account, int targetAccount, long amount, int flags) {
+
+    public static final int NO_ACCOUNT = TransactionJournal.NO_ACCOUNT;
+
+    // flags: bits 0..7 type ordinal, bits 8..15 status ordinal
+    private static final int STATUS_SHIFT = 8;
+    private static final int FIELD_MASK = 0xFF;
+
+    private static final TransactionType[] TYPES = TransactionType.values();
+    private static final TransactionStatus[] STATUSES = TransactionStatus.values();
+
+    // Source of nextSequence(); one counter for the JVM, so sequence numbers never repeat across banks
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    public TransactionRecord {
+        if (account < NO_ACCOUNT || targetAccount < NO_ACCOUNT) {
+            throw new IllegalArgumentException("Account indices must not be negative (except NO_ACCOUNT).");
+        }
+        if ((flags & FIELD_MASK) >= TYPES.length || (flags >>> STATUS_SHIFT) >= STATUSES.length) {
+            throw new IllegalArgumentException("Invalid type or status flags: " + flags);
+        }
+        if (TYPES[flags & FIELD_MASK] != TransactionType.TRANSFER && targetAccount != NO_ACCOUNT) {
+            throw new IllegalArgumentException("Only transfers have a target account.");
+        }
+    }
+
+    /**
+     * Creates a pending deposit or withdrawal with the next sequence number, stamped now.
+     */
+    public static TransactionRecord of(int account, long amount, TransactionType type) {
+        return of(account, NO_ACCOUNT, amount, type);
+    }
+
+    /**
+     * Creates a pending transaction with the next sequence number, stamped now.
+     * @param targetAccount Target account index of a transfer, NO_ACCOUNT otherwise
+     */
+    public static TransactionRecord of(int account, int targetAccount, long amount, TransactionType type) {
+        return new TransactionRecord(nextSequence(), EpochClock.nowEpochNanos(), account, targetAccount, amount,
+                pack(type, TransactionStatus.PENDING));
+    }
+
+    /**
+     * Converts a Transaction, resolving its account IDs to indices with the given function.
+     */
+    public static TransactionRecord from(Transaction tx, ToIntFunction<String> indexOf) {
+        int target = tx.getTargetAccountId() != null ? indexOf.applyAsInt(tx.getTargetAccountId()) : NO_ACCOUNT;
+        return new TransactionRecord(nextSequence(), tx.getEpochNanos(), indexOf.applyAsInt(tx.getAccountId()), target, tx.getAmount(),
+                pack(tx.getType(), tx.getStatus()));
+    }
+
+    // Next number of the JVM wide, strictly increasing transaction sequence
+    public static long nextSequence() {
+        return SEQUENCE.incrementAndGet();
+    }
+
+    // Packs a type and a status into the flags of a record
+    public static int pack(TransactionType type, TransactionStatus status) {
+        return type.ordinal() | status.ordinal() << STATUS_SHIFT;
+    }
+
+    // Unpacks the type of flags (cached enum array, values() would copy it on every call)
+    static TransactionType typeOf(int flags) {
+        return TYPES[flags & FIELD_MASK];
+    }
+
+    // Unpacks the status of flags
+    static TransactionStatus statusOf(int flags) {
+        return STATUSES[flags >>> STATUS_SHIFT];
+    }
+
+    public TransactionType type() {
+        return typeOf(flags);
+    }
+
+    public TransactionStatus status() {
+        return statusOf(flags);
+    }
+
+    public boolean isTransfer() {
+        return type() == TransactionType.TRANSFER;
+    }
+
+    /**
+     * Returns this transaction with a new status (the outcome); this record stays unchanged.
+     */
+    public TransactionRecord withStatus(TransactionStatus status) {
+        int newFlags = (flags & FIELD_MASK) | status.ordinal() << STATUS_SHIFT;
+        return newFlags == flags ? this : new TransactionRecord(sequence, epochNanos, account, targetAccount, amount, newFlags);
+    }
+}
@@ -0,0 +1,152 @@
+package TransactionsSimulator;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/*
+ * The TransactionRecordBuffer class is the pooled, allocation-free form of TransactionRecord: a fixed number of slots whose fields live in
+ * preallocated primitive arrays, reused for every transaction written into them (e.g. slot = sequence & (capacity - 1) of a ring). A Cursor
+ * is a flyweight that reads the slot it is positioned at, so walking the buffer creates no object per transaction either.
+ *
+ * The type and status of a slot are its outcome word, kept apart from the other fields in an AtomicIntegerArray:
+ *  - write() stores the fields, then the outcome with release semantics, which publishes the slot to other threads
+ *  - setStatus() only replaces the outcome, the transaction fields are never modified after write()
+ *  - readers load the outcome with acquire semantics before the fields (Cursor.at), so they see a complete slot
+ * A slot must not be rewritten while another thread is still reading it (the ring's sequences guarantee that).
+ */
+
+public class TransactionRecordBuffer {
+
+    private static final int STRIDE = 4;  // longs per slot
+    private static final int SEQUENCE = 0;
+    private static final int EPOCH_NANOS = 1;
+    private static final int ACCOUNTS = 2;  // account << 32 | target account
+    private static final int AMOUNT = 3;
+
+    private static final int EMPTY = -1;  // outcome of a slot never written
+
+    private final long[] fields;
+    private final AtomicIntegerArray outcomes;
+
+    /**
+     * @param capacity Number of slots
+     */
+    public TransactionRecordBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive.");
+        }
+        this.fields = new long[capacity * STRIDE];
+        this.outcomes = new AtomicIntegerArray(capacity);
+        for (int slot = 0; slot < capacity; slot++) {
+            outcomes.setPlain(slot, EMPTY);
+        }
+    }
+
+    public int getCapacity() {
+        return outcomes.length();
+    }
+
+    /**
+     * Writes a pending transaction into a slot and publishes it.
+     * @param targetAccount Target account index of a transfer, TransactionRecord.NO_ACCOUNT otherwise
+     */
+    public void write(int slot, long sequence, long epochNanos, int account, int targetAccount, long amount, TransactionType type) {
+        writeFields(slot, sequence, epochNanos, account, targetAccount, amount);
+        outcomes.setRelease(slot, TransactionRecord.pack(type, TransactionStatus.PENDING));
+    }
+
+    // Copies a record into a slot (keeping its status) and publishes it, with its final flags only
+    public void write(int slot, TransactionRecord record) {
+        writeFields(slot, record.sequence(), record.epochNanos(), record.account(), record.targetAccount(), record.amount());
+        outcomes.setRelease(slot, record.flags());
+    }
+
+    // Plain stores, published by the caller's release of the outcome
+    private void writeFields(int slot, long sequence, long epochNanos, int account, int targetAccount, long amount) {
+        int base = slot * STRIDE;
+        fields[base + SEQUENCE] = sequence;
+        fields[base + EPOCH_NANOS] = epochNanos;
+        fields[base + ACCOUNTS] = (long) account << 32 | (targetAccount & 0xFFFFFFFFL);
+        fields[base + AMOUNT] = amount;
+    }
+
+    /**
+     * Sets the outcome of the transaction in a slot, visible to every thread that reads the slot afterwards.
+     */
+    public void setStatus(int slot, TransactionStatus status) {
+        int flags = outcomes.getAcquire(slot);
+        if (flags == EMPTY) {
+            throw new IllegalStateException("Slot " + slot + " holds no transaction.");
+        }
+        outcomes.setRelease(slot, TransactionRecord.pack(TransactionRecord.typeOf(flags), status));
+    }
+
+    // Copies a slot into an immutable record, for the values that leave the allocation-free path
+    public TransactionRecord toRecord(int slot) {
+        Cursor cursor = cursor().at(slot);
+        return new TransactionRecord(cursor.sequence(), cursor.epochNanos(), cursor.account(), cursor.targetAccount(), cursor.amount(),
+                cursor.flags);
+    }
+
+    // A new flyweight reader over this buffer; keep and reuse it (one per thread)
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Flyweight view of one slot. Not thread-safe: every thread uses its own cursor.
+     */
+    public final class Cursor {
+
+        private int slot = -1;
+        private int base;
+        private int flags;
+
+        private Cursor() {
+        }
+
+        // Positions the cursor at a slot, reading its outcome first (acquire), and returns it for chaining
+        public Cursor at(int slot) {
+            int slotFlags = outcomes.getAcquire(slot);
+            if (slotFlags == EMPTY) {
+                throw new IllegalStateException("Slot " + slot + " holds no transaction.");
+            }
+            this.slot = slot;
+            this.base = slot * STRIDE;
+            this.flags = slotFlags;
+            return this;
+        }
+
+        public int slot() {
+            return slot;
+        }
+
+        public long sequence() {
+            return fields[base + SEQUENCE];
+        }
+
+        public long epochNanos() {
+            return fields[base + EPOCH_NANOS];
+        }
+
+        public int account() {
+            return (int) (fields[base + ACCOUNTS] >>> 32);
+        }
+
+        public int targetAccount() {
+            return (int) fields[base + ACCOUNTS];
+        }
+
+        public long amount() {
+            return fields[base + AMOUNT];
+        }
+
+        public TransactionType type() {
+            return TransactionRecord.typeOf(flags);
+        }
+
+        // Status as of at(); call at() again to see a later outcome
+        public TransactionStatus status() {
+            return TransactionRecord.statusOf(flags);
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package TransactionsSimulator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.lang.invoke.VarHandle;
+import java.util.logging.Logger;
+
+/*
+ * The TransactionRingBuffer class is a preallocated single-producer, multi-consumer ring of transactions (in the style of the LMAX
+ * Disruptor), used as the queue of a bank instead of a LinkedBlockingQueue. Publishing a transaction allocates nothing and takes no lock.
+ *
+ * Sequences: the producer publishes slot after slot and advances the cursor (the last published sequence). Consumers share the work: each one
+ * claims the next batch of published slots by advancing the shared work sequence with a CAS, processes the whole batch, and only then
+ * advances its own sequence. The producer never overwrites a slot before every consumer has moved past it (the consumers' sequences and the
+ * work sequence are its barrier), so a full ring blocks the producer just like a bounded queue.
+ *
+ * Waiting (a full ring for the producer, an empty ring for a consumer) follows the WaitStrategy of the ring.
+ *
+ * Only one thread may call put() and offer(). Consumers are Runnables created by newConsumer(), each running on its own thread until halt().
+ * Pollers created by newPoller() claim the same way but never wait: they are driven by a scheduler (see BankScheduler), which a publish
+ * listener tells about new transactions, so an idle ring holds no thread.
+ */
+
+public class TransactionRingBuffer {
+
+    private static final Logger logger = Logger.getLogger(TransactionRingBuffer.class.getName());
+
+    /**
+     * Receives the transactions of a claimed batch in sequence order.
+     */
+    @FunctionalInterface
+    public interface BatchHandler {
+        void onTransaction(Transaction transaction, long sequence, boolean endOfBatch);
+    }
+
+    private final Transaction[] entries;
+    private final int mask;
+    private final int maxBatchSize;
+    private final WaitStrategy waitStrategy;
+
+    private final Sequence cursor = new Sequence(-1);        // Last published sequence
+    private final Sequence workSequence = new Sequence(-1);  // Last sequence claimed by a consumer
+    private volatile Sequence[] consumerSequences = new Sequence[0];
+
+    // Producer side (single thread)
+    private long nextSequence = -1;     // Last sequence claimed by the producer
+    private long cachedBarrier = -1;    // Lowest consumer sequence when it was last read
+
+    private volatile boolean halted;
+    private volatile Runnable publishListener;  // Optional, called after every publish
+
+    /**
+     * @param capacity Number of slots, rounded up to a power of two
+     * @param maxBatchSize Largest number of transactions a consumer claims at once
+     * @param waitStrategy How the producer and the consumers wait
+     */
+    public TransactionRingBuffer(int capacity, int maxBatchSize, WaitStrategy waitStrategy) {
+        if (capacity <= 0 || maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Capacity and batch size must be positive.");
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.entries = new Transaction[size];
+        this.mask = size - 1;
+        this.maxBatchSize = maxBatchSize;
+        this.waitStrategy = waitStrategy;
+    }
+
+    public int getCapacity() {
+        return entries.length;
+    }
+
+    public WaitStrategy getWaitStrategy() {
+        return waitStrategy;
+    }
+
+    /**
+     * Publishes a transaction, waiting while the ring is full.
+     * @throws InterruptedException if the producer is interrupted while waiting
+     * @throws IllegalStateException if the ring is halted (before or while waiting)
+     */
+    public void put(Transaction transaction) throws InterruptedException {
+        long sequence = nextSequence + 1;
+        long wrapPoint = sequence - entries.length;
+        if (wrapPoint > cachedBarrier) {
+            int spins = 0;
+            long barrier;
+            while (wrapPoint > (barrier = barrier())) {
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+                checkRunning();
+                spins = waitStrategy.idle(spins);
+            }
+            cachedBarrier = barrier;
+        }
+        checkRunning();
+        publish(sequence, transaction);
+    }
+
+    /**
+     * Publishes a transaction if there is a free slot.
+     * @return false if the ring is full (nothing was published)
+     */
+    public boolean offer(Transaction transaction) {
+        long sequence = nextSequence + 1;
+        long wrapPoint = sequence - entries.length;
+        if (wrapPoint > cachedBarrier) {
+            cachedBarrier = barrier();
+            if (wrapPoint > cachedBarrier) {
+                return false;
+            }
+        }
+        checkRunning();
+        publish(sequence, transaction);
+        return true;
+    }
+
+    /**
+     * Creates a consumer that shares the transactions of this ring with the other consumers. Run it on its own thread.
+     */
+    public Runnable newConsumer(BatchHandler handler) {
+        Consumer consumer = new Consumer(handler);
+        synchronized (this) {
+            Sequence[] sequences = Arrays.copyOf(consumerSequences, consumerSequences.length + 1);
+            sequences[sequences.length - 1] = consumer.sequence;
+            consumerSequences = sequences;
+        }
+        return consumer;
+    }
+
+    /**
+     * Creates a non-blocking consumer that shares the transactions of this ring with the other consumers and pollers.
+     * A poller must only be used by one thread at a time.
+     */
+    public Poller newPoller() {
+        Poller poller = new Poller();
+        synchronized (this) {
+            Sequence[] sequences = Arrays.copyOf(consumerSequences, consumerSequences.length + 1);
+            sequences[sequences.length - 1] = poller.sequence;
+            consumerSequences = sequences;
+        }
+        return poller;
+    }
+
+    /**
+     * Sets the listener called on the producer thread after every publish, null for none. It must be quick and must not block.
+     * The publish is visible to any thread once the listener runs (a full fence separates them).
+     */
+    public void setPublishListener(Runnable publishListener) {
+        this.publishListener = publishListener;
+    }
+
+    /**
+     * Stops the consumers once they have processed everything published so far, and rejects further transactions.
+     */
+    public void halt() {
+        halted = true;
+    }
+
+    // Number of published transactions not yet claimed by a consumer
+    public int size() {
+        return (int) Math.max(0, cursor.get() - workSequence.get());
+    }
+
+    /**
+     * Returns the published transactions not yet claimed by a consumer (a copy, for display only).
+     */
+    public List<Transaction> pending() {
+        List<Transaction> pending = new ArrayList<>();
+        long published = cursor.get();
+        for (long sequence = workSequence.get() + 1; sequence <= published; sequence++) {
+            Transaction transaction = entries[(int) sequence & mask];
+            if (transaction != null) {
+                pending.add(transaction);
+            }
+        }
+        return pending;
+    }
+
+    private void publish(long sequence, Transaction transaction) {
+        entries[(int) sequence & mask] = transaction;
+        nextSequence = sequence;
+        cursor.setRelease(sequence);
+        Runnable listener = publishListener;
+        if (listener != null) {
+            // The listener reads the scheduling state of the pollers: the cursor must be visible before (see BankScheduler)
+            VarHandle.fullFence();
+            listener.run();
+        }
+    }
+
+    // Lowest sequence every consumer has moved past (a claimed slot is protected by its consumer's sequence until it is processed)
+    private long barrier() {
+        long minimum = workSequence.get();
+        for (Sequence sequence : consumerSequences) {
+            minimum = Math.min(minimum, sequence.get());
+        }
+        return minimum;
+    }
+
+    private void checkRunning() {
+        if (halted) {
+            throw new IllegalStateException("Ring buffer is halted.");
+        }
+    }
+
+    private final class Consumer implements Runnable {
+
+        private final BatchHandler handler;
+        private final Sequence sequence;
+
+        private Consumer(BatchHandler handler) {
+            this.handler = handler;
+            // Everything claimed so far belongs to the other consumers
+            this.sequence = new Sequence(workSequence.get());
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                // Claim up to maxBatchSize published slots, or the next slot to be published if there is none
+                long current;
+                long end;
+                do {
+                    current = workSequence.get();
+                    long available = cursor.get() - current;
+                    end = current + Math.max(1, Math.min(maxBatchSize, available));
+                    sequence.setRelease(current);
+                } while (!workSequence.compareAndSet(current, end));
+
+                int spins = 0;
+                while (cursor.get() < end) {
+                    if (halted) {
+                        return;
+                    }
+                    spins = waitStrategy.idle(spins);
+                }
+
+                for (long next = current + 1; next <= end; next++) {
+                    try {
+                        handler.onTransaction(entries[(int) next & mask], next, next == end);
+                    } catch (RuntimeException e) {
+                        logger.severe("Transaction handler failed at sequence " + next + ": " + e);
+                    }
+                }
+                sequence.setRelease(end);
+            }
+        }
+    }
+
+    /**
+     * Non-blocking consumer: claims what is already published, up to a limit, and processes it on the calling thread.
+     */
+    public final class Poller {
+
+        private final Sequence sequence;
+
+        private Poller() {
+            // Everything claimed so far belongs to the other consumers
+            this.sequence = new Sequence(workSequence.get());
+        }
+
+        /**
+         * Processes at most maxCount (and at most the ring's batch size) published transactions not claimed by another consumer.
+         * @return The number of transactions processed, 0 if there was none
+         */
+        public int poll(BatchHandler handler, int maxCount) {
+            long current;
+            long end;
+            do {
+                current = workSequence.get();
+                // Idle: nothing up to the work sequence is waiting for this poller (the claimed slots are protected by their consumers)
+                sequence.setRelease(current);
+                long available = cursor.get() - current;
+                if (available <= 0) {
+                    return 0;
+                }
+                end = current + Math.min(Math.min(maxBatchSize, maxCount), available);
+            } while (!workSequence.compareAndSet(current, end));
+
+            for (long next = current + 1; next <= end; next++) {
+                try {
+                    handler.onTransaction(entries[(int) next & mask], next, next == end);
+                } catch (RuntimeException e) {
+                    logger.severe("Transaction handler failed at sequence " + next + ": " + e);
+                }
+            }
+            sequence.setRelease(end);
+            return (int) (end - current);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package TransactionsSimulator;
+
+/*
+ * The TransactionStage enum names the parts of a transaction's lifecycle whose latency TransactionMetrics records:
+ *  - ADMISSION: waiting for admission to the bank queue (AdmissionController: blocking or spilled)
+ *  - GENERATED: from creation to being put into the bank queue
+ *  - QUEUED: waiting in the bank queue (ring buffer or BlockingQueue) until a worker takes it
+ *  - DISPATCHED: from being taken to being started (hand-off to the pool, a shard or a virtual thread)
+ *  - MONITOR: the compliance check of the ThirdPartyMonitor
+ *  - APPLY: applying the balance change to the AccountStore (for a cross-shard transfer, the debit)
+ *  - EXPORT: from completion to being written and flushed by the export stage
+ *  - TOTAL: from creation to completion
+ */
+
+public enum TransactionStage {
+    ADMISSION, GENERATED, QUEUED, DISPATCHED, MONITOR, APPLY, EXPORT, TOTAL;
+
+    // Name used in the JMX attributes, e.g. "Queued"
+    String displayName() {
+        return name().charAt(0) + name().substring(1).toLowerCase();
+    }
+}
@@ -1,4 +1,4 @@
-package TransactionsSimulator;
-public enum TransactionStatus {
-    PENDING, COMPLETED, FAILED
-}
+package TransactionsSimulator;
+public enum TransactionStatus {
+    PENDING, COMPLETED, FAILED
+}
@@ -0,0 +1,408 @@
+package TransactionsSimulator;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToIntFunction;
+
+/*
+ * The TransactionStore class keeps the most recent completed transactions in memory, in columnar primitive arrays, and answers account
+ * history, time range and status filtered queries without reading the exports.
+ *
+ * Every transaction becomes a row with a global, increasing row number. Rows are stored in chunks of 64K rows, one primitive array per field
+ * (timestamp, account, target account, amount, type and status), so millions of rows are a few dozen arrays instead of millions of objects.
+ * Two secondary indexes are maintained while appending:
+ *  - by account: every row links to the previous row of its account (and of its target account for transfers), and the last row of every
+ *    account is kept, so a history walks only the rows of that account, newest first
+ *  - by time: a bucket per time window (1 second by default) holds the first and last row that has a timestamp in it, so a time range
+ *    query scans only the rows between those bounds
+ *
+ * When the chunks would exceed the memory budget the oldest chunk is evicted: its rows are appended to a TransactionJournal
+ * ('<evictionDir>/store-*.seg', read it back with TransactionJournalReader) and the queries no longer see them.
+ *
+ * Appends are serialized by a lock (the processors' worker threads feed the store); queries take no lock. A row is published by a volatile
+ * write of the row count after its fields are written, and the indexes are updated after that, so a query only ever reaches complete rows.
+ */
+
+public class TransactionStore {
+
+    private static final int CHUNK_BITS = 16;
+    public static final int CHUNK_ROWS = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_ROWS - 1;
+
+    // Bytes of one row over all columns (see Chunk)
+    public static final int ROW_BYTES = 8 + 4 + 4 + 8 + 4 + 8 + 8;
+
+    private static final long NO_ROW = -1;
+
+    /**
+     * Receives the fields of one row (the same fields as a journal record, plus the row number).
+     */
+    @FunctionalInterface
+    public interface RowVisitor {
+        void onRow(long row, int accountIndex, int targetIndex, long amount, TransactionType type,
+                   TransactionStatus status, long epochNanos);
+    }
+
+    // Columns of CHUNK_ROWS rows
+    private static final class Chunk {
+        final long[] epochNanos = new long[CHUNK_ROWS];
+        final int[] account = new int[CHUNK_ROWS];
+        final int[] target = new int[CHUNK_ROWS];
+        final long[] amount = new long[CHUNK_ROWS];
+        final int[] flags = new int[CHUNK_ROWS];            // TransactionRecord.pack(type, status)
+        final long[] previousOfAccount = new long[CHUNK_ROWS];  // Previous row of the same account, NO_ROW if none
+        final long[] previousOfTarget = new long[CHUNK_ROWS];   // Previous row of the target account (transfers), NO_ROW if none
+    }
+
+    // The chunks in memory, oldest first; replaced as a whole, so a query works on one consistent set of chunks
+    private static final class View {
+        final Chunk[] chunks;
+        final long firstChunk;  // Number of chunks[0] (row >>> CHUNK_BITS)
+
+        View(Chunk[] chunks, long firstChunk) {
+            this.chunks = chunks;
+            this.firstChunk = firstChunk;
+        }
+
+        long firstRow() {
+            return firstChunk << CHUNK_BITS;
+        }
+
+        Chunk chunkOf(long row) {
+            return chunks[(int) ((row >>> CHUNK_BITS) - firstChunk)];
+        }
+    }
+
+    // First and last row with a timestamp in a time bucket
+    private static final class Bucket {
+        volatile long firstRow;
+        volatile long lastRow;
+
+        Bucket(long row) {
+            this.firstRow = row;
+            this.lastRow = row;
+        }
+    }
+
+    private final int maxChunks;
+    private final long bucketNanos;
+    private final Path evictionDir;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile View view = new View(new Chunk[0], 0);
+    private volatile long rowCount;  // Rows appended so far = number of the next row
+    private volatile AtomicLongArray lastRowOfAccount = newLastRows(1024);
+    private final ConcurrentSkipListMap<Long, Bucket> buckets = new ConcurrentSkipListMap<>();
+
+    private TransactionJournal evictionJournal;  // Opened at the first eviction
+    private volatile long evictedRows;
+
+    /**
+     * Keeps at most memoryBudgetBytes of rows (at least two chunks) with 1 second time buckets, dropping evicted rows.
+     */
+    public TransactionStore(long memoryBudgetBytes) {
+        this(memoryBudgetBytes, 1_000_000_000L, null);
+    }
+
+    /**
+     * @param memoryBudgetBytes Memory of the rows kept in memory (whole chunks of CHUNK_ROWS * ROW_BYTES, at least two)
+     * @param bucketNanos Width of a time bucket of the time index
+     * @param evictionDir Directory of the journal the evicted rows are written to, null to drop them
+     */
+    public TransactionStore(long memoryBudgetBytes, long bucketNanos, Path evictionDir) {
+        if (memoryBudgetBytes <= 0 || bucketNanos <= 0) {
+            throw new IllegalArgumentException("Memory budget and bucket width must be positive.");
+        }
+        this.maxChunks = (int) Math.min(Integer.MAX_VALUE, Math.max(2, memoryBudgetBytes / ((long) CHUNK_ROWS * ROW_BYTES)));
+        this.bucketNanos = bucketNanos;
+        this.evictionDir = evictionDir;
+    }
+
+    /**
+     * Appends a completed transaction, resolving its account IDs to indices with the given function.
+     */
+    public void append(Transaction tx, ToIntFunction<String> indexOf) {
+        int account = indexOf.applyAsInt(tx.getAccountId());
+        int target = tx.getTargetAccountId() != null ? indexOf.applyAsInt(tx.getTargetAccountId()) : TransactionRecord.NO_ACCOUNT;
+        append(account, target, tx.getAmount(), TransactionRecord.pack(tx.getType(), tx.getStatus()), tx.getEpochNanos());
+    }
+
+    // Appends a compact transaction record
+    public void append(TransactionRecord record) {
+        append(record.account(), record.targetAccount(), record.amount(), record.flags(), record.epochNanos());
+    }
+
+    private void append(int account, int target, long amount, int flags, long epochNanos) {
+        lock.lock();
+        try {
+            long row = rowCount;
+            if ((row & CHUNK_MASK) == 0) {
+                addChunk(row);
+            }
+            AtomicLongArray lastRows = lastRowsFor(Math.max(account, target));
+
+            Chunk chunk = view.chunkOf(row);
+            int i = (int) (row & CHUNK_MASK);
+            chunk.epochNanos[i] = epochNanos;
+            chunk.account[i] = account;
+            chunk.target[i] = target;
+            chunk.amount[i] = amount;
+            chunk.flags[i] = flags;
+            chunk.previousOfAccount[i] = account >= 0 ? lastRows.get(account) : NO_ROW;
+            chunk.previousOfTarget[i] = target >= 0 && target != account ? lastRows.get(target) : NO_ROW;
+
+            rowCount = row + 1;  // Publishes the row
+
+            // Indexes, only after the row is published
+            if (account >= 0) {
+                lastRows.set(account, row);
+            }
+            if (target >= 0 && target != account) {
+                lastRows.set(target, row);
+            }
+            long bucketKey = Math.floorDiv(epochNanos, bucketNanos);
+            Bucket bucket = buckets.get(bucketKey);
+            if (bucket == null) {
+                buckets.put(bucketKey, new Bucket(row));
+            } else {
+                bucket.lastRow = row;  // Rows only grow, firstRow stays the smallest
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Opens the chunk of a new row, evicting the oldest chunk when the budget is used up
+    private void addChunk(long row) {
+        View current = view;
+        int keep = current.chunks.length < maxChunks ? current.chunks.length : maxChunks - 1;
+        int evict = current.chunks.length - keep;
+        for (int c = 0; c < evict; c++) {
+            evict(current.chunks[c], (current.firstChunk + c) << CHUNK_BITS);
+        }
+
+        Chunk[] chunks = new Chunk[keep + 1];
+        System.arraycopy(current.chunks, evict, chunks, 0, keep);
+        chunks[keep] = new Chunk();
+        View next = new View(chunks, (row >>> CHUNK_BITS) - keep);
+        view = next;
+
+        if (evict > 0) {
+            // Buckets whose rows are all gone
+            long firstRow = next.firstRow();
+            Iterator<Map.Entry<Long, Bucket>> it = buckets.entrySet().iterator();
+            while (it.hasNext()) {
+                Bucket bucket = it.next().getValue();
+                if (bucket.lastRow < firstRow) {
+                    it.remove();
+                } else if (bucket.firstRow < firstRow) {
+                    bucket.firstRow = firstRow;
+                }
+            }
+        }
+    }
+
+    // Writes the rows of an evicted chunk to the eviction journal (if any)
+    private void evict(Chunk chunk, long firstRow) {
+        if (evictionDir != null) {
+            try {
+                if (evictionJournal == null) {
+                    evictionJournal = new TransactionJournal(evictionDir, "store");
+                }
+                for (int i = 0; i < CHUNK_ROWS; i++) {
+                    int flags = chunk.flags[i];
+                    evictionJournal.append(chunk.account[i], chunk.target[i], chunk.amount[i], TransactionRecord.typeOf(flags),
+                            TransactionRecord.statusOf(flags), chunk.epochNanos[i]);
+                }
+            } catch (IOException e) {
+                e.printStackTrace();  // The rows are dropped, the store keeps working
+            }
+        }
+        evictedRows += CHUNK_ROWS;
+    }
+
+    // The last-row index, grown (under the lock) to cover the given account index
+    private AtomicLongArray lastRowsFor(int account) {
+        AtomicLongArray lastRows = lastRowOfAccount;
+        if (account >= lastRows.length()) {
+            AtomicLongArray grown = newLastRows(Math.max(account + 1, lastRows.length() * 2));
+            for (int i = 0; i < lastRows.length(); i++) {
+                grown.set(i, lastRows.get(i));
+            }
+            lastRowOfAccount = grown;
+            lastRows = grown;
+        }
+        return lastRows;
+    }
+
+    private static AtomicLongArray newLastRows(int length) {
+        AtomicLongArray lastRows = new AtomicLongArray(length);
+        for (int i = 0; i < length; i++) {
+            lastRows.set(i, NO_ROW);
+        }
+        return lastRows;
+    }
+
+    /**
+     * Visits the rows of an account (as source or transfer target) with a timestamp in [fromEpochNanos, toEpochNanos], newest first.
+     * @param status Only rows with this status, null for any
+     * @param limit Most rows visited
+     * @return Number of rows visited
+     */
+    public int visitAccountHistory(int account, long fromEpochNanos, long toEpochNanos, TransactionStatus status, int limit,
+                                   RowVisitor visitor) {
+        AtomicLongArray lastRows = lastRowOfAccount;
+        if (account < 0 || account >= lastRows.length() || limit <= 0) {
+            return 0;
+        }
+        long row = lastRows.get(account);
+        View snapshot = view;  // Read after the row: its chunk is in the view (or already evicted)
+        // Rows older than this can't have a timestamp in the range (see firstRowFrom), the walk stops there
+        long lowestRow = Math.max(snapshot.firstRow(), firstRowFrom(fromEpochNanos));
+
+        int visited = 0;
+        while (row >= lowestRow && visited < limit) {
+            Chunk chunk = snapshot.chunkOf(row);
+            int i = (int) (row & CHUNK_MASK);
+            if (matches(chunk, i, fromEpochNanos, toEpochNanos, status)) {
+                visit(chunk, i, row, visitor);
+                visited++;
+            }
+            row = chunk.account[i] == account ? chunk.previousOfAccount[i] : chunk.previousOfTarget[i];
+        }
+        return visited;
+    }
+
+    /**
+     * Visits the rows with a timestamp in [fromEpochNanos, toEpochNanos], in the order they were appended.
+     * @param status Only rows with this status, null for any
+     * @param limit Most rows visited
+     * @return Number of rows visited
+     */
+    public int visitTimeRange(long fromEpochNanos, long toEpochNanos, TransactionStatus status, int limit, RowVisitor visitor) {
+        if (fromEpochNanos > toEpochNanos || limit <= 0) {
+            return 0;
+        }
+        long firstRow = Long.MAX_VALUE;
+        long lastRow = NO_ROW;
+        for (Bucket bucket : buckets.subMap(Math.floorDiv(fromEpochNanos, bucketNanos), true,
+                Math.floorDiv(toEpochNanos, bucketNanos), true).values()) {
+            firstRow = Math.min(firstRow, bucket.firstRow);
+            lastRow = Math.max(lastRow, bucket.lastRow);
+        }
+        long published = rowCount;  // Read before the view: the chunk of every published row is in it (or already evicted)
+        View snapshot = view;
+        firstRow = Math.max(firstRow, snapshot.firstRow());
+        lastRow = Math.min(lastRow, published - 1);
+
+        int visited = 0;
+        for (long row = firstRow; row <= lastRow && visited < limit; row++) {
+            Chunk chunk = snapshot.chunkOf(row);
+            int i = (int) (row & CHUNK_MASK);
+            if (matches(chunk, i, fromEpochNanos, toEpochNanos, status)) {
+                visit(chunk, i, row, visitor);
+                visited++;
+            }
+        }
+        return visited;
+    }
+
+    /**
+     * The history of an account in [fromEpochNanos, toEpochNanos], newest first, as records (the sequence is the row number).
+     */
+    public List<TransactionRecord> accountHistory(int account, long fromEpochNanos, long toEpochNanos, TransactionStatus status, int limit) {
+        List<TransactionRecord> records = new ArrayList<>();
+        visitAccountHistory(account, fromEpochNanos, toEpochNanos, status, limit, collector(records));
+        return records;
+    }
+
+    /**
+     * The transactions in [fromEpochNanos, toEpochNanos] in the order they were appended, as records (the sequence is the row number).
+     */
+    public List<TransactionRecord> timeRange(long fromEpochNanos, long toEpochNanos, TransactionStatus status, int limit) {
+        List<TransactionRecord> records = new ArrayList<>();
+        visitTimeRange(fromEpochNanos, toEpochNanos, status, limit, collector(records));
+        return records;
+    }
+
+    /**
+     * The smallest row that can have a timestamp of at least the given time: a row with a later timestamp is in a later bucket, whose
+     * first row is at least the minimum over those buckets. The buckets after the time are few for recent queries.
+     */
+    private long firstRowFrom(long fromEpochNanos) {
+        long firstRow = Long.MAX_VALUE;
+        for (Bucket bucket : tailBuckets(fromEpochNanos).values()) {
+            firstRow = Math.min(firstRow, bucket.firstRow);
+        }
+        return firstRow == Long.MAX_VALUE ? rowCount : firstRow;
+    }
+
+    private ConcurrentNavigableMap<Long, Bucket> tailBuckets(long fromEpochNanos) {
+        return buckets.tailMap(Math.floorDiv(fromEpochNanos, bucketNanos), true);
+    }
+
+    private static boolean matches(Chunk chunk, int i, long fromEpochNanos, long toEpochNanos, TransactionStatus status) {
+        long timestamp = chunk.epochNanos[i];
+        return timestamp >= fromEpochNanos && timestamp <= toEpochNanos
+                && (status == null || TransactionRecord.statusOf(chunk.flags[i]) == status);
+    }
+
+    private static void visit(Chunk chunk, int i, long row, RowVisitor visitor) {
+        int flags = chunk.flags[i];
+        visitor.onRow(row, chunk.account[i], chunk.target[i], chunk.amount[i], TransactionRecord.typeOf(flags),
+                TransactionRecord.statusOf(flags), chunk.epochNanos[i]);
+    }
+
+    private static RowVisitor collector(List<TransactionRecord> records) {
+        return (row, account, target, amount, type, status, epochNanos) ->
+                records.add(new TransactionRecord(row, epochNanos, account, target, amount, TransactionRecord.pack(type, status)));
+    }
+
+    // Rows appended so far (including the evicted ones)
+    public long getAppendedCount() {
+        return rowCount;
+    }
+
+    // Rows currently in memory
+    public long getRowCount() {
+        return rowCount - Math.min(rowCount, view.firstRow());
+    }
+
+    public long getEvictedCount() {
+        return evictedRows;
+    }
+
+    // Memory of the chunks in memory
+    public long getMemoryBytes() {
+        return (long) view.chunks.length * CHUNK_ROWS * ROW_BYTES;
+    }
+
+    /**
+     * Closes the eviction journal. Rows in memory are not written out.
+     */
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (evictionJournal != null) {
+                evictionJournal.close();
+                evictionJournal = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return getRowCount() + " rows in memory (" + getMemoryBytes() / (1024 * 1024) + " MB), " + getEvictedCount() + " evicted, "
+                + buckets.size() + " time buckets";
+    }
+}
@@ -1,5 +1,5 @@
-package TransactionsSimulator;
-public enum TransactionType {
-    DEPOSIT, WITHDRAWAL, TRANSFER
-}
-
+package TransactionsSimulator;
+public enum TransactionType {
+    DEPOSIT, WITHDRAWAL, TRANSFER
+}
+
@@ -0,0 +1,58 @@
+package TransactionsSimulator;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+ * The WaitStrategy enum decides what a TransactionRingBuffer producer or consumer does while it waits for a sequence, trading CPU for latency:
+ *  - BUSY_SPIN: spins on the CPU, lowest latency, but occupies a core per waiting thread
+ *  - YIELD: spins briefly, then yields the CPU to other threads between checks
+ *  - PARK: spins and yields briefly, then parks for 100 microseconds at a time, almost no CPU while idle
+ */
+
+public enum WaitStrategy {
+
+    BUSY_SPIN {
+        @Override
+        int idle(int spins) {
+            Thread.onSpinWait();
+            return spins + 1;
+        }
+    },
+
+    YIELD {
+        @Override
+        int idle(int spins) {
+            if (spins < SPIN_TRIES) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+            return spins + 1;
+        }
+    },
+
+    PARK {
+        @Override
+        int idle(int spins) {
+            if (spins < SPIN_TRIES) {
+                Thread.onSpinWait();
+            } else if (spins < SPIN_TRIES * 2) {
+                Thread.yield();
+            } else {
+                LockSupport.parkNanos(PARK_NANOS);
+            }
+            return spins + 1;
+        }
+    };
+
+    private static final int SPIN_TRIES = 100;
+    private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    /**
+     * Waits once.
+     * @param spins How many times the caller already waited for the same sequence (0 on the first call)
+     * @return The new number of waits
+     */
+    abstract int idle(int spins);
+}
@@ -0,0 +1,215 @@
+package TransactionsSimulator;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * The WindowedStats class keeps transaction statistics over time windows incrementally: time is cut into fixed slots (e.g. 1 second) kept in
+ * a ring, and every transaction is added to the slot of its time only - count, failures, volume and a log-linear histogram of the amounts.
+ * A record is O(1) (a few striped increments, no lock except when a slot is reused for a new time, once per slot length).
+ *
+ * A window is answered by adding up its slots, without rescanning transactions and without blocking the writers:
+ *  - sliding: the last windowNanos up to now (the current slot included, so it moves with every slot)
+ *  - tumbling: the last completed window aligned to windowNanos (e.g. the previous full minute), stable until the next one completes
+ * The window length is rounded up to whole slots. A sliding window can span the whole ring; a tumbling window at most half of it, because
+ * the last completed window starts up to two window lengths back and older slots are already reused. Records racing with the reuse of a slot, or with a
+ * query, may be counted in the old or the new window; the figures are exact otherwise.
+ */
+
+public class WindowedStats {
+
+    // Statistics of one window
+    public record Window(long windowNanos, long count, long failed, long volume, long p50Amount, long p95Amount, long p99Amount) {
+
+        public double getTps() {
+            return windowNanos == 0 ? 0 : count * 1e9 / windowNanos;
+        }
+
+        public double getFailureRate() {
+            return count == 0 ? 0 : (double) failed / count;
+        }
+
+        public double getMeanAmount() {
+            return count == 0 ? 0 : (double) volume / count;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d tx (%.1f TPS), volume %d, failed %.1f%%, amount mean %.1f p50 %d p95 %d p99 %d",
+                    count, getTps(), volume, getFailureRate() * 100, getMeanAmount(), p50Amount, p95Amount, p99Amount);
+        }
+    }
+
+    private final class Slot {
+        volatile long number = -1;  // time / slotNanos of the values in the slot, -1 if unused
+        final LongAdder count = new LongAdder();
+        final LongAdder failed = new LongAdder();
+        final LongAdder volume = new LongAdder();
+        final AtomicLongArray amounts = new AtomicLongArray(buckets);
+
+        // Makes the slot hold the given slot number, clearing the values of an older one (writers only)
+        void claim(long slotNumber) {
+            synchronized (this) {
+                if (number != slotNumber) {
+                    count.reset();
+                    failed.reset();
+                    volume.reset();
+                    for (int i = 0; i < buckets; i++) {
+                        amounts.set(i, 0);
+                    }
+                    number = slotNumber;
+                }
+            }
+        }
+    }
+
+    private final long slotNanos;
+    private final int subBucketBits;
+    private final int buckets;
+    private final Slot[] slots;
+
+    /**
+     * @param slotNanos Length of a slot, the resolution of the windows
+     * @param slotCount Slots in the ring, the longest window is slotNanos * slotCount
+     * @param subBucketBits Precision of the amount percentiles: every power of two is split into 2^subBucketBits buckets
+     *                      (relative error 1 / 2^subBucketBits, memory 8 * (32 - bits) * 2^bits bytes per slot)
+     */
+    public WindowedStats(long slotNanos, int slotCount, int subBucketBits) {
+        if (slotNanos <= 0 || slotCount <= 0) {
+            throw new IllegalArgumentException("Slot length and count must be positive.");
+        }
+        if (subBucketBits < 0 || subBucketBits > 8) {
+            throw new IllegalArgumentException("Sub-bucket bits must be between 0 and 8.");
+        }
+        this.slotNanos = slotNanos;
+        this.subBucketBits = subBucketBits;
+        this.buckets = (32 - subBucketBits) * (1 << subBucketBits);
+        this.slots = new Slot[slotCount];
+        for (int i = 0; i < slotCount; i++) {
+            slots[i] = new Slot();
+        }
+    }
+
+    /**
+     * Adds a transaction at the given System.nanoTime().
+     * @param amount Amount of the transaction (negative values count as 0)
+     * @param failed Whether its outcome is FAILED
+     */
+    public void record(long nanoTime, int amount, boolean failed) {
+        long slotNumber = Math.floorDiv(nanoTime, slotNanos);
+        Slot slot = slots[(int) Math.floorMod(slotNumber, (long) slots.length)];
+        if (slot.number != slotNumber) {
+            slot.claim(slotNumber);
+        }
+        int value = Math.max(0, amount);
+        slot.count.increment();
+        slot.volume.add(value);
+        if (failed) {
+            slot.failed.increment();
+        }
+        slot.amounts.incrementAndGet(bucketOf(value));
+    }
+
+    // The last windowNanos up to now
+    public Window sliding(long windowNanos) {
+        long current = Math.floorDiv(System.nanoTime(), slotNanos);
+        int slotsInWindow = slotsOf(windowNanos);
+        return sum(current - slotsInWindow + 1, current, windowNanos);
+    }
+
+    // The last completed window, aligned to multiples of windowNanos (at most getMaxTumblingWindowNanos())
+    public Window tumbling(long windowNanos) {
+        int slotsInWindow = slotsOf(windowNanos);
+        if (slotsInWindow > slots.length / 2) {
+            throw new IllegalArgumentException("Tumbling window must be at most " + getMaxTumblingWindowNanos() + " ns.");
+        }
+        long current = Math.floorDiv(System.nanoTime(), slotNanos);
+        long windowStart = Math.floorDiv(current, slotsInWindow) * slotsInWindow - slotsInWindow;
+        return sum(windowStart, windowStart + slotsInWindow - 1, (long) slotsInWindow * slotNanos);
+    }
+
+    public long getSlotNanos() {
+        return slotNanos;
+    }
+
+    // Longest sliding window that can be asked for
+    public long getMaxWindowNanos() {
+        return slotNanos * slots.length;
+    }
+
+    // Longest tumbling window that can be asked for: the completed window and the current one must both fit in the ring
+    public long getMaxTumblingWindowNanos() {
+        return slotNanos * (slots.length / 2);
+    }
+
+    private int slotsOf(long windowNanos) {
+        if (windowNanos <= 0 || windowNanos > getMaxWindowNanos()) {
+            throw new IllegalArgumentException("Window must be between 1 ns and " + getMaxWindowNanos() + " ns.");
+        }
+        return (int) ((windowNanos + slotNanos - 1) / slotNanos);
+    }
+
+    // Adds up the slots numbered first..last (the ones still holding those numbers)
+    private Window sum(long first, long last, long windowNanos) {
+        long count = 0;
+        long failed = 0;
+        long volume = 0;
+        long[] amounts = new long[buckets];
+        for (long slotNumber = first; slotNumber <= last; slotNumber++) {
+            Slot slot = slots[(int) Math.floorMod(slotNumber, (long) slots.length)];
+            if (slot.number != slotNumber) {
+                continue;  // No transaction in that slot
+            }
+            count += slot.count.sum();
+            failed += slot.failed.sum();
+            volume += slot.volume.sum();
+            for (int i = 0; i < buckets; i++) {
+                amounts[i] += slot.amounts.get(i);
+            }
+        }
+        return new Window(windowNanos, count, failed, volume,
+                percentile(amounts, 50), percentile(amounts, 95), percentile(amounts, 99));
+    }
+
+    // Highest value of the bucket holding the percentile, 0 if empty
+    private long percentile(long[] amounts, double percentile) {
+        long total = 0;
+        for (long n : amounts) {
+            total += n;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < amounts.length; i++) {
+            seen += amounts[i];
+            if (seen >= rank) {
+                return highestValueOf(i);
+            }
+        }
+        return highestValueOf(amounts.length - 1);
+    }
+
+    // Same log-linear layout as LatencyHistogram, for non-negative int values
+    private int bucketOf(int value) {
+        int subBuckets = 1 << subBucketBits;
+        if (value < subBuckets) {
+            return value;
+        }
+        int magnitude = 31 - Integer.numberOfLeadingZeros(value);  // >= subBucketBits
+        int subBucket = (value >>> (magnitude - subBucketBits)) & (subBuckets - 1);
+        return (magnitude - subBucketBits + 1) * subBuckets + subBucket;
+    }
+
+    private long highestValueOf(int bucket) {
+        int subBuckets = 1 << subBucketBits;
+        if (bucket < subBuckets) {
+            return bucket;
+        }
+        int magnitude = bucket / subBuckets + subBucketBits - 1;
+        int shift = magnitude - subBucketBits;
+        long lowest = (long) (subBuckets + bucket % subBuckets) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
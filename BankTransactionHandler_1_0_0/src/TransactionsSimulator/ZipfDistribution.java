@@ -0,0 +1,100 @@
+package TransactionsSimulator;
+
+import java.util.SplittableRandom;
+
+/*
+ * The ZipfDistribution class samples ranks 0..n-1 where rank k is drawn with probability proportional to 1 / (k + 1)^exponent: with an
+ * exponent around 1 a handful of hot accounts receive most transactions, 0 gives a uniform distribution. It uses rejection-inversion
+ * sampling (Hörmann and Derflinger), so sampling is O(1) with no table, even for millions of accounts, and it is thread-safe (all state is in
+ * the caller's SplittableRandom).
+ */
+
+public class ZipfDistribution {
+
+    private final int n;
+    private final double exponent;
+    private final double hIntegralX1;
+    private final double hIntegralN;
+    private final double s;
+
+    /**
+     * @param n Number of ranks
+     * @param exponent Skew, 0 for uniform
+     */
+    public ZipfDistribution(int n, double exponent) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("Number of ranks must be positive.");
+        }
+        if (exponent < 0 || Double.isNaN(exponent)) {
+            throw new IllegalArgumentException("Zipf exponent must not be negative.");
+        }
+        this.n = n;
+        this.exponent = exponent;
+        this.hIntegralX1 = hIntegral(1.5) - 1;
+        this.hIntegralN = hIntegral(n + 0.5);
+        this.s = 2 - hIntegralInverse(hIntegral(2.5) - h(2));
+    }
+
+    // Returns a rank between 0 (the most frequent) and n - 1
+    public int sample(SplittableRandom random) {
+        if (exponent == 0) {
+            return random.nextInt(n);
+        }
+        while (true) {
+            double u = hIntegralN + random.nextDouble() * (hIntegralX1 - hIntegralN);
+            double x = hIntegralInverse(u);
+            int k = (int) (x + 0.5);
+            if (k < 1) {
+                k = 1;
+            } else if (k > n) {
+                k = n;
+            }
+            if (k - x <= s || u >= hIntegral(k + 0.5) - h(k)) {
+                return k - 1;
+            }
+        }
+    }
+
+    public int getN() {
+        return n;
+    }
+
+    public double getExponent() {
+        return exponent;
+    }
+
+    // h(x) = 1 / x^exponent, the unnormalized density
+    private double h(double x) {
+        return Math.exp(-exponent * Math.log(x));
+    }
+
+    // Integral of h from 1 to x
+    private double hIntegral(double x) {
+        double logX = Math.log(x);
+        return helper2((1 - exponent) * logX) * logX;
+    }
+
+    private double hIntegralInverse(double x) {
+        double t = x * (1 - exponent);
+        if (t < -1) {
+            t = -1;  // Rounding can push it just below the domain
+        }
+        return Math.exp(helper1(t) * x);
+    }
+
+    // log(1 + x) / x, accurate near 0
+    private static double helper1(double x) {
+        if (Math.abs(x) > 1e-8) {
+            return Math.log1p(x) / x;
+        }
+        return 1 - x * (0.5 - x * (1.0 / 3 - 0.25 * x));
+    }
+
+    // (exp(x) - 1) / x, accurate near 0
+    private static double helper2(double x) {
+        if (Math.abs(x) > 1e-8) {
+            return Math.expm1(x) / x;
+        }
+        return 1 + x * 0.5 * (1 + x / 3 * (1 + 0.25 * x));
+    }
+}
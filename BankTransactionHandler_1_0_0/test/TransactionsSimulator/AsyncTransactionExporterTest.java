@@ -0,0 +1,55 @@
+package TransactionsSimulator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/*
+ * Checks that a disk failure of the export reaches the export stage: the batch is retried, then dropped and counted instead of being
+ * counted as exported.
+ */
+
+class AsyncTransactionExporterTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void unwritableExportIsCountedAsDropped() throws Exception {
+        Path exportDir = directory.resolve("exports");
+        TransactionExporter exporter = new TransactionExporter(ExportFormat.JSON_LINES, exportDir);
+        // The export directory is replaced by a file, so no export file can be opened in it
+        Files.delete(exportDir);
+        Files.createFile(exportDir);
+
+        AsyncTransactionExporter stage = new AsyncTransactionExporter(exporter, "OTP", 64, 16, 1, DurabilityMode.FSYNC_PER_BATCH, 1000);
+        for (int i = 0; i < 10; i++) {
+            Transaction tx = new Transaction("Account_1", 100, TransactionType.DEPOSIT);
+            tx.setStatus(TransactionStatus.COMPLETED);
+            stage.submit(tx);
+        }
+        stage.close();
+
+        assertEquals(10, stage.getDroppedCount());
+        assertEquals(0, stage.getExportedCount());
+    }
+
+    @Test
+    void writableExportIsNotDropped() throws Exception {
+        AsyncTransactionExporter stage = new AsyncTransactionExporter(new TransactionExporter(ExportFormat.JSON_LINES, directory), "OTP",
+                64, 16, 1, DurabilityMode.FSYNC_PER_BATCH, 1000);
+        Transaction tx = new Transaction("Account_1", 100, TransactionType.DEPOSIT);
+        tx.setStatus(TransactionStatus.COMPLETED);
+        stage.submit(tx);
+        stage.close();
+
+        assertEquals(0, stage.getDroppedCount());
+        assertEquals(1, stage.getExportedCount());
+        assertTrue(Files.size(directory.resolve("OTP_transactions.jsonl")) > 0);
+    }
+}
@@ -0,0 +1,187 @@
+package TransactionsSimulator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/*
+ * Crash recovery of the balances: the latest snapshot plus the write-ahead log tail after it (BalanceSnapshotter.recover), the records a
+ * fuzzy snapshot already holds, the torn records a crash leaves at the end of the log and the split transfers in flight at the crash.
+ */
+
+class BalanceRecoveryTest {
+
+    private static final int ACCOUNTS = 4;
+
+    @TempDir
+    Path directory;
+
+    // No fsync, the tests only need the records in the files
+    private BalanceWriteAheadLog openLog() throws IOException {
+        return new BalanceWriteAheadLog(directory, 1 << 16, 5, false, 64L << 20);
+    }
+
+    private StripedAccountTable recover() throws IOException {
+        StripedAccountTable recovered = new StripedAccountTable(ACCOUNTS);
+        BalanceSnapshotter.recover(directory, directory, recovered);
+        return recovered;
+    }
+
+    @Test
+    void snapshotPlusTailIsRecovered() throws IOException {
+        StripedAccountTable balances = new StripedAccountTable(ACCOUNTS);
+        try (BalanceWriteAheadLog wal = openLog()) {
+            balances.attachWriteAheadLog(wal);
+            BalanceSnapshotter snapshotter = new BalanceSnapshotter(directory, wal, balances);
+            balances.deposit(0, 1_000);
+            balances.deposit(1, 500);
+            snapshotter.snapshot();
+
+            // The tail after the snapshot
+            balances.withdraw(0, 300);
+            balances.transfer(1, 2, 200);
+            balances.setBalance(3, 42);
+        }
+
+        StripedAccountTable recovered = recover();
+        assertEquals(700, recovered.getBalance(0));
+        assertEquals(300, recovered.getBalance(1));
+        assertEquals(200, recovered.getBalance(2));
+        assertEquals(42, recovered.getBalance(3));
+    }
+
+    @Test
+    void recordsOlderThanTheSnapshotOfTheAccountAreSkipped() throws IOException {
+        // A fuzzy snapshot: it starts at LSN 1, but account 0 was copied after the change logged at LSN 3 (and a later, unlogged 250)
+        StripedAccountTable snapshotted = new StripedAccountTable(ACCOUNTS) {
+            @Override
+            void copyState(int account, long[] state) {
+                state[0] = account == 0 ? 250 : 0;
+                state[1] = account == 0 ? 3 : 0;
+            }
+        };
+        try (BalanceWriteAheadLog wal = openLog()) {
+            new BalanceSnapshotter(directory, wal, snapshotted).snapshot();
+            wal.append(BalanceWriteAheadLog.OP_DEPOSIT, 0, 100, 100);  // LSN 1
+            wal.append(BalanceWriteAheadLog.OP_DEPOSIT, 0, 100, 200);  // LSN 2
+            wal.append(BalanceWriteAheadLog.OP_DEPOSIT, 0, 100, 300);  // LSN 3, already in the snapshot
+            wal.append(BalanceWriteAheadLog.OP_DEPOSIT, 1, 70, 70);    // LSN 4, newer than the snapshot of account 1
+        }
+
+        StripedAccountTable recovered = recover();
+        assertEquals(250, recovered.getBalance(0));
+        assertEquals(70, recovered.getBalance(1));
+    }
+
+    @Test
+    void tornTailIsIgnored() throws IOException {
+        StripedAccountTable balances = new StripedAccountTable(ACCOUNTS);
+        try (BalanceWriteAheadLog wal = openLog()) {
+            balances.attachWriteAheadLog(wal);
+            balances.deposit(0, 100);
+            balances.deposit(0, 50);
+        }
+        // A crash in the middle of the next record
+        appendGarbage(lastSegment(), BalanceWriteAheadLog.RECORD_SIZE / 2);
+
+        assertEquals(150, recover().getBalance(0));
+    }
+
+    @Test
+    void recordsAfterATornFirstRecordAreRecovered() throws IOException {
+        StripedAccountTable balances = new StripedAccountTable(ACCOUNTS);
+        long next;
+        try (BalanceWriteAheadLog wal = openLog()) {
+            balances.attachWriteAheadLog(wal);
+            balances.deposit(0, 100);
+            next = wal.nextLsn();
+        }
+        // A crash tore the first record of a new segment
+        Path torn = directory.resolve(String.format("wal-%020d.log", next));
+        appendGarbage(torn, BalanceWriteAheadLog.RECORD_SIZE);
+
+        // The restarted log must not write behind the torn record
+        StripedAccountTable restarted = recover();
+        try (BalanceWriteAheadLog wal = openLog()) {
+            assertEquals(next, wal.nextLsn());
+            restarted.attachWriteAheadLog(wal);
+            restarted.deposit(0, 25);
+            restarted.deposit(1, 10);
+        }
+        StripedAccountTable recovered = recover();
+        assertEquals(125, recovered.getBalance(0));
+        assertEquals(10, recovered.getBalance(1));
+
+        // And the next restart continues after those records instead of reissuing their LSNs
+        try (BalanceWriteAheadLog wal = openLog()) {
+            assertEquals(next + 2, wal.nextLsn());
+        }
+    }
+
+    @Test
+    void transferInFlightAtTheCrashIsCreditedOnce() throws IOException {
+        StripedAccountTable balances = new StripedAccountTable(ACCOUNTS);
+        try (BalanceWriteAheadLog wal = openLog()) {
+            balances.attachWriteAheadLog(wal);
+            balances.setBalance(0, 1_000);
+            balances.beginTransfer(0, 1, 300, 10);  // The crash comes before the target's shard credits it
+        }
+
+        StripedAccountTable restarted = recover();
+        assertEquals(690, restarted.getBalance(0));
+        assertEquals(300, restarted.getBalance(1));
+
+        // The completed credit is logged on attach, so the next recovery doesn't credit it again (after a later change of the target)
+        try (BalanceWriteAheadLog wal = openLog()) {
+            restarted.attachWriteAheadLog(wal);
+            restarted.deposit(1, 5);
+        }
+        StripedAccountTable recovered = recover();
+        assertEquals(690, recovered.getBalance(0));
+        assertEquals(305, recovered.getBalance(1));
+    }
+
+    @Test
+    void snapshotTakenWhileATransferIsInFlightKeepsIt() throws IOException {
+        StripedAccountTable balances = new StripedAccountTable(ACCOUNTS);
+        try (BalanceWriteAheadLog wal = openLog()) {
+            balances.attachWriteAheadLog(wal);
+            BalanceSnapshotter snapshotter = new BalanceSnapshotter(directory, wal, balances);
+            balances.setBalance(0, 1_000);
+            long ticket = balances.beginTransfer(0, 1, 300, 0);
+            balances.beginTransfer(0, 2, 100, 0);
+            snapshotter.snapshot();  // Holds account 0 debited twice, but neither credit
+            balances.completeTransfer(1, 300, ticket);
+        }
+
+        StripedAccountTable recovered = recover();
+        assertEquals(600, recovered.getBalance(0));
+        assertEquals(300, recovered.getBalance(1));
+        assertEquals(100, recovered.getBalance(2));
+    }
+
+    private Path lastSegment() throws IOException {
+        List<Path> segments = BalanceWriteAheadLog.listSegments(directory);
+        return segments.get(segments.size() - 1);
+    }
+
+    private static void appendGarbage(Path segment, int bytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND)) {
+            ByteBuffer garbage = ByteBuffer.allocate(bytes);
+            for (int i = 0; i < bytes; i++) {
+                garbage.put((byte) (i * 31 + 7));
+            }
+            garbage.flip();
+            channel.write(garbage);
+        }
+    }
+}
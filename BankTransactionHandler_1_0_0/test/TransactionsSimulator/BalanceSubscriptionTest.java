@@ -0,0 +1,71 @@
+package TransactionsSimulator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/*
+ * Checks that a full subscription only holds up the publisher if it opted in to BLOCK: the others drop snapshots and count them.
+ */
+
+class BalanceSubscriptionTest {
+
+    private static final int CAPACITY = 4;
+
+    private static void publish(BalanceSnapshotChannel channel, int count) throws InterruptedException {
+        for (int cycle = 0; cycle < count; cycle++) {
+            channel.publish(0, "Account_0", "OTP", cycle, cycle);
+        }
+    }
+
+    @Test
+    void fullDropOldestSubscriptionKeepsTheNewestWithoutBlocking() {
+        BalanceSnapshotChannel channel = new BalanceSnapshotChannel(1);
+        BalanceSubscription subscription = channel.subscribe(CAPACITY, false);
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> publish(channel, 10));
+
+        List<BalanceSnapshot> kept = new ArrayList<>();
+        subscription.drainTo(kept, CAPACITY);
+        assertEquals(List.of(6L, 7L, 8L, 9L), kept.stream().map(BalanceSnapshot::cycle).toList());
+        assertEquals(6, subscription.getDroppedCount());
+    }
+
+    @Test
+    void fullDropNewestSubscriptionKeepsTheOldest() throws InterruptedException {
+        BalanceSnapshotChannel channel = new BalanceSnapshotChannel(1);
+        BalanceSubscription subscription = channel.subscribe(CAPACITY, false, SubscriptionOverflow.DROP_NEWEST);
+
+        publish(channel, 10);
+
+        List<BalanceSnapshot> kept = new ArrayList<>();
+        subscription.drainTo(kept, CAPACITY);
+        assertEquals(List.of(0L, 1L, 2L, 3L), kept.stream().map(BalanceSnapshot::cycle).toList());
+        assertEquals(6, subscription.getDroppedCount());
+    }
+
+    @Test
+    void blockSubscriptionIsLossless() throws Exception {
+        BalanceSnapshotChannel channel = new BalanceSnapshotChannel(1);
+        BalanceSubscription subscription = channel.subscribe(CAPACITY, false, SubscriptionOverflow.BLOCK);
+
+        Thread publisher = new Thread(() -> {
+            try {
+                publish(channel, 100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        publisher.start();
+        for (long cycle = 0; cycle < 100; cycle++) {
+            assertEquals(cycle, subscription.take().cycle());
+        }
+        publisher.join();
+        assertEquals(0, subscription.getDroppedCount());
+    }
+}
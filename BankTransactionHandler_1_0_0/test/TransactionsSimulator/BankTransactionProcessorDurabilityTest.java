@@ -0,0 +1,64 @@
+package TransactionsSimulator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/*
+ * Checks that PARTITIONED mode can run on balances logged to a write-ahead log: the transfers between shards (debited on one shard,
+ * credited on another) are recovered like any other change.
+ */
+
+class BankTransactionProcessorDurabilityTest {
+
+    private static final int ACCOUNTS = 8;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void partitionedTransfersAreRecoveredFromWriteAheadLog() throws Exception {
+        AccountRegistry registry = new AccountRegistry();
+        for (int i = 0; i < ACCOUNTS; i++) {
+            registry.register("Account_" + i, "OTP");
+        }
+        StripedAccountTable balances = new StripedAccountTable(registry.size());
+        long[] live = new long[ACCOUNTS];
+
+        try (BalanceWriteAheadLog wal = new BalanceWriteAheadLog(directory.resolve("wal"), 1 << 16, 5, false, 64L << 20)) {
+            balances.attachWriteAheadLog(wal);
+            for (int i = 0; i < ACCOUNTS; i++) {
+                balances.setBalance(i, 1_000);
+            }
+
+            TransactionRingBuffer ring = new TransactionRingBuffer(64, 8, WaitStrategy.PARK);
+            BankTransactionProcessor processor = new BankTransactionProcessor(ring, registry, balances, "OTP",
+                    new TransactionExporter(ExportFormat.JSON_LINES, directory.resolve("exports")));
+            processor.setExecutionMode(ExecutionMode.PARTITIONED);
+            Thread thread = new Thread(processor, "OTP-Thread");
+            thread.start();
+            for (int i = 0; i < 500; i++) {
+                int from = i % ACCOUNTS;
+                ring.put(new Transaction("Account_" + from, 1 + i % 7, TransactionType.TRANSFER, "Account_" + ((from + 3) % ACCOUNTS)));
+            }
+            processor.stop();
+            thread.join();
+
+            for (int i = 0; i < ACCOUNTS; i++) {
+                live[i] = balances.getBalance(i);
+            }
+        }
+
+        StripedAccountTable recovered = new StripedAccountTable(ACCOUNTS);
+        BalanceSnapshotter.recover(directory.resolve("wal"), directory.resolve("wal"), recovered);
+        long total = 0;
+        for (int i = 0; i < ACCOUNTS; i++) {
+            assertEquals(live[i], recovered.getBalance(i));
+            total += recovered.getBalance(i);
+        }
+        assertEquals(ACCOUNTS * 1_000L, total);
+    }
+}
@@ -0,0 +1,103 @@
+package TransactionsSimulator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import ThirdParticipante.ComplianceEngine;
+import ThirdParticipante.ComplianceRule;
+import ThirdParticipante.ComplianceRules;
+
+/*
+ * Checks that the fees of ComplianceRules.percentageFee are applied by the processor: a deposit is credited amount - fee, a withdrawal
+ * and a transfer debited amount + fee, while the amount of the transaction stays as requested.
+ */
+
+class BankTransactionProcessorFeeTest {
+
+    private static final int FEE_BASIS_POINTS = 100;  // 1%
+
+    @TempDir
+    Path exportDir;
+
+    private AccountRegistry registry;
+    private StripedAccountTable balances;
+    private BankTransactionProcessor processor;
+
+    @BeforeEach
+    void setUp() {
+        registry = new AccountRegistry();
+        registry.register("Account_1", "OTP");
+        registry.register("Account_2", "OTP");
+        balances = new StripedAccountTable(registry.size());
+        balances.setBalance(0, 10_000);
+        balances.setBalance(1, 10_000);
+
+        processor = new BankTransactionProcessor(new LinkedBlockingQueue<>(), registry, balances, "OTP",
+                new TransactionExporter(ExportFormat.JSON_LINES, exportDir));
+        processor.setComplianceEngine(new ComplianceEngine(List.of(ComplianceRules.positiveAmount(),
+                ComplianceRules.percentageFee(null, FEE_BASIS_POINTS))));
+    }
+
+    @AfterEach
+    void tearDown() {
+        processor.stop();
+    }
+
+    @Test
+    void withdrawalWithFeeReducesBalanceByMoreThanTheAmount() throws Exception {
+        Transaction withdrawal = new Transaction("Account_1", 1_000, TransactionType.WITHDRAWAL);
+        processor.processTransaction(withdrawal).get();
+
+        assertEquals(TransactionStatus.COMPLETED, withdrawal.getStatus());
+        assertEquals(1_000, withdrawal.getAmount());
+        assertEquals(10, withdrawal.getFee());
+        assertTrue(10_000 - balances.getBalance(0) > withdrawal.getAmount());
+        assertEquals(10_000 - 1_000 - 10, balances.getBalance(0));
+    }
+
+    @Test
+    void depositIsCreditedLessTheFee() throws Exception {
+        Transaction deposit = new Transaction("Account_1", 1_000, TransactionType.DEPOSIT);
+        processor.processTransaction(deposit).get();
+
+        assertEquals(10_000 + 1_000 - 10, balances.getBalance(0));
+    }
+
+    @Test
+    void transferDebitsTheFeeAndCreditsTheAmount() throws Exception {
+        Transaction transfer = new Transaction("Account_1", 1_000, TransactionType.TRANSFER, "Account_2");
+        processor.processTransaction(transfer).get();
+
+        assertEquals(10_000 - 1_000 - 10, balances.getBalance(0));
+        assertEquals(10_000 + 1_000, balances.getBalance(1));
+    }
+
+    @Test
+    void withdrawalFailsIfTheBalanceCoversTheAmountButNotTheFee() throws Exception {
+        Transaction withdrawal = new Transaction("Account_1", 10_000, TransactionType.WITHDRAWAL);
+        processor.processTransaction(withdrawal).get();
+
+        assertEquals(TransactionStatus.FAILED, withdrawal.getStatus());
+        assertEquals(10_000, balances.getBalance(0));
+    }
+
+    @Test
+    void repeatedEvaluationChargesTheFeeOnce() {
+        ComplianceRule fee = ComplianceRules.percentageFee(TransactionType.WITHDRAWAL, FEE_BASIS_POINTS);
+        Transaction withdrawal = new Transaction("Account_1", 1_000, TransactionType.WITHDRAWAL);
+        fee.evaluate(withdrawal);
+        fee.evaluate(withdrawal);
+
+        assertEquals(1_000, withdrawal.getAmount());
+        assertEquals(10, withdrawal.getFee());
+    }
+}